@@ -37,14 +37,25 @@ public class WebClientConfig {
      */
     @Bean
     public WebClient.Builder webClientBuilder() {
-        HttpClient http_client = HttpClient.create()
+        HttpClient http_client = applyTimeouts(HttpClient.create());
+
+        return WebClient.builder()
+                .clientConnector(new ReactorClientHttpConnector(http_client));
+    }
+
+    /**
+     * Applies the shared connect/read/write timeouts to an HttpClient.
+     * Also used for the per-host clients built by ApiClientPool.
+     *
+     * @param http_client client to configure
+     * @return configured HTTP client
+     */
+    public static HttpClient applyTimeouts(HttpClient http_client) {
+        return http_client
                 .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, CONNECT_TIMEOUT_MS)
                 .responseTimeout(Duration.ofMillis(READ_TIMEOUT_MS))
                 .doOnConnected(connection -> connection
                         .addHandlerLast(new ReadTimeoutHandler(READ_TIMEOUT_MS, TimeUnit.MILLISECONDS))
                         .addHandlerLast(new WriteTimeoutHandler(WRITE_TIMEOUT_MS, TimeUnit.MILLISECONDS)));
-
-        return WebClient.builder()
-                .clientConnector(new ReactorClientHttpConnector(http_client));
     }
 }
@@ -5,15 +5,29 @@ import com.network.projet.ussd.domain.model.UssdService;
 import com.network.projet.ussd.dto.request.UssdRequest;
 import com.network.projet.ussd.dto.response.UssdResponse;
 import com.network.projet.ussd.exception.ServiceNotFoundException;
+import com.network.projet.ussd.exception.SessionBusyException;
+import com.network.projet.ussd.service.cluster.SessionAffinityRouter;
+import com.network.projet.ussd.service.core.MainMenuRenderer;
+import com.network.projet.ussd.service.core.SessionLanes;
 import com.network.projet.ussd.service.core.SessionManager;
 import com.network.projet.ussd.service.core.UssdGatewayService;
-import com.network.projet.ussd.service.core.ServiceRegistry;
+import com.network.projet.ussd.service.core.UssdReplayCache;
+import com.network.projet.ussd.service.external.ApiClientPool;
+import com.network.projet.ussd.service.external.ApiResilienceRegistry;
+import com.network.projet.ussd.service.external.ApiResponseCache;
+import com.network.projet.ussd.service.external.RequestCoalescer;
+import com.network.projet.ussd.util.HandlebarsTemplateEngine;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Mono;
 
+import java.util.Arrays;
+import java.util.Map;
+
 @Slf4j
 @RestController
 @RequestMapping("/api/ussd")
@@ -22,7 +36,15 @@ public class UssdController {
 
     private final UssdGatewayService ussdGatewayService;
     private final SessionManager sessionManager;
-    private final ServiceRegistry serviceRegistry;
+    private final SessionLanes sessionLanes;
+    private final UssdReplayCache ussdReplayCache;
+    private final SessionAffinityRouter sessionAffinityRouter;
+    private final MainMenuRenderer mainMenuRenderer;
+    private final HandlebarsTemplateEngine templateEngine;
+    private final ApiClientPool apiClientPool;
+    private final ApiResilienceRegistry apiResilienceRegistry;
+    private final ApiResponseCache apiResponseCache;
+    private final RequestCoalescer requestCoalescer;
 
     @Value("${ussd.main-menu.code:*500#}")
     private String MAIN_MENU_CODE;
@@ -38,79 +60,109 @@ public class UssdController {
      */
     @PostMapping
     @ResponseStatus(HttpStatus.OK)
-    public Mono<UssdResponse> handleUssdRequest(@RequestBody UssdRequest request) {
+    public Mono<UssdResponse> handleUssdRequest(@RequestBody UssdRequest request, ServerWebExchange exchange) {
         log.info("USSD Request - Session: {}, UssdCode: {}, Phone: {}, Text: '{}'",
                 request.getSessionId(), request.getUssdCode(),
                 request.getPhoneNumber(), request.getText());
 
         return validateRequest(request)
-                .flatMap(this::routeRequest)
+                // Session d'un autre nœud: relayée à son propriétaire
+                .flatMap(validated -> sessionAffinityRouter.route(validated, exchange,
+                        // Relance opérateur: réponse déjà calculée; sinon étapes d'une session dans l'ordre
+                        () -> ussdReplayCache.execute(validated,
+                                () -> sessionLanes.run(validated.getSessionId(), () -> routeRequest(validated)))))
                 .onErrorResume(this::handleError)
-                .doOnSuccess(response -> log.info("USSD Response - Continue: {}, Message: {} chars",
-                        response.isContinueSession(), response.getMessage().length()));
+                .doOnSuccess(response -> {
+                    if (response != null) {
+                        log.info("USSD Response - Continue: {}, Message: {} chars",
+                                response.isContinueSession(), response.getMessage().length());
+                    } else {
+                        log.info("USSD Request redirected to owner node - Session: {}", request.getSessionId());
+                    }
+                });
     }
 
     /**
      * Routes the request based on ussdCode and text
      */
     private Mono<UssdResponse> routeRequest(UssdRequest request) {
-        String ussdCode = request.getUssdCode();
-        String text = request.getText();
-
         return sessionManager.getSession(request.getSessionId())
                 .flatMap(existingSession -> {
                     log.debug("Route: Continuing existing session, currentState={}",
                             existingSession.getCurrentStateId());
-                    return processServiceRequest(request, existingSession);
+                    return processServiceRequest(request, existingSession, false);
                 })
-                .switchIfEmpty(Mono.defer(() -> {
-                    if (MAIN_MENU_CODE.equals(ussdCode) && isTextEmpty(text)) {
-                        log.debug("Route: Main Menu");
-                        return showMainMenu();
-                    }
-
-                    if (MAIN_MENU_CODE.equals(ussdCode) && !isTextEmpty(text)) {
-                        log.debug("Route: Menu Selection → Service");
-                        return handleMenuSelection(request);
-                    }
-
-                    log.debug("Route: Direct Service");
-                    return createAndProcessServiceRequest(request);
-                }));
+                .switchIfEmpty(Mono.defer(() -> ussdGatewayService.expandShortCode(request)
+                        .flatMap(expanded -> {
+                            String ussdCode = expanded.getUssdCode();
+                            String text = expanded.getText();
+
+                            if (MAIN_MENU_CODE.equals(ussdCode) && isTextEmpty(text)) {
+                                log.debug("Route: Main Menu");
+                                return showMainMenu(expanded);
+                            }
+
+                            if (MAIN_MENU_CODE.equals(ussdCode) && !isTextEmpty(text)) {
+                                log.debug("Route: Menu Selection → Service");
+                                return handleMenuSelection(expanded);
+                            }
+
+                            log.debug("Route: Direct Service");
+                            return createAndProcessServiceRequest(expanded);
+                        })));
     }
 
     /**
-     * Displays main menu with all services
+     * Displays main menu with all services (first page)
      */
-    private Mono<UssdResponse> showMainMenu() {
-        return serviceRegistry.getAllActiveServices()
-                .collectList()
-                .map(services -> {
-                    StringBuilder menu = new StringBuilder("Bienvenue sur USSD Gateway\n");
-
-                    if (services.isEmpty()) {
-                        menu.append("Aucun service disponible.");
-                    } else {
-                        for (int i = 0; i < services.size(); i++) {
-                            menu.append(i + 1).append(". ").append(services.get(i).getName()).append("\n");
-                        }
-                        menu.append("0. Quitter");
-                    }
-
+    private Mono<UssdResponse> showMainMenu(UssdRequest request) {
+        return mainMenuRenderer.current()
+                .map(menu -> {
+                    mainMenuRenderer.rememberPage(request.getSessionId(), 0);
                     return UssdResponse.builder()
-                            .message(menu.toString())
+                            .message(menu.page(0))
                             .continueSession(true)
                             .build();
                 });
     }
 
     /**
-     * Handles selection from main menu
+     * Handles selection from main menu: page navigation (99/98) or service
+     * number. Accumulated input ("99*12") is replayed from the first page;
+     * input after the service number is chained into the selected service.
      */
     private Mono<UssdResponse> handleMenuSelection(UssdRequest request) {
-        String selection = request.getText().trim();
+        String[] tokens = request.getText().trim().split("\\*");
+
+        return mainMenuRenderer.current()
+                .flatMap(menu -> {
+                    int page = tokens.length > 1 ? 0 : mainMenuRenderer.currentPage(request.getSessionId());
+
+                    for (int i = 0; i < tokens.length; i++) {
+                        String selection = tokens[i].trim();
+                        if (MainMenuRenderer.NEXT_PAGE.equals(selection)) {
+                            page = menu.clampPage(page + 1);
+                        } else if (MainMenuRenderer.PREVIOUS_PAGE.equals(selection)) {
+                            page = menu.clampPage(page - 1);
+                        } else {
+                            // Les entrées suivantes ("3*1*2" → service 3) sont chaînées dans le service
+                            String chained = String.join("*", Arrays.copyOfRange(tokens, i + 1, tokens.length));
+                            mainMenuRenderer.forget(request.getSessionId());
+                            return selectService(request, menu, selection, chained);
+                        }
+                    }
+
+                    mainMenuRenderer.rememberPage(request.getSessionId(), page);
+                    return Mono.just(UssdResponse.builder()
+                            .message(menu.page(page))
+                            .continueSession(true)
+                            .build());
+                });
+    }
 
-        if ("0".equals(selection)) {
+    private Mono<UssdResponse> selectService(UssdRequest request, MainMenuRenderer.RenderedMenu menu,
+            String selection, String chainedText) {
+        if (MainMenuRenderer.EXIT.equals(selection)) {
             return Mono.just(UssdResponse.builder()
                     .message("Merci d'avoir utilisé nos services. À bientôt!")
                     .continueSession(false)
@@ -134,32 +186,27 @@ public class UssdController {
                     .build());
         }
 
-        return serviceRegistry.getAllActiveServices()
-                .collectList()
-                .flatMap(services -> {
-                    if (serviceNumber > services.size()) {
-                        return Mono.just(UssdResponse.builder()
-                                .message("❌ Service inexistant. Choisissez entre 1 et " + services.size())
-                                .continueSession(false)
-                                .build());
-                    }
+        UssdService targetService = menu.service(serviceNumber);
+        if (targetService == null) {
+            return Mono.just(UssdResponse.builder()
+                    .message("❌ Service inexistant. Choisissez entre 1 et " + menu.size())
+                    .continueSession(false)
+                    .build());
+        }
 
-                    // Récupérer le service correspondant dans la liste
-                    UssdService targetService = services.get(serviceNumber - 1);
-                    String targetUssdCode = targetService.getShortCode();
+        String targetUssdCode = targetService.getShortCode();
 
-                    log.info("Menu selection {} → Service: {} ({})",
-                            serviceNumber, targetService.getName(), targetUssdCode);
+        log.info("Menu selection {} → Service: {} ({})",
+                serviceNumber, targetService.getName(), targetUssdCode);
 
-                    UssdRequest serviceRequest = UssdRequest.builder()
-                            .sessionId(request.getSessionId())
-                            .phoneNumber(request.getPhoneNumber())
-                            .ussdCode(targetUssdCode)
-                            .text("")
-                            .build();
+        UssdRequest serviceRequest = UssdRequest.builder()
+                .sessionId(request.getSessionId())
+                .phoneNumber(request.getPhoneNumber())
+                .ussdCode(targetUssdCode)
+                .text(chainedText)
+                .build();
 
-                    return createAndProcessServiceRequest(serviceRequest);
-                });
+        return createAndProcessServiceRequest(serviceRequest);
     }
 
     /**
@@ -174,7 +221,7 @@ public class UssdController {
                     log.debug("New session created - ID: {}, State: {}",
                             session.getSessionId(), session.getCurrentStateId());
 
-                    return processServiceRequest(request, session);
+                    return processServiceRequest(request, session, true);
                 });
     }
 
@@ -182,12 +229,12 @@ public class UssdController {
      * Processes request for existing session
      */
     private Mono<UssdResponse> processServiceRequest(UssdRequest request,
-            com.network.projet.ussd.domain.model.UssdSession session) {
+            com.network.projet.ussd.domain.model.UssdSession session, boolean fromDialString) {
 
         log.debug("Processing request - SessionId: {}, CurrentState: {}, Input: '{}'",
                 session.getSessionId(), session.getCurrentStateId(), request.getText());
 
-        return ussdGatewayService.processRequest(request, session)
+        return ussdGatewayService.processRequest(request, session, fromDialString)
                 .map(stateResult -> UssdResponse.builder()
                         .message(stateResult.getMessage())
                         .continueSession(stateResult.isContinueSession())
@@ -203,6 +250,8 @@ public class UssdController {
         String message = switch (error) {
             case ServiceNotFoundException e -> "Service indisponible. Contactez le support.";
             case IllegalArgumentException e -> "Requête invalide: " + e.getMessage();
+            case SessionBusyException e -> "Requête précédente en cours. Réessayez.";
+            case OptimisticLockingFailureException e -> "Session modifiée ailleurs. Réessayez.";
             default -> "Erreur technique. Réessayez plus tard.";
         };
 
@@ -261,6 +310,50 @@ public class UssdController {
                 .onErrorResume(e -> Mono.just("Error: " + e.getMessage()));
     }
 
+    @GetMapping("/stats/templates")
+    public Mono<HandlebarsTemplateEngine.TemplateCacheStats> getTemplateCacheStats() {
+        return Mono.just(templateEngine.getCacheStats());
+    }
+
+    @GetMapping("/stats/http-pools")
+    public Mono<Map<String, ApiClientPool.PoolStats>> getHttpPoolStats() {
+        return Mono.just(apiClientPool.getPoolStats());
+    }
+
+    @GetMapping("/stats/api-resilience")
+    public Mono<Map<String, ApiResilienceRegistry.ResilienceStats>> getApiResilienceStats() {
+        return Mono.just(apiResilienceRegistry.getStats());
+    }
+
+    @GetMapping("/stats/api-response-cache")
+    public Mono<ApiResponseCache.ResponseCacheStats> getApiResponseCacheStats() {
+        return Mono.just(apiResponseCache.getCacheStats());
+    }
+
+    @GetMapping("/stats/api-coalescing")
+    public Mono<Map<String, Long>> getApiCoalescingStats() {
+        return Mono.just(Map.of(
+                "inFlight", (long) requestCoalescer.getInFlightCount(),
+                "coalesced", requestCoalescer.getCoalescedCount()));
+    }
+
+    @GetMapping("/stats/session-lanes")
+    public Mono<Map<String, Integer>> getSessionLaneStats() {
+        return Mono.just(Map.of("activeLanes", sessionLanes.getActiveLanes()));
+    }
+
+    @GetMapping("/stats/cluster")
+    public Mono<SessionAffinityRouter.ClusterStats> getClusterStats() {
+        return Mono.just(sessionAffinityRouter.getStats());
+    }
+
+    @GetMapping("/stats/replay")
+    public Mono<Map<String, Long>> getReplayStats() {
+        return Mono.just(Map.of(
+                "cachedSessions", ussdReplayCache.getCachedSessions(),
+                "replayed", ussdReplayCache.getReplayedCount()));
+    }
+
     // ========== UTILITIES ==========
 
     private boolean isNullOrEmpty(String str) {
@@ -2,6 +2,7 @@ package com.network.projet.ussd.domain.enums;
 
 public enum ActionType {
     API_CALL,
+    API_PARALLEL,    // Plusieurs appels API concurrents (calls)
     STORE_DATA,
     SEND_SMS,
     STORAGE_SAVE,    // Sauvegarder dans generic_storage
@@ -0,0 +1,18 @@
+package com.network.projet.ussd.domain.enums;
+
+/**
+ * Politique d'échec d'une action API_PARALLEL
+ *
+ * @author Network Projet Team
+ */
+public enum ParallelFailurePolicy {
+    /**
+     * Un seul appel en échec fait échouer l'action (aucune donnée stockée)
+     */
+    ALL_OR_NOTHING,
+
+    /**
+     * Les réponses obtenues sont stockées; l'action n'échoue que si tous les appels échouent
+     */
+    BEST_EFFORT
+}
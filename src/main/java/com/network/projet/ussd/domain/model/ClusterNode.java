@@ -0,0 +1,41 @@
+package com.network.projet.ussd.domain.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.LocalDateTime;
+
+/**
+ * ClusterNode - Nœud de passerelle USSD membre du cluster
+ *
+ * baseUrl: adresse interne du nœud (ex: http://10.0.0.12:8080), cible des
+ * requêtes relayées vers le propriétaire d'une session
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Table("ussd_cluster_nodes")
+public class ClusterNode {
+
+    @Id
+    @Column("node_id")
+    private String nodeId;
+
+    @Column("base_url")
+    private String baseUrl;
+
+    @Column("started_at")
+    private LocalDateTime startedAt;
+
+    @Column("heartbeat_at")
+    private LocalDateTime heartbeatAt;
+
+    public ClusterNode(String nodeId, String baseUrl) {
+        this.nodeId = nodeId;
+        this.baseUrl = baseUrl;
+    }
+}
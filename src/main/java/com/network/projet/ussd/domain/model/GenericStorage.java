@@ -27,9 +27,18 @@ public class GenericStorage {
     @Column("storage_key")
     private String storageKey;
 
+    /**
+     * Colonne JSONB, lue comme texte JSON (écritures via GenericStorageRepository.upsert/appendItem)
+     */
     @Column("storage_value")
     private String storageValue;
 
+    /**
+     * Date d'expiration (null = pas d'expiration)
+     */
+    @Column("expires_at")
+    private LocalDateTime expiresAt;
+
     @Column("created_at")
     private LocalDateTime createdAt;
 
@@ -5,6 +5,7 @@ import java.time.LocalDateTime;
 
 import org.springframework.data.annotation.Id;
 import org.springframework.data.annotation.Transient;
+import org.springframework.data.annotation.Version;
 import org.springframework.data.relational.core.mapping.Column;
 import org.springframework.data.relational.core.mapping.Table;
 
@@ -20,7 +21,7 @@ import lombok.NoArgsConstructor;
  * @version 2.1
  */
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 @Table("ussd_sessions")
@@ -87,12 +88,20 @@ public class UssdSession {
     private LocalDateTime updatedAt;
 
     /**
-     * Date/heure d'expiration calculée
-     * = createdAt + timeout configuré (ex: 5 minutes)
+     * Date/heure d'expiration calculée selon la SessionConfig du service
+     * = min(createdAt + timeoutSeconds, dernière activité + maxInactivitySeconds)
      */
     @Column("expires_at")
     private LocalDateTime expiresAt;
 
+    /**
+     * Version optimiste, incrémentée à chaque sauvegarde
+     * Détecte les écritures concurrentes d'une même session par deux nœuds
+     */
+    @Version
+    @Column("version")
+    private Long version;
+
     // ========== MÉTHODES UTILITAIRES ==========
 
     /**
@@ -118,8 +127,15 @@ public class UssdSession {
      * Marque la session comme active et prolonge l'expiration
      */
     public void touch(Duration timeout) {
+        touch(LocalDateTime.now().plus(timeout));
+    }
+
+    /**
+     * Marque la session comme active jusqu'à l'échéance donnée
+     */
+    public void touch(LocalDateTime expiresAt) {
         this.updatedAt = LocalDateTime.now();
-        this.expiresAt = LocalDateTime.now().plus(timeout);
+        this.expiresAt = expiresAt;
         if (this.isActive == null || !this.isActive) {
             this.isActive = true;
         }
@@ -190,9 +206,9 @@ public class UssdSession {
     public String toString() {
         return String.format(
             "UssdSession{id=%d, sessionId='%s', phone='%s', serviceCode='%s', " +
-            "state='%s', active=%s, expiresAt=%s}",
+            "state='%s', active=%s, expiresAt=%s, version=%s}",
             id, sessionId, phoneNumber, serviceCode, currentStateId, 
-            isActive, expiresAt
+            isActive, expiresAt, version
         );
     }
 }
\ No newline at end of file
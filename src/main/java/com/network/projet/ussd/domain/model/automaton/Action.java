@@ -2,9 +2,11 @@ package com.network.projet.ussd.domain.model.automaton;
 
 import com.network.projet.ussd.domain.enums.ActionType;
 import com.network.projet.ussd.domain.enums.HttpMethod;
+import com.network.projet.ussd.domain.enums.ParallelFailurePolicy;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import java.util.List;
 import java.util.Map;
 import lombok.Builder;
 
@@ -31,4 +33,8 @@ public class Action {
     private String storeAs; // Variable où stocker le résultat
     private String operation; // "SAVE", "APPEND", "DELETE"
     private Object value; // Valeur à stocker (peut contenir des templates)
+    private Integer ttlSeconds; // STORAGE_SAVE: durée de vie de la valeur stockée (optionnel)
+    private Integer cacheTtlSeconds; // API_CALL GET: durée de cache de la réponse (opt-in)
+    private List<Action> calls; // API_PARALLEL: appels exécutés en parallèle (chacun avec son responseMapping)
+    private ParallelFailurePolicy failurePolicy; // API_PARALLEL: ALL_OR_NOTHING (défaut) ou BEST_EFFORT
 }
\ No newline at end of file
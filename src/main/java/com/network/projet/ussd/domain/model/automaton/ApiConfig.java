@@ -21,4 +21,14 @@ public class ApiConfig {
      * Utilisé dans ApiInvoker lignes 178-179
      */
     private Map<String, String> headers;
+
+    /**
+     * Pool de connexions dédié à baseUrl (optionnel)
+     */
+    private ConnectionPoolConfig connectionPool;
+
+    /**
+     * Retry, circuit breaker et bulkhead pour baseUrl (optionnel)
+     */
+    private ResilienceConfig resilience;
 }
\ No newline at end of file
@@ -0,0 +1,80 @@
+package com.network.projet.ussd.domain.model.automaton;
+
+import com.network.projet.ussd.exception.InvalidStateException;
+import lombok.Getter;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * CompiledAutomaton - Représentation compilée et indexée d'un automate
+ *
+ * Construite une seule fois par ServiceRegistry lors de la mise en cache:
+ * recherche d'état par id en O(1), état initial pré-calculé et tables de
+ * dispatch des transitions par état.
+ *
+ * @author Network Projet Team
+ */
+@Getter
+public class CompiledAutomaton {
+
+    private final AutomatonDefinition definition;
+    private final Map<String, CompiledState> statesById;
+    private final CompiledState initialState;
+
+    private CompiledAutomaton(AutomatonDefinition definition) {
+        this.definition = definition;
+
+        Map<String, CompiledState> states = new HashMap<>();
+        CompiledState initial = null;
+
+        if (definition.getStates() != null) {
+            for (State state : definition.getStates()) {
+                CompiledState compiled = new CompiledState(state);
+                states.putIfAbsent(state.getId(), compiled);
+
+                if (initial == null && Boolean.TRUE.equals(state.getIsInitial())) {
+                    initial = compiled;
+                }
+            }
+        }
+
+        this.statesById = Collections.unmodifiableMap(states);
+        this.initialState = initial;
+    }
+
+    /**
+     * Compile une définition d'automate
+     */
+    public static CompiledAutomaton compile(AutomatonDefinition definition) {
+        return new CompiledAutomaton(definition);
+    }
+
+    public CompiledState getState(String id) {
+        CompiledState state = id != null ? statesById.get(id) : null;
+        if (state == null) {
+            throw new InvalidStateException("State not found: " + id);
+        }
+        return state;
+    }
+
+    public CompiledState getInitialState() {
+        if (initialState == null) {
+            throw new InvalidStateException("No initial state found in automaton");
+        }
+        return initialState;
+    }
+
+    public String getServiceCode() {
+        return definition.getServiceCode();
+    }
+
+    public ApiConfig getApiConfig() {
+        return definition.getApiConfig();
+    }
+
+    public SessionConfig getSessionConfig() {
+        return definition.getSessionConfig();
+    }
+}
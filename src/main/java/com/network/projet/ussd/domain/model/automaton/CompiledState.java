@@ -0,0 +1,145 @@
+package com.network.projet.ussd.domain.model.automaton;
+
+import com.network.projet.ussd.domain.enums.StateType;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * CompiledState - État indexé d'un automate compilé
+ *
+ * Contient la table de dispatch des transitions (entrées exactes en O(1),
+ * fuzzy et conditions dans l'ordre de déclaration) et les transitions
+ * spéciales VALID/INVALID/SUCCESS/ERROR résolues à l'avance.
+ *
+ * @author Network Projet Team
+ */
+@Getter
+public class CompiledState {
+
+    private final State state;
+    private final StateType type;
+
+    /**
+     * Transitions d'entrée et conditionnelles, dans l'ordre de déclaration
+     */
+    private final List<CompiledTransition> dispatchTransitions;
+
+    /**
+     * Entrée normalisée → index de la première transition exacte
+     */
+    private final Map<String, Integer> exactInputIndex;
+
+    private final Transition validTransition;
+    private final Transition invalidTransition;
+    private final Transition successTransition;
+    private final Transition errorTransition;
+
+    CompiledState(State state) {
+        this.state = state;
+        this.type = state.getType() != null ? state.getType() : StateType.MENU;
+
+        List<CompiledTransition> dispatch = new ArrayList<>();
+        Map<String, Integer> exactIndex = new HashMap<>();
+        Transition valid = null;
+        Transition invalid = null;
+        Transition success = null;
+        Transition error = null;
+
+        if (state.getTransitions() != null) {
+            for (Transition transition : state.getTransitions()) {
+                String condition = transition.getCondition();
+
+                if (transition.getInput() == null && condition != null) {
+                    switch (condition) {
+                        case "VALID" -> valid = valid != null ? valid : transition;
+                        case "INVALID" -> invalid = invalid != null ? invalid : transition;
+                        case "SUCCESS" -> success = success != null ? success : transition;
+                        case "ERROR" -> error = error != null ? error : transition;
+                        default -> dispatch.add(new CompiledTransition(transition));
+                    }
+                    continue;
+                }
+
+                if (transition.getInput() != null) {
+                    CompiledTransition compiled = new CompiledTransition(transition);
+                    exactIndex.putIfAbsent(compiled.getExpectedInput(), dispatch.size());
+                    dispatch.add(compiled);
+                }
+            }
+        }
+
+        this.dispatchTransitions = Collections.unmodifiableList(dispatch);
+        this.exactInputIndex = Collections.unmodifiableMap(exactIndex);
+        this.validTransition = valid;
+        this.invalidTransition = invalid;
+        this.successTransition = success;
+        this.errorTransition = error;
+    }
+
+    /**
+     * Trouve la première transition correspondant à l'entrée utilisateur
+     * (même priorité que l'ordre de déclaration du JSON)
+     *
+     * @param userInput        Entrée utilisateur
+     * @param conditionMatcher Évaluation des transitions conditionnelles
+     * @return Transition correspondante ou null
+     */
+    public CompiledTransition findTransition(String userInput, Predicate<CompiledTransition> conditionMatcher) {
+        if (dispatchTransitions.isEmpty()) {
+            return null;
+        }
+
+        String actual = userInput != null ? userInput.trim() : "";
+        Integer exact = exactInputIndex.get(actual);
+        int limit = exact != null ? exact : dispatchTransitions.size();
+
+        // Seules les transitions déclarées avant un match exact peuvent le précéder
+        for (int i = 0; i < limit; i++) {
+            CompiledTransition candidate = dispatchTransitions.get(i);
+            boolean matches = candidate.isInputTransition()
+                    ? candidate.matchesInput(actual)
+                    : conditionMatcher.test(candidate);
+            if (matches) {
+                return candidate;
+            }
+        }
+
+        return exact != null ? dispatchTransitions.get(exact) : null;
+    }
+
+    // ========== ACCÈS À L'ÉTAT SOURCE ==========
+
+    public String getId() {
+        return state.getId();
+    }
+
+    public String getMessage() {
+        return state.getMessage();
+    }
+
+    public String getStoreAs() {
+        return state.getStoreAs();
+    }
+
+    public Action getAction() {
+        return state.getAction();
+    }
+
+    public ValidationRule getValidation() {
+        return state.getValidation();
+    }
+
+    public List<Action> getPreActions() {
+        return state.getPreActions();
+    }
+
+    public List<Action> getPostActions() {
+        return state.getPostActions();
+    }
+}
@@ -0,0 +1,68 @@
+package com.network.projet.ussd.domain.model.automaton;
+
+import lombok.Getter;
+
+/**
+ * CompiledTransition - Transition pré-analysée d'un état compilé
+ *
+ * L'entrée attendue est normalisée une seule fois, ce qui évite les trim()
+ * et concaténations de chaînes à chaque requête lors du matching.
+ *
+ * @author Network Projet Team
+ */
+@Getter
+public class CompiledTransition {
+
+    private final Transition transition;
+
+    /**
+     * Entrée attendue normalisée (null pour une transition conditionnelle)
+     */
+    private final String expectedInput;
+
+    /**
+     * Condition brute (ex: "{{authToken != null}}"), null pour une transition d'entrée
+     */
+    private final String condition;
+
+    CompiledTransition(Transition transition) {
+        this.transition = transition;
+        this.expectedInput = transition.getInput() != null ? transition.getInput().trim() : null;
+        this.condition = transition.getInput() == null ? transition.getCondition() : null;
+    }
+
+    public boolean isInputTransition() {
+        return expectedInput != null;
+    }
+
+    public String getNextState() {
+        return transition.getNextState();
+    }
+
+    /**
+     * Match exact ou fuzzy (génération IA): "1" correspond à "1. Envoyer" ou "Option 1"
+     */
+    public boolean matchesInput(String actual) {
+        if (expectedInput == null) {
+            return false;
+        }
+
+        if (expectedInput.equals(actual)) {
+            return true;
+        }
+
+        int expectedLength = expectedInput.length();
+        int actualLength = actual.length();
+        if (expectedLength <= actualLength) {
+            return false;
+        }
+
+        // expected.startsWith(actual + ".")
+        if (expectedInput.startsWith(actual) && expectedInput.charAt(actualLength) == '.') {
+            return true;
+        }
+
+        // expected.endsWith(" " + actual)
+        return expectedInput.endsWith(actual) && expectedInput.charAt(expectedLength - actualLength - 1) == ' ';
+    }
+}
@@ -0,0 +1,25 @@
+package com.network.projet.ussd.domain.model.automaton;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Réglages du pool de connexions HTTP vers l'API d'un service
+ * (apiConfig.connectionPool). Les champs absents prennent les valeurs
+ * par défaut ussd.http.pool.*
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ConnectionPoolConfig {
+    private Integer maxConnections;
+    private Integer pendingAcquireMaxCount;
+    private Integer pendingAcquireTimeoutMs;
+    private Integer maxIdleTimeSeconds;
+    private Integer maxLifeTimeSeconds;
+    private Integer evictInBackgroundSeconds;
+    private Boolean keepAlive;
+}
@@ -0,0 +1,25 @@
+package com.network.projet.ussd.domain.model.automaton;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Politique de résilience des appels vers l'API d'un service
+ * (apiConfig.resilience). Le nombre de tentatives reste apiConfig.retryAttempts;
+ * les champs absents prennent les valeurs par défaut ussd.http.resilience.*
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResilienceConfig {
+    private Integer maxConcurrentCalls;
+    private Integer slidingWindowSize;
+    private Integer minimumCalls;
+    private Integer failureRateThreshold;
+    private Integer openStateSeconds;
+    private Integer retryBackoffMs;
+    private Integer maxTotalMs;
+}
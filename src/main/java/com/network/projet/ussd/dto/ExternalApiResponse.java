@@ -35,6 +35,12 @@ public class ExternalApiResponse {
      * Peut être soit Map<String, Object> soit List<Map<String, Object>>
      */
     private Object data;
+
+    /**
+     * Valeurs extraites selon le responseMapping de l'action (cible → valeur).
+     * Quand il est renseigné, le corps complet n'est ni conservé ni parsé.
+     */
+    private Map<String, Object> extracted;
     
     private Map<String, String> headers;
     private String errorMessage;
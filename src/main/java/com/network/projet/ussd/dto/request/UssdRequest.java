@@ -10,4 +10,5 @@ public class UssdRequest {
     private String ussdCode; // *500# or *500*1# (le code USSD composé)
     private String phoneNumber;
     private String text; // User input
+    private String sequence; // Numéro de séquence du message (optionnel, fourni par l'opérateur)
 }
\ No newline at end of file
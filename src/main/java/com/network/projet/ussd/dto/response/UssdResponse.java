@@ -1,11 +1,15 @@
 package com.network.projet.ussd.dto.response;
 
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 @Data
 @Builder
+@NoArgsConstructor
+@AllArgsConstructor
 public class UssdResponse {
     private String message;
     private boolean continueSession;
-}
\ No newline at end of file
+}
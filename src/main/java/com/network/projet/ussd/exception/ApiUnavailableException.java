@@ -0,0 +1,17 @@
+package com.network.projet.ussd.exception;
+
+import lombok.Getter;
+
+/**
+ * Appel externe refusé sans être émis: circuit ouvert ou bulkhead saturé
+ * pour l'API partenaire
+ */
+@Getter
+public class ApiUnavailableException extends RuntimeException {
+    private final String baseUrl;
+
+    public ApiUnavailableException(String baseUrl, String reason) {
+        super(reason + ": " + baseUrl);
+        this.baseUrl = baseUrl;
+    }
+}
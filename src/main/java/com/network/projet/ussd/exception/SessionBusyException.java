@@ -0,0 +1,17 @@
+package com.network.projet.ussd.exception;
+
+import lombok.Getter;
+
+/**
+ * Étape refusée: la requête précédente de la même session ne s'est pas
+ * terminée dans le délai d'attente de la file de la session
+ */
+@Getter
+public class SessionBusyException extends RuntimeException {
+    private final String sessionId;
+
+    public SessionBusyException(String sessionId) {
+        super("Session busy: " + sessionId);
+        this.sessionId = sessionId;
+    }
+}
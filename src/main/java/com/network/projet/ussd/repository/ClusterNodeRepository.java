@@ -0,0 +1,36 @@
+package com.network.projet.ussd.repository;
+
+import com.network.projet.ussd.domain.model.ClusterNode;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public interface ClusterNodeRepository extends ReactiveCrudRepository<ClusterNode, String> {
+
+    /**
+     * Enregistre le nœud ou renouvelle son battement
+     */
+    @Modifying
+    @Query("INSERT INTO ussd_cluster_nodes (node_id, base_url, started_at, heartbeat_at) " +
+           "VALUES (:nodeId, :baseUrl, NOW(), NOW()) " +
+           "ON CONFLICT (node_id) DO UPDATE SET base_url = EXCLUDED.base_url, heartbeat_at = NOW()")
+    Mono<Integer> heartbeat(@Param("nodeId") String nodeId, @Param("baseUrl") String baseUrl);
+
+    /**
+     * Nœuds dont le dernier battement date de moins de timeoutSeconds
+     * (seuil calculé par la base, sur la même horloge que heartbeat)
+     */
+    @Query("SELECT * FROM ussd_cluster_nodes " +
+           "WHERE heartbeat_at >= NOW() - make_interval(secs => :timeoutSeconds) ORDER BY node_id")
+    Flux<ClusterNode> findAlive(@Param("timeoutSeconds") double timeoutSeconds);
+
+    /**
+     * Retire le nœud (arrêt propre)
+     */
+    @Modifying
+    @Query("DELETE FROM ussd_cluster_nodes WHERE node_id = :nodeId")
+    Mono<Integer> leave(@Param("nodeId") String nodeId);
+}
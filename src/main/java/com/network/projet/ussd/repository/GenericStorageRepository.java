@@ -1,10 +1,16 @@
 package com.network.projet.ussd.repository;
 
 import com.network.projet.ussd.domain.model.GenericStorage;
+import org.springframework.data.r2dbc.repository.Modifying;
 import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+
 public interface GenericStorageRepository extends ReactiveCrudRepository<GenericStorage, Long> {
     
     Mono<GenericStorage> findByPhoneNumberAndServiceCodeAndStorageKey(
@@ -19,4 +25,74 @@ public interface GenericStorageRepository extends ReactiveCrudRepository<Generic
         String serviceCode,
         String storageKey
     );
-}
\ No newline at end of file
+
+    /**
+     * Valeur non expirée d'une clé
+     */
+    @Query("SELECT * FROM generic_storage WHERE phone_number = :phoneNumber AND service_code = :serviceCode " +
+           "AND storage_key = :storageKey AND (expires_at IS NULL OR expires_at > :now)")
+    Mono<GenericStorage> findActive(
+        @Param("phoneNumber") String phoneNumber,
+        @Param("serviceCode") String serviceCode,
+        @Param("storageKey") String storageKey,
+        @Param("now") LocalDateTime now
+    );
+
+    /**
+     * Valeurs non expirées de plusieurs clés en une seule requête
+     */
+    @Query("SELECT * FROM generic_storage WHERE phone_number = :phoneNumber AND service_code = :serviceCode " +
+           "AND storage_key IN (:storageKeys) AND (expires_at IS NULL OR expires_at > :now)")
+    Flux<GenericStorage> findActiveByKeys(
+        @Param("phoneNumber") String phoneNumber,
+        @Param("serviceCode") String serviceCode,
+        @Param("storageKeys") Collection<String> storageKeys,
+        @Param("now") LocalDateTime now
+    );
+
+    /**
+     * Insère ou remplace une valeur JSON en une seule requête
+     * (expiresAt null = pas d'expiration)
+     */
+    @Query("INSERT INTO generic_storage (phone_number, service_code, storage_key, storage_value, expires_at, created_at, updated_at) " +
+           "VALUES (:phoneNumber, :serviceCode, :storageKey, CAST(:storageValue AS JSONB), :expiresAt, NOW(), NOW()) " +
+           "ON CONFLICT (phone_number, service_code, storage_key) " +
+           "DO UPDATE SET storage_value = EXCLUDED.storage_value, expires_at = EXCLUDED.expires_at, updated_at = NOW() " +
+           "RETURNING *")
+    Mono<GenericStorage> upsert(
+        @Param("phoneNumber") String phoneNumber,
+        @Param("serviceCode") String serviceCode,
+        @Param("storageKey") String storageKey,
+        @Param("storageValue") String storageValue,
+        @Param("expiresAt") LocalDateTime expiresAt
+    );
+
+    /**
+     * Ajoute un élément à la liste JSON côté serveur (crée la liste si besoin;
+     * une valeur existante qui n'est pas une liste, ou expirée, est remplacée)
+     */
+    @Query("INSERT INTO generic_storage (phone_number, service_code, storage_key, storage_value, created_at, updated_at) " +
+           "VALUES (:phoneNumber, :serviceCode, :storageKey, jsonb_build_array(CAST(:item AS JSONB)), NOW(), NOW()) " +
+           "ON CONFLICT (phone_number, service_code, storage_key) " +
+           "DO UPDATE SET storage_value = CASE WHEN jsonb_typeof(generic_storage.storage_value) = 'array' " +
+           "AND (generic_storage.expires_at IS NULL OR generic_storage.expires_at > :now) " +
+           "THEN generic_storage.storage_value || jsonb_build_array(CAST(:item AS JSONB)) " +
+           "ELSE jsonb_build_array(CAST(:item AS JSONB)) END, " +
+           "expires_at = CASE WHEN generic_storage.expires_at > :now THEN generic_storage.expires_at END, " +
+           "updated_at = NOW() " +
+           "RETURNING *")
+    Mono<GenericStorage> appendItem(
+        @Param("phoneNumber") String phoneNumber,
+        @Param("serviceCode") String serviceCode,
+        @Param("storageKey") String storageKey,
+        @Param("item") String item,
+        @Param("now") LocalDateTime now
+    );
+
+    /**
+     * Purge des valeurs expirées
+     */
+    @Modifying
+    @Query("DELETE FROM generic_storage WHERE expires_at IS NOT NULL AND expires_at <= :now")
+    Mono<Integer> deleteExpired(@Param("now") LocalDateTime now);
+}
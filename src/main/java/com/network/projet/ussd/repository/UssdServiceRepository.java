@@ -1,5 +1,6 @@
 package com.network.projet.ussd.repository;
 
+import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.r2dbc.repository.R2dbcRepository;
 import org.springframework.stereotype.Repository;
 
@@ -18,4 +19,10 @@ public interface UssdServiceRepository extends R2dbcRepository<UssdService, Long
     Flux<UssdService> findByIsActiveTrue();
 
     Flux<UssdService> findByAdminId(Long adminId);
+
+    /**
+     * Version du catalogue (incrémentée par trigger à chaque écriture sur ussd_service)
+     */
+    @Query("SELECT version FROM ussd_service_catalog_version WHERE id = 1")
+    Mono<Long> findCatalogVersion();
 }
\ No newline at end of file
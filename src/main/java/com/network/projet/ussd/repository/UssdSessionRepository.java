@@ -1,6 +1,7 @@
 package com.network.projet.ussd.repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 
 import org.springframework.data.r2dbc.repository.Modifying;
 import org.springframework.data.r2dbc.repository.Query;
@@ -25,11 +26,19 @@ public interface UssdSessionRepository extends ReactiveCrudRepository<UssdSessio
     
     /**
      * Trouve une session par son sessionId (UUID du client)
+     * Parcourt aussi l'archive: la plus récente si le sessionId a été réutilisé
      * 
      * @param sessionId UUID de la session
      * @return Mono<UssdSession> Session ou empty
      */
-    Mono<UssdSession> findBySessionId(String sessionId);
+    @Query("SELECT * FROM ussd_sessions WHERE session_id = :sessionId " +
+           "ORDER BY is_active DESC, created_at DESC LIMIT 1")
+    Mono<UssdSession> findBySessionId(@Param("sessionId") String sessionId);
+
+    /**
+     * Trouve la session active d'un sessionId (chemin chaud: partition active uniquement)
+     */
+    Mono<UssdSession> findBySessionIdAndIsActiveTrue(String sessionId);
 
     // ========== RECHERCHE PAR TÉLÉPHONE ==========
 
@@ -97,13 +106,11 @@ public interface UssdSessionRepository extends ReactiveCrudRepository<UssdSessio
 
     /**
      * Trouve les sessions actives dont updatedAt est avant le seuil
-     * Utilisé par SessionExpirationService.cleanupExpiredSessions()
      */
     Flux<UssdSession> findByIsActiveTrueAndUpdatedAtBefore(LocalDateTime cutoffTime);
 
     /**
      * Trouve les sessions inactives avant une date
-     * Utilisé par SessionExpirationService.hardDeleteOldSessions()
      */
     Flux<UssdSession> findByIsActiveFalseAndUpdatedAtBefore(LocalDateTime cutoffTime);
 
@@ -133,6 +140,13 @@ public interface UssdSessionRepository extends ReactiveCrudRepository<UssdSessio
     @Query("DELETE FROM ussd_sessions WHERE created_at < :cutoffDate")
     Mono<Integer> deleteOldSessions(@Param("cutoffDate") LocalDateTime cutoffDate);
 
+    /**
+     * Supprime la session active d'un sessionId
+     */
+    @Modifying
+    @Query("DELETE FROM ussd_sessions WHERE session_id = :sessionId AND is_active = true")
+    Mono<Integer> deleteActiveBySessionId(@Param("sessionId") String sessionId);
+
     /**
      * Supprime les sessions inactives créées avant une date
      */
@@ -140,14 +154,49 @@ public interface UssdSessionRepository extends ReactiveCrudRepository<UssdSessio
     @Query("DELETE FROM ussd_sessions WHERE is_active = false AND created_at < :cutoffDate")
     Mono<Integer> deleteInactiveSessions(@Param("cutoffDate") LocalDateTime cutoffDate);
 
+    /**
+     * Écriture conditionnelle d'une session active (chemin de chaque étape)
+     * Le prédicat is_active = true limite la mise à jour à la partition active
+     *
+     * @return 1 si écrite, 0 si la version a changé (ou session terminée entre-temps)
+     */
+    @Modifying
+    @Query("UPDATE ussd_sessions SET service_code = :serviceCode, current_state_id = :currentStateId, " +
+           "session_data = :sessionData, updated_at = :updatedAt, expires_at = :expiresAt, " +
+           "version = version + 1 " +
+           "WHERE id = :id AND is_active = true AND version = :version")
+    Mono<Integer> updateActiveSession(
+        @Param("id") Long id,
+        @Param("version") Long version,
+        @Param("serviceCode") String serviceCode,
+        @Param("currentStateId") String currentStateId,
+        @Param("sessionData") String sessionData,
+        @Param("updatedAt") LocalDateTime updatedAt,
+        @Param("expiresAt") LocalDateTime expiresAt
+    );
+
     /**
      * Désactive en masse les sessions expirées
      */
     @Modifying
-    @Query("UPDATE ussd_sessions SET is_active = false, updated_at = CURRENT_TIMESTAMP " +
+    @Query("UPDATE ussd_sessions SET is_active = false, updated_at = CURRENT_TIMESTAMP, " +
+           "version = version + 1 " +
            "WHERE is_active = true AND expires_at < :threshold")
     Mono<Integer> bulkExpireSessions(@Param("threshold") LocalDateTime threshold);
 
+    /**
+     * Désactive un lot de sessions expirées (roue d'expiration)
+     * La condition sur expires_at épargne une session prolongée entre-temps par un autre nœud
+     */
+    @Modifying
+    @Query("UPDATE ussd_sessions SET is_active = false, updated_at = CURRENT_TIMESTAMP, " +
+           "version = version + 1 " +
+           "WHERE session_id IN (:sessionIds) AND is_active = true AND expires_at < :threshold")
+    Mono<Integer> bulkExpireSessions(
+        @Param("sessionIds") Collection<String> sessionIds,
+        @Param("threshold") LocalDateTime threshold
+    );
+
     /**
      * Trouve les sessions avec le plus d'inactivité (top N)
      */
@@ -177,4 +226,18 @@ public interface UssdSessionRepository extends ReactiveCrudRepository<UssdSessio
         @Param("startDate") LocalDateTime startDate,
         @Param("endDate") LocalDateTime endDate
     );
+
+    // ========== PARTITIONS ==========
+
+    /**
+     * Crée les partitions journalières d'archive à venir et détache/supprime
+     * celles au-delà de la rétention
+     *
+     * @return Nombre de partitions supprimées
+     */
+    @Query("SELECT ussd_sessions_maintain_partitions(:retentionDays, :daysAhead)")
+    Mono<Integer> maintainArchivePartitions(
+        @Param("retentionDays") int retentionDays,
+        @Param("daysAhead") int daysAhead
+    );
 }
\ No newline at end of file
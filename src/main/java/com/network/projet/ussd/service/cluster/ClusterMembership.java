@@ -0,0 +1,30 @@
+package com.network.projet.ussd.service.cluster;
+
+import com.network.projet.ussd.domain.model.ClusterNode;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * ClusterMembership - Source de la liste des nœuds du cluster
+ *
+ * Implémentations (choisies par ussd.cluster.membership):
+ * - static: liste fixe ussd.cluster.nodes (défaut)
+ * - db: table ussd_cluster_nodes, chaque nœud y renouvelle son battement
+ *
+ * @author Network Projet Team
+ */
+public interface ClusterMembership {
+
+    /**
+     * Nœuds vivants, nœud local inclus
+     */
+    Mono<List<ClusterNode>> members(ClusterNode self);
+
+    /**
+     * Retire le nœud local (arrêt propre)
+     */
+    default Mono<Void> leave(ClusterNode self) {
+        return Mono.empty();
+    }
+}
@@ -0,0 +1,72 @@
+package com.network.projet.ussd.service.cluster;
+
+import com.network.projet.ussd.domain.model.ClusterNode;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * ConsistentHashRing - Anneau de hachage cohérent (immuable) des nœuds du cluster
+ *
+ * Chaque nœud occupe virtualNodes points de l'anneau; une clé appartient au
+ * premier point qui la suit. L'arrivée ou le départ d'un nœud ne déplace que
+ * les clés de sa portion d'anneau (~1/N des sessions).
+ *
+ * @author Network Projet Team
+ */
+public final class ConsistentHashRing {
+
+    private final NavigableMap<Long, ClusterNode> points = new TreeMap<>();
+    private final List<ClusterNode> nodes;
+
+    public ConsistentHashRing(Collection<ClusterNode> nodes, int virtualNodes) {
+        this.nodes = List.copyOf(nodes);
+        for (ClusterNode node : this.nodes) {
+            for (int i = 0; i < virtualNodes; i++) {
+                points.put(hash(node.getNodeId() + '#' + i), node);
+            }
+        }
+    }
+
+    /**
+     * Nœud propriétaire d'une clé, ou null si l'anneau est vide
+     */
+    public ClusterNode ownerOf(String key) {
+        if (points.isEmpty()) {
+            return null;
+        }
+
+        Map.Entry<Long, ClusterNode> entry = points.ceilingEntry(hash(key));
+        return entry != null ? entry.getValue() : points.firstEntry().getValue();
+    }
+
+    public List<ClusterNode> getNodes() {
+        return nodes;
+    }
+
+    public boolean isEmpty() {
+        return nodes.isEmpty();
+    }
+
+    /**
+     * FNV-1a 64 bits suivi du mélange final de MurmurHash3 (répartition uniforme des points)
+     */
+    static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b;
+            h *= 0x100000001b3L;
+        }
+
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,44 @@
+package com.network.projet.ussd.service.cluster;
+
+import com.network.projet.ussd.domain.model.ClusterNode;
+import com.network.projet.ussd.repository.ClusterNodeRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * DatabaseClusterMembership - Nœuds enregistrés dans ussd_cluster_nodes
+ *
+ * Chaque rafraîchissement renouvelle le battement du nœud local puis lit
+ * les nœuds dont le battement date de moins de node-timeout-seconds: un
+ * nœud arrêté sans se retirer quitte l'anneau après ce délai. Battement et
+ * seuil utilisent tous deux l'horloge de la base (NOW()), jamais celle de la JVM.
+ *
+ * @author Network Projet Team
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "ussd.cluster.membership", havingValue = "db")
+public class DatabaseClusterMembership implements ClusterMembership {
+
+    private final ClusterNodeRepository clusterNodeRepository;
+
+    @Value("${ussd.cluster.node-timeout-seconds:15}")
+    private long nodeTimeoutSeconds;
+
+    @Override
+    public Mono<List<ClusterNode>> members(ClusterNode self) {
+        return clusterNodeRepository.heartbeat(self.getNodeId(), self.getBaseUrl())
+                .thenMany(clusterNodeRepository.findAlive(nodeTimeoutSeconds))
+                .collectList();
+    }
+
+    @Override
+    public Mono<Void> leave(ClusterNode self) {
+        return clusterNodeRepository.leave(self.getNodeId()).then();
+    }
+}
@@ -0,0 +1,289 @@
+package com.network.projet.ussd.service.cluster;
+
+import com.network.projet.ussd.domain.model.ClusterNode;
+import com.network.projet.ussd.dto.request.UssdRequest;
+import com.network.projet.ussd.dto.response.UssdResponse;
+import io.netty.channel.ConnectTimeoutException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Mono;
+
+import java.net.ConnectException;
+import java.net.URI;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * SessionAffinityRouter - Affinité des sessions USSD à un nœud du cluster
+ *
+ * Rôle: Chaque nœud possède une portion des sessions (hachage cohérent du
+ * sessionId ou du numéro de téléphone). Une requête reçue par un autre nœud
+ * est relayée à son propriétaire (saut HTTP interne) ou redirigée (307) vers
+ * lui: les étapes d'une session sont sérialisées sur un seul nœud et servies
+ * par son tier mémoire, sans verrou distribué.
+ *
+ * Un store partagé (r2dbc ou redis) est requis: quand l'anneau change, une
+ * session change de propriétaire et le nouveau nœud la relit dans le store.
+ * Le store memory est refusé au démarrage avec ussd.cluster.enabled=true.
+ *
+ * Règles:
+ * - une requête déjà relayée (en-tête X-Ussd-Forwarded-By) ou redirigée
+ *   (paramètre forwardedBy de l'URL de redirection) est traitée localement:
+ *   au plus un saut, même si deux nœuds voient un anneau différent
+ * - propriétaire injoignable (connexion refusée, hôte inconnu): traitement
+ *   local; toute autre erreur de relais est renvoyée (l'étape a pu s'exécuter)
+ * - anneau reconstruit à chaque changement de la liste des membres
+ *
+ * @author Network Projet Team
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SessionAffinityRouter {
+
+    public static final String FORWARDED_BY_HEADER = "X-Ussd-Forwarded-By";
+    public static final String FORWARDED_BY_PARAM = "forwardedBy";
+
+    private final ClusterMembership clusterMembership;
+    private final WebClient.Builder webClientBuilder;
+
+    @Value("${ussd.cluster.enabled:false}")
+    private boolean enabled;
+
+    @Value("${ussd.cluster.node-id:${HOSTNAME:local}}")
+    private String nodeId;
+
+    @Value("${ussd.cluster.node-url:http://localhost:${server.port:8080}}")
+    private String nodeUrl;
+
+    @Value("${ussd.cluster.affinity-key:session}")
+    private String affinityKey;
+
+    @Value("${ussd.cluster.forward-mode:proxy}")
+    private String forwardMode;
+
+    @Value("${ussd.cluster.virtual-nodes:128}")
+    private int virtualNodes;
+
+    @Value("${ussd.cluster.forward-timeout-ms:5000}")
+    private long forwardTimeoutMs;
+
+    @Value("${ussd.cluster.endpoint-path:/api/ussd}")
+    private String endpointPath;
+
+    @Value("${ussd.session.store.type:r2dbc}")
+    private String sessionStoreType;
+
+    private ClusterNode self;
+    private WebClient webClient;
+    private volatile ConsistentHashRing ring;
+
+    private final LongAdder forwardedRequests = new LongAdder();
+    private final LongAdder redirectedRequests = new LongAdder();
+    private final LongAdder localFallbacks = new LongAdder();
+
+    @PostConstruct
+    void init() {
+        if (enabled && "memory".equalsIgnoreCase(sessionStoreType)) {
+            throw new IllegalStateException(
+                    "ussd.cluster.enabled=true requires a shared session store (r2dbc or redis), not memory");
+        }
+
+        this.self = new ClusterNode(nodeId, nodeUrl);
+        this.ring = new ConsistentHashRing(List.of(self), virtualNodes);
+        this.webClient = webClientBuilder.build();
+
+        if (enabled) {
+            log.info("Session affinity enabled: node={}, url={}, key={}, mode={}",
+                    nodeId, nodeUrl, affinityKey, forwardMode);
+        }
+    }
+
+    // ========== ROUTAGE ==========
+
+    /**
+     * Traite la requête localement si ce nœud en est propriétaire, sinon la
+     * relaie (ou la redirige) vers le nœud propriétaire
+     *
+     * @param local Traitement local complet de la requête
+     * @return Réponse USSD; vide si la requête a été redirigée (307)
+     */
+    public Mono<UssdResponse> route(UssdRequest request, ServerWebExchange exchange,
+                                    Supplier<Mono<UssdResponse>> local) {
+        if (!enabled || isForwarded(exchange)) {
+            return Mono.defer(local);
+        }
+
+        ClusterNode owner = ring.ownerOf(affinityKey(request));
+        if (owner == null || owner.getNodeId().equals(self.getNodeId())) {
+            return Mono.defer(local);
+        }
+
+        if ("redirect".equalsIgnoreCase(forwardMode)) {
+            return redirect(owner, exchange.getResponse());
+        }
+        return forward(owner, request, local);
+    }
+
+    private static boolean isForwarded(ServerWebExchange exchange) {
+        return exchange.getRequest().getHeaders().containsKey(FORWARDED_BY_HEADER)
+                || exchange.getRequest().getQueryParams().containsKey(FORWARDED_BY_PARAM);
+    }
+
+    private Mono<UssdResponse> forward(ClusterNode owner, UssdRequest request, Supplier<Mono<UssdResponse>> local) {
+        log.debug("Forwarding session {} to owner {}", request.getSessionId(), owner.getNodeId());
+        forwardedRequests.increment();
+
+        return webClient.post()
+                .uri(owner.getBaseUrl() + endpointPath)
+                .header(FORWARDED_BY_HEADER, self.getNodeId())
+                .bodyValue(request)
+                .retrieve()
+                .bodyToMono(UssdResponse.class)
+                .timeout(Duration.ofMillis(forwardTimeoutMs))
+                // Connexion impossible: requête non délivrée, aucun risque de double exécution
+                .onErrorResume(SessionAffinityRouter::isConnectFailure, e -> {
+                    log.warn("Owner node {} unreachable, processing session {} locally: {}",
+                            owner.getNodeId(), request.getSessionId(), e.getMessage());
+                    localFallbacks.increment();
+                    return Mono.defer(local);
+                });
+    }
+
+    /**
+     * Échec d'établissement de la connexion au propriétaire
+     * (une coupure ou un timeout après l'envoi n'en est pas un: l'étape a pu s'exécuter)
+     */
+    private static boolean isConnectFailure(Throwable error) {
+        if (!(error instanceof WebClientRequestException)) {
+            return false;
+        }
+
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConnectException
+                    || cause instanceof ConnectTimeoutException
+                    || cause instanceof UnknownHostException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Mono<UssdResponse> redirect(ClusterNode owner, ServerHttpResponse response) {
+        redirectedRequests.increment();
+        response.setStatusCode(HttpStatus.TEMPORARY_REDIRECT);
+        // Marqueur de saut: le propriétaire traite la requête sans la rediriger à nouveau
+        URI location = UriComponentsBuilder.fromHttpUrl(owner.getBaseUrl() + endpointPath)
+                .queryParam(FORWARDED_BY_PARAM, self.getNodeId())
+                .encode()
+                .build()
+                .toUri();
+        response.getHeaders().setLocation(location);
+        return Mono.empty();
+    }
+
+    private String affinityKey(UssdRequest request) {
+        return "phone".equalsIgnoreCase(affinityKey) ? request.getPhoneNumber() : request.getSessionId();
+    }
+
+    // ========== MEMBRES ==========
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        refreshMembership();
+    }
+
+    /**
+     * Relit la liste des membres et reconstruit l'anneau si elle a changé
+     */
+    @Scheduled(fixedDelayString = "${ussd.cluster.refresh-interval-ms:5000}")
+    public void refreshMembership() {
+        if (!enabled) {
+            return;
+        }
+
+        clusterMembership.members(self)
+                .subscribe(this::updateRing,
+                        e -> log.error("Failed to refresh cluster membership, keeping current ring", e));
+    }
+
+    @PreDestroy
+    void leave() {
+        if (enabled) {
+            clusterMembership.leave(self)
+                    .onErrorResume(e -> Mono.empty())
+                    .block(Duration.ofSeconds(5));
+        }
+    }
+
+    private void updateRing(List<ClusterNode> members) {
+        List<ClusterNode> nodes = new ArrayList<>(members);
+        if (nodes.stream().noneMatch(node -> node.getNodeId().equals(self.getNodeId()))) {
+            nodes.add(self);
+        }
+        nodes.sort(Comparator.comparing(ClusterNode::getNodeId));
+
+        if (sameMembers(ring.getNodes(), nodes)) {
+            return;
+        }
+
+        this.ring = new ConsistentHashRing(nodes, virtualNodes);
+        log.info("Cluster membership changed: {}", nodes.stream().map(ClusterNode::getNodeId).toList());
+    }
+
+    private static boolean sameMembers(List<ClusterNode> current, List<ClusterNode> next) {
+        if (current.size() != next.size()) {
+            return false;
+        }
+        for (int i = 0; i < current.size(); i++) {
+            if (!current.get(i).getNodeId().equals(next.get(i).getNodeId())
+                    || !Objects.equals(current.get(i).getBaseUrl(), next.get(i).getBaseUrl())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // ========== STATISTIQUES ==========
+
+    public ClusterStats getStats() {
+        return ClusterStats.builder()
+                .enabled(enabled)
+                .nodeId(self.getNodeId())
+                .members(ring.getNodes().stream().map(ClusterNode::getNodeId).toList())
+                .forwardedRequests(forwardedRequests.sum())
+                .redirectedRequests(redirectedRequests.sum())
+                .localFallbacks(localFallbacks.sum())
+                .build();
+    }
+
+    @lombok.Data
+    @lombok.Builder
+    public static class ClusterStats {
+        private boolean enabled;
+        private String nodeId;
+        private List<String> members;
+        private long forwardedRequests;
+        private long redirectedRequests;
+        private long localFallbacks;
+    }
+}
@@ -0,0 +1,49 @@
+package com.network.projet.ussd.service.cluster;
+
+import com.network.projet.ussd.domain.model.ClusterNode;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * StaticClusterMembership - Nœuds déclarés dans la configuration
+ *
+ * Format: ussd.cluster.nodes=node-a=http://10.0.0.11:8080,node-b=http://10.0.0.12:8080
+ * Le nœud local est ajouté s'il n'est pas déclaré.
+ *
+ * @author Network Projet Team
+ */
+@Component
+@ConditionalOnProperty(name = "ussd.cluster.membership", havingValue = "static", matchIfMissing = true)
+public class StaticClusterMembership implements ClusterMembership {
+
+    @Value("${ussd.cluster.nodes:}")
+    private List<String> declaredNodes;
+
+    @Override
+    public Mono<List<ClusterNode>> members(ClusterNode self) {
+        List<ClusterNode> nodes = new ArrayList<>();
+
+        for (String declared : declaredNodes) {
+            if (declared.isBlank()) {
+                continue;
+            }
+
+            int separator = declared.indexOf('=');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Invalid cluster node (expected id=url): " + declared);
+            }
+            nodes.add(new ClusterNode(declared.substring(0, separator).trim(),
+                    declared.substring(separator + 1).trim()));
+        }
+
+        if (nodes.stream().noneMatch(node -> node.getNodeId().equals(self.getNodeId()))) {
+            nodes.add(self);
+        }
+        return Mono.just(nodes);
+    }
+}
@@ -0,0 +1,241 @@
+package com.network.projet.ussd.service.core;
+
+import com.network.projet.ussd.domain.enums.ActionType;
+import com.network.projet.ussd.domain.model.automaton.Action;
+import com.network.projet.ussd.domain.model.automaton.ApiConfig;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * ActionPlanner - Plan d'exécution des actions d'un état selon leurs dépendances
+ *
+ * Pour chaque action, on calcule les variables de session produites (storeAs,
+ * responseMapping, y compris ceux des appels d'un API_PARALLEL) et consommées
+ * (variables des templates, requestMapping).
+ * Une action est placée dans l'étape qui suit la dernière action dont elle
+ * dépend; les actions d'une même étape s'exécutent en parallèle.
+ *
+ * Dépendances:
+ * - lecture après production d'une variable de session
+ * - accès à une même clé de stockage dont l'un au moins est une écriture
+ * (deux écritures d'une même clé restent dans la même transaction, dans l'ordre)
+ *
+ * Dans une étape, les STORAGE_LOAD forment un seul lot, de même que les
+ * écritures de stockage (voir GenericStorageService.loadAll / writeAll).
+ *
+ * @author Network Projet Team
+ */
+final class ActionPlanner {
+
+    private static final Pattern MUSTACHE = Pattern.compile("\\{\\{\\{?(.*?)}?}}", Pattern.DOTALL);
+    private static final Pattern IDENTIFIER = Pattern.compile("[@A-Za-z_$][\\w$]*(?:\\.[\\w$]+)*");
+    private static final Set<String> KEYWORDS = Set.of("this", "else", "true", "false", "null", "as");
+
+    /**
+     * Variable renseignée par un API_CALL ou API_PARALLEL en échec
+     */
+    private static final String API_ERROR_KEY = "apiErrorMessage";
+
+    private ActionPlanner() {
+    }
+
+    /**
+     * Étape du plan: groupes exécutés en parallèle, chacun dans l'ordre déclaré
+     */
+    record Stage(List<List<Action>> groups) {
+    }
+
+    /**
+     * Calcule le plan d'exécution d'une liste d'actions
+     *
+     * @param apiConfig Config API de l'automate (ses headers sont des entrées des API_CALL)
+     */
+    static List<Stage> plan(List<Action> actions, ApiConfig apiConfig) {
+        Set<String> apiInputs = apiConfig != null && apiConfig.getHeaders() != null
+                ? variablesOf(apiConfig.getHeaders().values())
+                : Set.of();
+
+        int size = actions.size();
+        List<Set<String>> inputs = new ArrayList<>(size);
+        List<Set<String>> outputs = new ArrayList<>(size);
+        int[] levels = new int[size];
+        int depth = 0;
+
+        for (int i = 0; i < size; i++) {
+            Action action = actions.get(i);
+            inputs.add(inputsOf(action, apiInputs));
+            outputs.add(outputsOf(action));
+
+            int level = 0;
+            for (int j = 0; j < i; j++) {
+                Action previous = actions.get(j);
+                if (!Collections.disjoint(inputs.get(i), outputs.get(j))
+                        || storageConflict(previous, action)) {
+                    level = Math.max(level, levels[j] + 1);
+                } else if (storageWriteOrder(previous, action)) {
+                    level = Math.max(level, levels[j]);
+                }
+            }
+            levels[i] = level;
+            depth = Math.max(depth, level + 1);
+        }
+
+        List<Stage> stages = new ArrayList<>(depth);
+        for (int level = 0; level < depth; level++) {
+            List<List<Action>> groups = new ArrayList<>();
+            List<Action> loads = null;
+            List<Action> writes = null;
+
+            for (int i = 0; i < size; i++) {
+                if (levels[i] != level) {
+                    continue;
+                }
+                Action action = actions.get(i);
+                if (action.getType() == ActionType.STORAGE_LOAD) {
+                    if (loads == null) {
+                        loads = new ArrayList<>();
+                        groups.add(loads);
+                    }
+                    loads.add(action);
+                } else if (isStorageWrite(action)) {
+                    if (writes == null) {
+                        writes = new ArrayList<>();
+                        groups.add(writes);
+                    }
+                    writes.add(action);
+                } else {
+                    groups.add(List.of(action));
+                }
+            }
+            stages.add(new Stage(groups));
+        }
+        return stages;
+    }
+
+    static boolean isStorageWrite(Action action) {
+        return switch (action.getType()) {
+            case STORAGE_SAVE, STORAGE_APPEND, STORAGE_DELETE -> true;
+            default -> false;
+        };
+    }
+
+    // ========== ENTRÉES / SORTIES ==========
+
+    private static Set<String> outputsOf(Action action) {
+        Set<String> outputs = new HashSet<>();
+
+        switch (action.getType()) {
+            case STORAGE_LOAD -> {
+                if (action.getStoreAs() != null) {
+                    outputs.add(action.getStoreAs());
+                }
+            }
+            case API_CALL -> {
+                collectMappingTargets(action, outputs);
+                outputs.add(API_ERROR_KEY);
+            }
+            case API_PARALLEL -> {
+                if (action.getCalls() != null) {
+                    action.getCalls().forEach(call -> collectMappingTargets(call, outputs));
+                }
+                outputs.add(API_ERROR_KEY);
+            }
+            default -> {
+            }
+        }
+        return outputs;
+    }
+
+    private static Set<String> inputsOf(Action action, Set<String> apiInputs) {
+        Set<String> inputs = new HashSet<>();
+
+        collectVariables(action.getValue(), inputs);
+
+        if (action.getType() == ActionType.API_CALL) {
+            inputs.addAll(apiInputs);
+            collectRequestVariables(action, inputs);
+        } else if (action.getType() == ActionType.API_PARALLEL && action.getCalls() != null) {
+            inputs.addAll(apiInputs);
+            action.getCalls().forEach(call -> collectRequestVariables(call, inputs));
+        }
+        return inputs;
+    }
+
+    private static void collectMappingTargets(Action call, Set<String> outputs) {
+        if (call.getOnSuccess() != null && call.getOnSuccess().getResponseMapping() != null) {
+            outputs.addAll(call.getOnSuccess().getResponseMapping().keySet());
+        }
+    }
+
+    private static void collectRequestVariables(Action call, Set<String> inputs) {
+        collectVariables(call.getEndpoint(), inputs);
+        collectVariables(call.getBody(), inputs);
+        if (call.getHeaders() != null) {
+            collectVariables(call.getHeaders().values(), inputs);
+        }
+        if (call.getRequestMapping() != null) {
+            call.getRequestMapping().values().forEach(source -> inputs.add(root(source)));
+        }
+    }
+
+    private static boolean storageConflict(Action previous, Action action) {
+        boolean previousStorage = previous.getType() == ActionType.STORAGE_LOAD || isStorageWrite(previous);
+        boolean actionStorage = action.getType() == ActionType.STORAGE_LOAD || isStorageWrite(action);
+
+        return previousStorage && actionStorage
+                && (isStorageWrite(previous) != isStorageWrite(action))
+                && sameKey(previous, action);
+    }
+
+    private static boolean storageWriteOrder(Action previous, Action action) {
+        return isStorageWrite(previous) && isStorageWrite(action) && sameKey(previous, action);
+    }
+
+    private static boolean sameKey(Action previous, Action action) {
+        return previous.getStorageKey() != null && previous.getStorageKey().equals(action.getStorageKey());
+    }
+
+    // ========== VARIABLES DE TEMPLATE ==========
+
+    private static Set<String> variablesOf(Collection<String> templates) {
+        Set<String> variables = new HashSet<>();
+        collectVariables(templates, variables);
+        return variables;
+    }
+
+    /**
+     * Racines des identifiants utilisés dans les templates (approximation
+     * conservatrice: les noms de helpers sont aussi retenus)
+     */
+    private static void collectVariables(Object value, Set<String> variables) {
+        if (value instanceof String text) {
+            Matcher mustache = MUSTACHE.matcher(text);
+            while (mustache.find()) {
+                Matcher identifier = IDENTIFIER.matcher(mustache.group(1));
+                while (identifier.find()) {
+                    String root = root(identifier.group());
+                    if (!root.startsWith("@") && !KEYWORDS.contains(root)) {
+                        variables.add(root);
+                    }
+                }
+            }
+        } else if (value instanceof Map<?, ?> map) {
+            map.values().forEach(item -> collectVariables(item, variables));
+        } else if (value instanceof Collection<?> items) {
+            items.forEach(item -> collectVariables(item, variables));
+        }
+    }
+
+    private static String root(String path) {
+        int dot = path.indexOf('.');
+        return dot < 0 ? path : path.substring(0, dot);
+    }
+}
@@ -1,27 +1,36 @@
 package com.network.projet.ussd.service.core;
 
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 import java.util.HashMap;
+import java.util.Objects;
 
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.network.projet.ussd.domain.enums.ActionType;
+import com.network.projet.ussd.domain.enums.ParallelFailurePolicy;
 import com.network.projet.ussd.domain.enums.StateType;
 import com.network.projet.ussd.domain.model.UssdSession;
 import com.network.projet.ussd.domain.model.automaton.Action;
 import com.network.projet.ussd.domain.model.automaton.ActionResult;
-import com.network.projet.ussd.domain.model.automaton.AutomatonDefinition;
-import com.network.projet.ussd.domain.model.automaton.State;
+import com.network.projet.ussd.domain.model.automaton.CompiledAutomaton;
+import com.network.projet.ussd.domain.model.automaton.CompiledState;
+import com.network.projet.ussd.domain.model.automaton.CompiledTransition;
 import com.network.projet.ussd.domain.model.automaton.Transition;
 import com.network.projet.ussd.domain.model.automaton.ValidationRule;
 import com.network.projet.ussd.dto.ExternalApiResponse;
 import com.network.projet.ussd.service.validation.ValidationResult;
 import com.network.projet.ussd.exception.ApiCallException;
 import com.network.projet.ussd.exception.InvalidStateException;
+import com.network.projet.ussd.service.core.GenericStorageService.StorageWrite;
 import com.network.projet.ussd.service.external.ApiInvoker;
 import com.network.projet.ussd.service.validation.ValidationService;
 import com.network.projet.ussd.util.HandlebarsTemplateEngine;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
@@ -52,45 +61,115 @@ public class AutomatonEngine {
 	private final ConditionalEvaluator conditionalEvaluator;
 	private final ObjectMapper objectMapper;
 
+	/**
+	 * Liste d'actions (instance de la définition d'automate) → plan d'exécution
+	 */
+	private final Cache<List<Action>, List<ActionPlanner.Stage>> actionPlans = Caffeine.newBuilder()
+			.weakKeys()
+			.build();
+
 	// ========================================================================
 	// FLUX D'EXÉCUTION PRINCIPAL
 	// ========================================================================
 
 	public Mono<StateResult> executeState(
-			AutomatonDefinition automaton,
+			CompiledAutomaton automaton,
 			UssdSession session,
 			String userInput) {
 
-		State currentState = automaton.getStateById(session.getCurrentStateId());
+		// Unité de travail: une seule lecture (déjà faite) et une seule sauvegarde par étape
+		SessionContext context = sessionManager.openContext(session, automaton);
+
+		return executeStep(automaton, context, userInput)
+				.flatMap(result -> commit(context, result));
+	}
+
+	/**
+	 * Exécute une chaîne d'entrées (ex: "1*2*3" ou *500*1*2*3#) dans une seule
+	 * requête: chaque entrée est une étape complète (pré-actions, état,
+	 * post-actions), seul l'écran final est rendu et la session n'est
+	 * persistée qu'une fois. La chaîne s'arrête à la fin de session ou dès
+	 * qu'une entrée ne fait pas changer d'état (saisie refusée: l'écran
+	 * correspondant est affiché).
+	 */
+	public Mono<StateResult> executeChain(
+			CompiledAutomaton automaton,
+			UssdSession session,
+			List<String> inputs) {
+
+		SessionContext context = sessionManager.openContext(session, automaton);
+
+		log.info("Executing chained input: {} steps, sessionId={}", inputs.size(), session.getSessionId());
+
+		return executeChainStep(automaton, context, inputs, 0)
+				.flatMap(result -> commit(context, result));
+	}
+
+	private Mono<StateResult> executeChainStep(
+			CompiledAutomaton automaton,
+			SessionContext context,
+			List<String> inputs,
+			int index) {
+
+		String stateBefore = context.getCurrentStateId();
+
+		return executeStep(automaton, context, inputs.get(index))
+				.flatMap(result -> {
+					boolean last = index == inputs.size() - 1;
+					boolean stalled = Objects.equals(stateBefore, context.getCurrentStateId());
+
+					if (last || !result.isContinueSession() || stalled) {
+						if (!last) {
+							log.debug("Chained input stopped at step {}/{} (state={})",
+									index + 1, inputs.size(), context.getCurrentStateId());
+						}
+						return Mono.just(result);
+					}
+					return executeChainStep(automaton, context, inputs, index + 1);
+				});
+	}
+
+	/**
+	 * Une étape: pré-actions, exécution de l'état courant, post-actions (sans persistance)
+	 */
+	private Mono<StateResult> executeStep(
+			CompiledAutomaton automaton,
+			SessionContext context,
+			String userInput) {
+
+		CompiledState currentState = automaton.getState(context.getCurrentStateId());
 		String cleanInput = userInput != null ? userInput.trim() : "";
 
 		log.info("Executing state: stateId={}, type={}, sessionId={}, input='{}' (cleaned)",
-				currentState.getId(), currentState.getType(), session.getSessionId(), cleanInput);
+				currentState.getId(), currentState.getType(), context.getSessionId(), cleanInput);
 
-		return executePreActions(currentState, session, automaton)
-				.then(sessionManager.getSessionData(session.getSessionId()))
-				.flatMap(sessionData -> executeStateByType(automaton, session, currentState, cleanInput, sessionData))
-				.flatMap(result -> executePostActions(currentState, session, automaton).thenReturn(result))
+		return executePreActions(currentState, context, automaton)
+				.then(Mono.defer(() -> executeStateByType(automaton, context, currentState, cleanInput)))
+				.flatMap(result -> executePostActions(currentState, context, automaton).thenReturn(result))
 				.doOnSuccess(result -> log.info("State execution completed: nextState={}, continue={}",
 						result.getNextStateId(), result.isContinueSession()))
 				.doOnError(error -> log.error("State execution failed: stateId={}", currentState.getId(), error));
 	}
 
-	private Mono<StateResult> executeStateByType(
-			AutomatonDefinition automaton,
-			UssdSession session,
-			State currentState,
-			String userInput,
-			Map<String, Object> sessionData) {
+	private Mono<StateResult> commit(SessionContext context, StateResult result) {
+		if (!result.isContinueSession()) {
+			context.terminate();
+		}
+		return sessionManager.commit(context).thenReturn(result);
+	}
 
-		StateType type = currentState.getType() != null ? currentState.getType() : StateType.MENU;
+	private Mono<StateResult> executeStateByType(
+			CompiledAutomaton automaton,
+			SessionContext context,
+			CompiledState currentState,
+			String userInput) {
 
-		return switch (type) {
-			case MENU -> executeMenuState(automaton, session, currentState, userInput, sessionData);
-			case INPUT -> executeInputState(automaton, session, currentState, userInput, sessionData);
-			case DISPLAY -> executeDisplayState(automaton, session, currentState, userInput, sessionData);
-			case PROCESSING -> executeProcessingState(automaton, session, currentState, userInput, sessionData);
-			case FINAL -> executeFinalState(automaton, session, currentState, userInput, sessionData);
+		return switch (currentState.getType()) {
+			case MENU -> executeMenuState(automaton, context, currentState, userInput);
+			case INPUT -> executeInputState(automaton, context, currentState, userInput);
+			case DISPLAY -> executeDisplayState(automaton, context, currentState, userInput);
+			case PROCESSING -> executeProcessingState(automaton, context, currentState, userInput);
+			case FINAL -> executeFinalState(automaton, context, currentState, userInput);
 		};
 	}
 
@@ -98,109 +177,165 @@ public class AutomatonEngine {
 	// PRE-ACTIONS & POST-ACTIONS
 	// ========================================================================
 
-	private Mono<Void> executePreActions(State state, UssdSession session, AutomatonDefinition automaton) {
-		return executeActions(state.getPreActions(), session, automaton, "PRE");
+	private Mono<Void> executePreActions(CompiledState state, SessionContext context, CompiledAutomaton automaton) {
+		return executeActions(state.getPreActions(), context, automaton, "PRE");
 	}
 
-	private Mono<Void> executePostActions(State state, UssdSession session, AutomatonDefinition automaton) {
-		return executeActions(state.getPostActions(), session, automaton, "POST");
+	private Mono<Void> executePostActions(CompiledState state, SessionContext context, CompiledAutomaton automaton) {
+		return executeActions(state.getPostActions(), context, automaton, "POST");
 	}
 
-	private Mono<Void> executeActions(List<Action> actions, UssdSession session, AutomatonDefinition automaton,
+	/**
+	 * Exécute les actions selon leur plan de dépendances: les actions
+	 * indépendantes (ex: deux API_CALL et un STORAGE_LOAD) s'exécutent en
+	 * parallèle, les actions dépendantes restent ordonnées. Dans une étape,
+	 * les STORAGE_LOAD forment un seul SELECT multi-clés et les
+	 * SAVE/APPEND/DELETE une seule transaction.
+	 */
+	private Mono<Void> executeActions(List<Action> actions, SessionContext context, CompiledAutomaton automaton,
 			String phase) {
 		if (actions == null || actions.isEmpty()) {
 			return Mono.empty();
 		}
 
-		log.debug("Executing {} {}-actions for session {}", actions.size(), phase, session.getSessionId());
+		List<ActionPlanner.Stage> plan = actionPlans.get(actions,
+				key -> ActionPlanner.plan(key, automaton.getApiConfig()));
 
-		return Flux.fromIterable(actions)
-				.concatMap(action -> executeAction(action, session, automaton))
+		log.debug("Executing {} {}-actions in {} stages for session {}",
+				actions.size(), phase, plan.size(), context.getSessionId());
+
+		return Flux.fromIterable(plan)
+				.concatMap(stage -> executeStage(stage, context, automaton))
 				.then()
 				.doOnSuccess(v -> log.debug("{}-actions completed", phase));
 	}
 
-	private Mono<Void> executeAction(Action action, UssdSession session, AutomatonDefinition automaton) {
-		return sessionManager.getSessionData(session.getSessionId())
-				.flatMap(sessionData -> {
-					return switch (action.getType()) {
-						case STORAGE_LOAD -> executeStorageLoad(action, session);
-						case STORAGE_SAVE -> executeStorageSave(action, session, sessionData);
-						case STORAGE_APPEND -> executeStorageAppend(action, session, sessionData);
-						case STORAGE_DELETE -> executeStorageDelete(action, session);
-						case API_CALL -> executeApiCallAction(action, session, automaton, sessionData);
-						default -> {
-							log.warn("Unsupported action type: {}", action.getType());
-							yield Mono.empty();
-						}
-					};
-				});
+	/**
+	 * Exécute les groupes d'une étape en parallèle, chacun sur un fork du
+	 * contexte; les forks sont fusionnés dans l'ordre de déclaration
+	 */
+	private Mono<Void> executeStage(ActionPlanner.Stage stage, SessionContext context,
+			CompiledAutomaton automaton) {
+		List<List<Action>> groups = stage.groups();
+
+		if (groups.size() == 1) {
+			return executeActionGroup(groups.get(0), context, automaton);
+		}
+
+		List<SessionContext> forks = groups.stream().map(group -> context.fork()).toList();
+
+		return Flux.range(0, groups.size())
+				.flatMap(index -> executeActionGroup(groups.get(index), forks.get(index), automaton))
+				.then(Mono.fromRunnable(() -> forks.forEach(context::merge)));
+	}
+
+	private Mono<Void> executeActionGroup(List<Action> group, SessionContext context, CompiledAutomaton automaton) {
+		Action first = group.get(0);
+
+		if (first.getType() == ActionType.STORAGE_LOAD) {
+			return executeStorageLoads(group, context);
+		}
+		if (ActionPlanner.isStorageWrite(first)) {
+			return executeStorageWrites(group, context);
+		}
+		return executeAction(first, context, automaton);
+	}
+
+	private Mono<Void> executeAction(Action action, SessionContext context, CompiledAutomaton automaton) {
+		return switch (action.getType()) {
+			case API_CALL -> executeApiCallAction(action, context, automaton);
+			case API_PARALLEL -> executeParallelApiAction(action, context, automaton).then();
+			default -> {
+				log.warn("Unsupported action type: {}", action.getType());
+				yield Mono.empty();
+			}
+		};
 	}
 
 	// ========================================================================
 	// OPÉRATIONS DE STOCKAGE (DÉVELOPPEMENT)
 	// ========================================================================
 
-	private Mono<Void> executeStorageLoad(Action action, UssdSession session) {
-		String storageKey = action.getStorageKey();
-		String storeAs = action.getStoreAs();
+	/**
+	 * Charge toutes les clés du groupe en une requête puis fusionne les
+	 * valeurs dans la session en une seule passe
+	 */
+	private Mono<Void> executeStorageLoads(List<Action> loads, SessionContext context) {
+		List<Action> valid = new ArrayList<>(loads.size());
+		for (Action action : loads) {
+			if (action.getStorageKey() == null) {
+				log.warn("STORAGE_LOAD action missing storageKey");
+			} else {
+				valid.add(action);
+			}
+		}
 
-		if (storageKey == null) {
-			log.warn("STORAGE_LOAD action missing storageKey");
+		if (valid.isEmpty()) {
 			return Mono.empty();
 		}
 
-		return storageService.load(session.getPhoneNumber(), session.getServiceCode(), storageKey)
-				.flatMap(value -> {
-					if (storeAs != null && value != null) {
-						return sessionManager.storeSessionData(session.getSessionId(), storeAs, value);
+		UssdSession session = context.getSession();
+		List<String> keys = valid.stream().map(Action::getStorageKey).toList();
+
+		return storageService.loadAll(session.getPhoneNumber(), session.getServiceCode(), keys)
+				.doOnNext(values -> {
+					Map<String, Object> loaded = new HashMap<>();
+					for (Action action : valid) {
+						Object value = values.get(action.getStorageKey());
+						if (value != null && action.getStoreAs() != null) {
+							loaded.put(action.getStoreAs(), value);
+						}
 					}
-					return Mono.empty();
+					context.putAll(loaded);
 				})
 				.then()
-				.doOnSuccess(v -> log.debug("Storage loaded: key={}, storeAs={}", storageKey, storeAs));
+				.doOnSuccess(v -> log.debug("Storage loaded: keys={}", keys));
 	}
 
-	private Mono<Void> executeStorageSave(Action action, UssdSession session, Map<String, Object> sessionData) {
-		String storageKey = action.getStorageKey();
-		Object value = action.getValue();
+	/**
+	 * Résout les valeurs puis exécute les écritures du groupe dans une seule transaction
+	 */
+	private Mono<Void> executeStorageWrites(List<Action> actions, SessionContext context) {
+		Map<String, Object> sessionData = context.getData();
+		List<StorageWrite> writes = new ArrayList<>(actions.size());
 
-		if (storageKey == null || value == null) {
-			log.warn("STORAGE_SAVE action missing storageKey or value");
-			return Mono.empty();
+		for (Action action : actions) {
+			StorageWrite write = toStorageWrite(action, sessionData);
+			if (write != null) {
+				writes.add(write);
+			}
 		}
 
-		Object resolvedValue = resolveValue(value, sessionData);
-		log.debug("Saving to storage: key={}, value={}", storageKey, resolvedValue);
-
-		return storageService.save(session.getPhoneNumber(), session.getServiceCode(), storageKey, resolvedValue);
+		UssdSession session = context.getSession();
+		return storageService.writeAll(session.getPhoneNumber(), session.getServiceCode(), writes);
 	}
 
-	private Mono<Void> executeStorageAppend(Action action, UssdSession session, Map<String, Object> sessionData) {
+	private StorageWrite toStorageWrite(Action action, Map<String, Object> sessionData) {
 		String storageKey = action.getStorageKey();
 		Object value = action.getValue();
 
+		if (action.getType() == ActionType.STORAGE_DELETE) {
+			if (storageKey == null) {
+				log.warn("STORAGE_DELETE action missing storageKey");
+				return null;
+			}
+			log.debug("Deleting from storage: key={}", storageKey);
+			return StorageWrite.delete(storageKey);
+		}
+
 		if (storageKey == null || value == null) {
-			log.warn("STORAGE_APPEND action missing storageKey or value");
-			return Mono.empty();
+			log.warn("{} action missing storageKey or value", action.getType());
+			return null;
 		}
 
 		Object resolvedValue = resolveValue(value, sessionData);
-		log.debug("Appending to storage: key={}, item={}", storageKey, resolvedValue);
-
-		return storageService.append(session.getPhoneNumber(), session.getServiceCode(), storageKey, resolvedValue);
-	}
-
-	private Mono<Void> executeStorageDelete(Action action, UssdSession session) {
-		String storageKey = action.getStorageKey();
-
-		if (storageKey == null) {
-			log.warn("STORAGE_DELETE action missing storageKey");
-			return Mono.empty();
+		if (action.getType() == ActionType.STORAGE_APPEND) {
+			log.debug("Appending to storage: key={}, item={}", storageKey, resolvedValue);
+			return StorageWrite.append(storageKey, resolvedValue);
 		}
 
-		log.debug("Deleting from storage: key={}", storageKey);
-		return storageService.delete(session.getPhoneNumber(), session.getServiceCode(), storageKey);
+		log.debug("Saving to storage: key={}, value={}", storageKey, resolvedValue);
+		return StorageWrite.save(storageKey, resolvedValue, action.getTtlSeconds());
 	}
 
 	// ========================================================================
@@ -208,14 +343,15 @@ public class AutomatonEngine {
 	// ========================================================================
 
 	private Mono<StateResult> executeMenuState(
-			AutomatonDefinition automaton,
-			UssdSession session,
-			State currentState,
-			String userInput,
-			Map<String, Object> sessionData) {
+			CompiledAutomaton automaton,
+			SessionContext context,
+			CompiledState currentState,
+			String userInput) {
 
 		log.debug("Executing MENU state: {}", currentState.getId());
 
+		Map<String, Object> sessionData = context.getData();
+
 		if (userInput == null || userInput.trim().isEmpty()) {
 			String message = templateEngine.render(currentState.getMessage(), sessionData);
 			return Mono.just(StateResult.builder()
@@ -229,13 +365,9 @@ public class AutomatonEngine {
 				.flatMap(transition -> {
 					// Stockage de valeur si nécessaire
 					if (transition.getValue() != null && currentState.getStoreAs() != null) {
-						return sessionManager.storeSessionData(
-								session.getSessionId(),
-								currentState.getStoreAs(),
-								transition.getValue())
-								.then(navigateToState(session, automaton, transition.getNextState()));
+						context.put(currentState.getStoreAs(), transition.getValue());
 					}
-					return navigateToState(session, automaton, transition.getNextState());
+					return navigateToState(context, automaton, transition.getNextState());
 				})
 				.switchIfEmpty(Mono.defer(() -> {
 					String message = templateEngine.render(currentState.getMessage(), sessionData);
@@ -248,38 +380,35 @@ public class AutomatonEngine {
 	}
 
 	private Mono<StateResult> executeInputState(
-			AutomatonDefinition automaton,
-			UssdSession session,
-			State currentState,
-			String userInput,
-			Map<String, Object> sessionData) {
+			CompiledAutomaton automaton,
+			SessionContext context,
+			CompiledState currentState,
+			String userInput) {
 
 		log.debug("Executing INPUT state: {}", currentState.getId());
 
 		// Vérifier les transitions spéciales (ex: "99" pour retour)
-		return findMatchingTransition(currentState, userInput, sessionData)
-				.flatMap(transition -> navigateToState(session, automaton, transition.getNextState()))
+		return findMatchingTransition(currentState, userInput, context.getData())
+				.flatMap(transition -> navigateToState(context, automaton, transition.getNextState()))
 				.switchIfEmpty(Mono.defer(() -> validateAndProcessInput(
-						automaton, session, currentState, userInput, sessionData)));
+						automaton, context, currentState, userInput)));
 	}
 
 	private Mono<StateResult> executeDisplayState(
-			AutomatonDefinition automaton,
-			UssdSession session,
-			State currentState,
-			String userInput,
-			Map<String, Object> sessionData) {
+			CompiledAutomaton automaton,
+			SessionContext context,
+			CompiledState currentState,
+			String userInput) {
 
 		log.debug("Executing DISPLAY state: {}", currentState.getId());
-		return executeMenuState(automaton, session, currentState, userInput, sessionData);
+		return executeMenuState(automaton, context, currentState, userInput);
 	}
 
 	private Mono<StateResult> executeProcessingState(
-			AutomatonDefinition automaton,
-			UssdSession session,
-			State currentState,
-			String userInput,
-			Map<String, Object> sessionData) {
+			CompiledAutomaton automaton,
+			SessionContext context,
+			CompiledState currentState,
+			String userInput) {
 
 		log.debug("Executing PROCESSING state: {}", currentState.getId());
 
@@ -288,31 +417,32 @@ public class AutomatonEngine {
 		// Si aucune action n'est définie, utiliser les transitions conditionnelles
 		if (action == null) {
 			log.debug("No action defined - checking conditional transitions");
-			return findMatchingTransition(currentState, userInput, sessionData)
-					.flatMap(transition -> navigateToState(session, automaton, transition.getNextState()))
+			return findMatchingTransition(currentState, userInput, context.getData())
+					.flatMap(transition -> navigateToState(context, automaton, transition.getNextState()))
 					.switchIfEmpty(Mono.error(new InvalidStateException(
 							"No matching transition for PROCESSING state: " + currentState.getId())));
 		}
 
 		// Exécuter l'action si elle est définie
-		return executeApiAction(action, session, automaton, sessionData)
+		return executeStateAction(action, context, automaton)
 				.flatMap(actionResult -> handleActionResult(
-						automaton, session, currentState, actionResult, sessionData));
+						automaton, context, currentState, actionResult));
 	}
 
 	private Mono<StateResult> executeFinalState(
-			AutomatonDefinition automaton,
-			UssdSession session,
-			State currentState,
-			String userInput,
-			Map<String, Object> sessionData) {
+			CompiledAutomaton automaton,
+			SessionContext context,
+			CompiledState currentState,
+			String userInput) {
 
 		log.debug("Executing FINAL state: {}", currentState.getId());
 
 		Action action = currentState.getAction();
+		Map<String, Object> sessionData = context.getData();
 
-		if (action != null && action.getType() == ActionType.API_CALL) {
-			return executeApiAction(action, session, automaton, sessionData)
+		if (action != null
+				&& (action.getType() == ActionType.API_CALL || action.getType() == ActionType.API_PARALLEL)) {
+			return executeStateAction(action, context, automaton)
 					.flatMap(actionResult -> {
 						if (actionResult.isSuccess()) {
 							return renderMessage(currentState, sessionData, false);
@@ -332,48 +462,15 @@ public class AutomatonEngine {
 	// GESTION DES TRANSITIONS (PRIORITÉ IA - FUZZY MATCHING)
 	// ========================================================================
 
-	private Mono<Transition> findMatchingTransition(State state, String userInput, Map<String, Object> sessionData) {
-		if (state.getTransitions() == null || state.getTransitions().isEmpty()) {
-			return Mono.empty();
-		}
-
-		return Flux.fromIterable(state.getTransitions())
-				.filter(t -> matchesTransition(t, userInput, sessionData))
-				.next();
-	}
-
-	private boolean matchesTransition(Transition transition, String userInput, Map<String, Object> sessionData) {
-		// Vérification de la correspondance d'entrée (pour les menus)
-		if (transition.getInput() != null) {
-			String expected = transition.getInput().trim();
-			String actual = userInput.trim();
-
-			// Match exact
-			if (expected.equals(actual))
-				return true;
-
-			// Match fuzzy pour la robustesse (IA Generation)
-			if (expected.startsWith(actual + ".") || expected.endsWith(" " + actual))
-				return true;
-
-			return false;
-		}
-
-		// Vérification de la condition (pour les PROCESSING)
-		if (transition.getCondition() != null) {
-			// Conditions spéciales gérées séparément
-			if ("VALID".equals(transition.getCondition()) ||
-					"INVALID".equals(transition.getCondition()) ||
-					"SUCCESS".equals(transition.getCondition()) ||
-					"ERROR".equals(transition.getCondition())) {
-				return false;
-			}
-
-			// Évaluation des expressions conditionnelles
-			return conditionalEvaluator.evaluate(transition.getCondition(), sessionData);
-		}
+	private Mono<Transition> findMatchingTransition(CompiledState state, String userInput,
+			Map<String, Object> sessionData) {
+		// Table de dispatch pré-calculée: match exact en O(1), puis fuzzy (IA) et
+		// conditions dans l'ordre de déclaration. Les conditions spéciales
+		// (VALID/INVALID/SUCCESS/ERROR) sont résolues à la compilation.
+		CompiledTransition match = state.findTransition(userInput,
+				candidate -> conditionalEvaluator.evaluate(candidate.getCondition(), sessionData));
 
-		return false;
+		return match != null ? Mono.just(match.getTransition()) : Mono.empty();
 	}
 
 	// ========================================================================
@@ -381,16 +478,15 @@ public class AutomatonEngine {
 	// ========================================================================
 
 	private Mono<StateResult> validateAndProcessInput(
-			AutomatonDefinition automaton,
-			UssdSession session,
-			State currentState,
-			String userInput,
-			Map<String, Object> sessionData) {
+			CompiledAutomaton automaton,
+			SessionContext context,
+			CompiledState currentState,
+			String userInput) {
 
 		ValidationRule rule = currentState.getValidation();
 
 		if (rule == null) {
-			return storeAndNavigate(session, automaton, currentState, userInput);
+			return storeAndNavigate(context, automaton, currentState, userInput);
 		}
 
 		// Passer minLength et maxLength (Robustesse Develop)
@@ -401,52 +497,43 @@ public class AutomatonEngine {
 				rule.getMaxLength())
 				.flatMap(validationResult -> {
 					if (!validationResult.getIsValid()) {
-						return handleInvalidInput(currentState, sessionData, validationResult);
+						return handleInvalidInput(currentState, context.getData(), validationResult);
 					}
-					return storeAndNavigate(session, automaton, currentState, userInput);
+					return storeAndNavigate(context, automaton, currentState, userInput);
 				});
 	}
 
 	private Mono<StateResult> storeAndNavigate(
-			UssdSession session,
-			AutomatonDefinition automaton,
-			State currentState,
+			SessionContext context,
+			CompiledAutomaton automaton,
+			CompiledState currentState,
 			String userInput) {
 
 		String storeKey = currentState.getStoreAs();
 
 		log.debug(">>> STORE AND NAVIGATE - storeKey: {}, userInput: {}", storeKey, userInput);
 
-		return sessionManager.storeSessionData(session.getSessionId(), storeKey, userInput)
-				.doOnSuccess(v -> log.debug(">>> Data stored successfully"))
-				.then(sessionManager.getSession(session.getSessionId())) // RELOAD SESSION
-				.flatMap(reloadedSession -> {
-					Transition validTransition = currentState.getTransitions().stream()
-							.filter(t -> "VALID".equals(t.getCondition()))
-							.findFirst()
-							.orElseThrow(() -> new InvalidStateException(
-									"No VALID transition for state: " + currentState.getId()));
+		context.put(storeKey, userInput);
 
-					log.debug(">>> Found VALID transition to state: {}", validTransition.getNextState());
+		Transition validTransition = currentState.getValidTransition();
 
-					// MISE À JOUR DE L'ÉTAT DANS LA SESSION
-					reloadedSession.setCurrentStateId(validTransition.getNextState());
+		if (validTransition == null) {
+			return Mono.error(new InvalidStateException(
+					"No VALID transition for state: " + currentState.getId()));
+		}
 
-					return sessionManager.updateSession(reloadedSession) // SAUVEGARDE EN BASE
-							.then(navigateToNextState(reloadedSession, automaton, validTransition.getNextState()));
-				})
+		log.debug(">>> Found VALID transition to state: {}", validTransition.getNextState());
+
+		return navigateToState(context, automaton, validTransition.getNextState())
 				.doOnSuccess(result -> log.debug(">>> Navigation completed to state: {}", result.getNextStateId()));
 	}
 
 	private Mono<StateResult> handleInvalidInput(
-			State currentState,
+			CompiledState currentState,
 			Map<String, Object> sessionData,
 			ValidationResult validationResult) {
 
-		Transition invalidTransition = currentState.getTransitions().stream()
-				.filter(t -> "INVALID".equals(t.getCondition()))
-				.findFirst()
-				.orElse(null);
+		Transition invalidTransition = currentState.getInvalidTransition();
 
 		String errorMsg = invalidTransition != null && invalidTransition.getMessage() != null
 				? invalidTransition.getMessage()
@@ -465,32 +552,38 @@ public class AutomatonEngine {
 	// EXÉCUTION D'API (DÉVELOPPEMENT - SUPPORT LISTES/OBJETS)
 	// ========================================================================
 
-	private Mono<Void> executeApiCallAction(Action action, UssdSession session, AutomatonDefinition automaton,
-			Map<String, Object> sessionData) {
+	private Mono<Void> executeApiCallAction(Action action, SessionContext context, CompiledAutomaton automaton) {
 
-		return executeApiAction(action, session, automaton, sessionData)
-				.flatMap(actionResult -> {
-					if (action.getStoreAs() != null && actionResult.isSuccess()) {
-						return storeApiResponseData(session, action, actionResult.getApiResponse(), sessionData)
-								.then();
-					}
-					return Mono.empty();
-				})
+		// Le responseMapping est déjà appliqué au contexte par executeApiAction
+		return executeApiAction(action, context, automaton)
+				.then()
 				.onErrorResume(error -> {
 					log.error("API call failed in action", error);
 					return Mono.empty();
 				});
 	}
 
+	/**
+	 * Action principale d'un état: appel unique ou appels parallèles
+	 */
+	private Mono<ActionResult> executeStateAction(
+			Action action,
+			SessionContext context,
+			CompiledAutomaton automaton) {
+
+		return action.getType() == ActionType.API_PARALLEL
+				? executeParallelApiAction(action, context, automaton)
+				: executeApiAction(action, context, automaton);
+	}
+
 	private Mono<ActionResult> executeApiAction(
 			Action action,
-			UssdSession session,
-			AutomatonDefinition automaton,
-			Map<String, Object> sessionData) {
+			SessionContext context,
+			CompiledAutomaton automaton) {
 
-		log.info("Executing API call: sessionId={}", session.getSessionId());
+		log.info("Executing API call: sessionId={}", context.getSessionId());
 
-		return apiInvoker.invoke(automaton.getApiConfig(), action, sessionData)
+		return apiInvoker.invoke(automaton.getApiConfig(), action, context.getData())
 				.flatMap(apiResponse -> {
 					log.info("API call successful");
 
@@ -502,14 +595,15 @@ public class AutomatonEngine {
 							? action.getOnSuccess().getResponseMapping()
 							: null;
 
-					return storeApiResponseData(session, action, apiResponse, sessionData)
-							.map(mergedData -> ActionResult.builder()
-									.success(true)
-									.nextState(nextStateId)
-									.responseMapping(responseMapping)
-									.responseData(mergedData)
-									.apiResponse(apiResponse)
-									.build());
+					Map<String, Object> mergedData = storeApiResponseData(context, action, apiResponse);
+
+					return Mono.just(ActionResult.builder()
+							.success(true)
+							.nextState(nextStateId)
+							.responseMapping(responseMapping)
+							.responseData(mergedData)
+							.apiResponse(apiResponse)
+							.build());
 				})
 				.onErrorResume(error -> {
 					log.error("API call failed", error);
@@ -519,22 +613,114 @@ public class AutomatonEngine {
 							: null;
 
 					String errorMessage = extractErrorMessage(error, action);
-					sessionData.put("apiErrorMessage", errorMessage);
+					context.put("apiErrorMessage", errorMessage);
 
 					if (nextStateId != null) {
-						session.setCurrentStateId(nextStateId);
+						context.moveTo(nextStateId);
 					}
 
-					return sessionManager.updateSession(session)
-							.then(Mono.just(ActionResult.builder()
-									.success(false)
-									.nextState(nextStateId)
-									.errorMessage(errorMessage)
-									.exception(error)
-									.build()));
+					return Mono.just(ActionResult.builder()
+							.success(false)
+							.nextState(nextStateId)
+							.errorMessage(errorMessage)
+							.exception(error)
+							.build());
 				});
 	}
 
+	/**
+	 * API_PARALLEL: exécute les appels de action.calls en parallèle, chacun
+	 * avec son propre responseMapping. Les valeurs extraites sont fusionnées
+	 * (ordre de déclaration) et écrites dans la session en une seule fois.
+	 *
+	 * ALL_OR_NOTHING (défaut): un échec → rien n'est stocké, route ERROR
+	 * BEST_EFFORT: les réponses obtenues sont stockées, route ERROR seulement
+	 * si tous les appels échouent
+	 */
+	private Mono<ActionResult> executeParallelApiAction(
+			Action action,
+			SessionContext context,
+			CompiledAutomaton automaton) {
+
+		List<Action> calls = action.getCalls() != null ? action.getCalls() : List.of();
+		boolean bestEffort = action.getFailurePolicy() == ParallelFailurePolicy.BEST_EFFORT;
+		Map<String, Object> sessionData = context.getData();
+
+		log.info("Executing {} parallel API calls: sessionId={}, bestEffort={}",
+				calls.size(), context.getSessionId(), bestEffort);
+
+		return Flux.range(0, calls.size())
+				.flatMap(index -> apiInvoker.invoke(automaton.getApiConfig(), calls.get(index), sessionData)
+						.map(response -> new ParallelCallOutcome(index, response, null))
+						.onErrorResume(error -> Mono.just(new ParallelCallOutcome(index, null, error))))
+				.collectSortedList(Comparator.comparingInt(ParallelCallOutcome::index))
+				.map(outcomes -> completeParallelApiAction(action, calls, context, outcomes, bestEffort));
+	}
+
+	private ActionResult completeParallelApiAction(
+			Action action,
+			List<Action> calls,
+			SessionContext context,
+			List<ParallelCallOutcome> outcomes,
+			boolean bestEffort) {
+
+		Map<String, Object> merged = new HashMap<>();
+		ParallelCallOutcome firstFailure = null;
+		int failures = 0;
+
+		for (ParallelCallOutcome outcome : outcomes) {
+			if (outcome.error() != null) {
+				failures++;
+				firstFailure = firstFailure != null ? firstFailure : outcome;
+				continue;
+			}
+			Map<String, Object> extracted = outcome.response().getExtracted();
+			if (extracted != null) {
+				merged.putAll(extracted);
+			}
+		}
+
+		boolean success = failures == 0 || (bestEffort && failures < outcomes.size());
+
+		if (success) {
+			if (failures > 0) {
+				log.warn("Parallel API calls partially failed: {}/{} calls failed", failures, outcomes.size());
+			}
+			context.putAll(merged);
+
+			return ActionResult.builder()
+					.success(true)
+					.nextState(action.getOnSuccess() != null ? action.getOnSuccess().getNextState() : null)
+					.responseData(merged)
+					.build();
+		}
+
+		log.error("Parallel API calls failed: {}/{} calls failed", failures, outcomes.size(), firstFailure.error());
+
+		Action failedCall = calls.get(firstFailure.index());
+		String errorMessage = extractErrorMessage(firstFailure.error(),
+				failedCall.getOnError() != null ? failedCall : action);
+		context.put("apiErrorMessage", errorMessage);
+
+		String nextStateId = action.getOnError() != null ? action.getOnError().getNextState() : null;
+		if (nextStateId != null) {
+			context.moveTo(nextStateId);
+		}
+
+		return ActionResult.builder()
+				.success(false)
+				.nextState(nextStateId)
+				.errorMessage(errorMessage)
+				.exception(firstFailure.error())
+				.build();
+	}
+
+	/**
+	 * Résultat d'un appel d'une action API_PARALLEL (index dans action.calls)
+	 */
+	private record ParallelCallOutcome(int index, ExternalApiResponse response, Throwable error) {
+	}
+
 	private String extractErrorMessage(Throwable error, Action action) {
 		if (error instanceof ApiCallException apiEx) {
 			try {
@@ -556,22 +742,21 @@ public class AutomatonEngine {
 	}
 
 	private Mono<StateResult> handleActionResult(
-			AutomatonDefinition automaton,
-			UssdSession session,
-			State currentState,
-			ActionResult actionResult,
-			Map<String, Object> sessionData) {
+			CompiledAutomaton automaton,
+			SessionContext context,
+			CompiledState currentState,
+			ActionResult actionResult) {
 
 		if (actionResult.getNextState() != null) {
 			if (!actionResult.isSuccess() && actionResult.getErrorMessage() != null) {
-				return navigateToStateWithMessage(session, automaton,
+				return navigateToStateWithMessage(context, automaton,
 						actionResult.getNextState(), actionResult.getErrorMessage());
 			}
-			return navigateToState(session, automaton, actionResult.getNextState());
+			return navigateToState(context, automaton, actionResult.getNextState());
 		}
 
-		return findTransitionByActionResult(currentState, actionResult, sessionData)
-				.flatMap(transition -> navigateToState(session, automaton, transition.getNextState()))
+		return findTransitionByActionResult(currentState, actionResult)
+				.flatMap(transition -> navigateToState(context, automaton, transition.getNextState()))
 				.switchIfEmpty(Mono.just(StateResult.builder()
 						.message("Erreur de traitement")
 						.continueSession(false)
@@ -579,15 +764,14 @@ public class AutomatonEngine {
 	}
 
 	private Mono<Transition> findTransitionByActionResult(
-			State state,
-			ActionResult actionResult,
-			Map<String, Object> sessionData) {
+			CompiledState state,
+			ActionResult actionResult) {
 
-		String conditionToMatch = actionResult.isSuccess() ? "SUCCESS" : "ERROR";
+		Transition transition = actionResult.isSuccess()
+				? state.getSuccessTransition()
+				: state.getErrorTransition();
 
-		return Flux.fromIterable(state.getTransitions())
-				.filter(t -> conditionToMatch.equals(t.getCondition()))
-				.next();
+		return Mono.justOrEmpty(transition);
 	}
 
 	// ========================================================================
@@ -595,53 +779,33 @@ public class AutomatonEngine {
 	// ========================================================================
 
 	private Mono<StateResult> navigateToState(
-			UssdSession session,
-			AutomatonDefinition automaton,
-			String nextStateId) {
-
-		State nextState = automaton.getStateById(nextStateId);
-		log.debug("Navigating to state: {} (type: {})", nextStateId, nextState.getType());
-
-		return sessionManager.getSession(session.getSessionId())
-				.flatMap(reloadedSession -> {
-					reloadedSession.setCurrentStateId(nextStateId);
-					return sessionManager.updateSession(reloadedSession);
-				})
-				.then(navigateToNextState(session, automaton, nextStateId));
-	}
-
-	private Mono<StateResult> navigateToNextState(
-			UssdSession session,
-			AutomatonDefinition automaton,
+			SessionContext context,
+			CompiledAutomaton automaton,
 			String nextStateId) {
 
-		State nextState = automaton.getStateById(nextStateId);
-		StateType type = nextState.getType() != null ? nextState.getType() : StateType.MENU;
+		CompiledState nextState = automaton.getState(nextStateId);
+		StateType type = nextState.getType();
 
-		log.debug(">>> NAVIGATE TO NEXT STATE: {} (type: {})", nextStateId, type);
+		log.debug("Navigating to state: {} (type: {})", nextStateId, type);
 
-		return sessionManager.getSessionData(session.getSessionId())
-				.flatMap(sessionData -> {
-					session.setCurrentStateId(nextStateId);
-					log.debug(">>> Session updated in memory: currentState={}", session.getCurrentStateId());
+		// Mise à jour en mémoire, persistée au commit de l'étape
+		context.moveTo(nextStateId);
 
-					if (type == StateType.PROCESSING) {
-						log.debug("Auto-executing PROCESSING state: {}", nextStateId);
-						return executeProcessingState(automaton, session, nextState, "", sessionData);
-					}
+		if (type == StateType.PROCESSING) {
+			log.debug("Auto-executing PROCESSING state: {}", nextStateId);
+			return executeProcessingState(automaton, context, nextState, "");
+		}
 
-					return renderMessage(nextState, sessionData, type != StateType.FINAL);
-				})
-				.doOnSuccess(result -> log.debug(">>> Navigate completed: nextStateId={}", result.getNextStateId()));
+		return renderMessage(nextState, context.getData(), type != StateType.FINAL);
 	}
 
 	private Mono<StateResult> navigateToStateWithMessage(
-			UssdSession session,
-			AutomatonDefinition automaton,
+			SessionContext context,
+			CompiledAutomaton automaton,
 			String nextStateId,
 			String errorMessage) {
 
-		return navigateToState(session, automaton, nextStateId)
+		return navigateToState(context, automaton, nextStateId)
 				.map(result -> StateResult.builder()
 						.message(errorMessage + "\n\n" + result.getMessage())
 						.nextStateId(result.getNextStateId())
@@ -649,7 +813,7 @@ public class AutomatonEngine {
 						.build());
 	}
 
-	private Mono<StateResult> renderMessage(State state, Map<String, Object> sessionData, boolean continueSession) {
+	private Mono<StateResult> renderMessage(CompiledState state, Map<String, Object> sessionData, boolean continueSession) {
 		String message = templateEngine.render(state.getMessage(), sessionData);
 
 		return Mono.just(StateResult.builder()
@@ -663,82 +827,34 @@ public class AutomatonEngine {
 	// GESTION DES RÉPONSES API (SUPPORT LISTES)
 	// ========================================================================
 
-	private Mono<Map<String, Object>> storeApiResponseData(
-			UssdSession session,
+	/**
+	 * Applique la réponse API au contexte.
+	 * Avec un responseMapping, ApiInvoker a déjà extrait les valeurs mappées
+	 * (ResponseExtractor); sans mapping, le document entier est fusionné.
+	 */
+	@SuppressWarnings("unchecked")
+	private Map<String, Object> storeApiResponseData(
+			SessionContext context,
 			Action action,
-			ExternalApiResponse apiResponse,
-			Map<String, Object> collectedData) {
+			ExternalApiResponse apiResponse) {
 
-		Map<String, Object> mergedData = new HashMap<>(collectedData);
-		Object responseData = apiResponse.getData();
+		Map<String, Object> mergedData = new HashMap<>(context.getData());
 
 		if (action.getOnSuccess() != null) {
-			Map<String, String> responseMapping = action.getOnSuccess().getResponseMapping();
-
-			if (responseMapping != null && !responseMapping.isEmpty()) {
-				Map<String, Object> dataToStore = new HashMap<>();
-
-				responseMapping.forEach((targetKey, sourcePath) -> {
-					Object value = null;
-					if (".".equals(sourcePath)) {
-						value = responseData;
-					} else {
-						value = extractNestedValue(responseData, sourcePath);
-					}
+			Map<String, Object> extracted = apiResponse.getExtracted();
 
-					if (value != null) {
-						dataToStore.put(targetKey, value);
-						mergedData.put(targetKey, value);
-					}
-				});
-
-				return sessionManager.storeBatchData(session.getSessionId(), dataToStore)
-						.thenReturn(mergedData);
+			if (extracted != null) {
+				context.putAll(extracted);
+				mergedData.putAll(extracted);
+				return mergedData;
 			}
 
-			if (responseData instanceof Map) {
-				mergedData.putAll((Map<String, Object>) responseData);
-			}
-		}
-
-		return Mono.just(mergedData);
-	}
-
-	private Object extractNestedValue(Object data, String path) {
-		if (path == null || path.isEmpty() || data == null) {
-			return null;
-		}
-
-		if (".".equals(path)) {
-			return data;
-		}
-
-		String[] parts = path.split("\\.");
-		Object current = data;
-
-		for (String part : parts) {
-			if (part.isEmpty())
-				continue;
-
-			if (current instanceof Map) {
-				current = ((Map<?, ?>) current).get(part);
-			} else if (current instanceof List) {
-				try {
-					int index = Integer.parseInt(part);
-					List<?> list = (List<?>) current;
-					current = (index >= 0 && index < list.size()) ? list.get(index) : null;
-				} catch (NumberFormatException e) {
-					return null;
-				}
-			} else {
-				return null;
+			if (apiResponse.getData() instanceof Map) {
+				mergedData.putAll((Map<String, Object>) apiResponse.getData());
 			}
-
-			if (current == null)
-				return null;
 		}
 
-		return current;
+		return mergedData;
 	}
 
 	// ========================================================================
@@ -768,15 +884,4 @@ public class AutomatonEngine {
 
 		return value;
 	}
-
-	@Deprecated
-	public Mono<StateResult> processInput(UssdSession session, AutomatonDefinition automaton, String userInput) {
-		return executeState(automaton, session, userInput);
-	}
-
-	@Deprecated
-	public Mono<ActionResult> processAction(Action action, UssdSession session, AutomatonDefinition automaton) {
-		return sessionManager.getSessionData(session.getSessionId())
-				.flatMap(sessionData -> executeApiAction(action, session, automaton, sessionData));
-	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,207 @@
+package com.network.projet.ussd.service.core;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntPredicate;
+
+/**
+ * ConditionExpression - AST compilé d'une condition de transition
+ *
+ * Produit une seule fois par ConditionParser puis réévalué à chaque requête
+ * sans regex ni découpage de chaînes.
+ *
+ * Sémantique:
+ * - Vérité: null et false sont faux, toute autre valeur est vraie
+ * (un false stocké rend {{flag}} faux, la chaîne "false" reste vraie)
+ * - Chemins: a.b lit la clé b de la map a (lecture imbriquée), et non
+ * une clé plate "a.b"
+ * - Mot nu en opérande droit absent des données: comparé comme texte
+ * (status == ACTIVE)
+ * - Égalité typée: numérique si l'un des opérandes est un nombre, sinon
+ * comparaison des valeurs (avec repli sur toString pour les configs existantes)
+ * - Ordre (&lt;, &gt;, &lt;=, &gt;=): numérique, ou lexicographique entre chaînes
+ *
+ * @author Network Projet Team
+ */
+public interface ConditionExpression {
+
+    /**
+     * Évalue l'expression sur les données de session
+     */
+    Object evaluate(Map<String, Object> data);
+
+    /**
+     * Évalue l'expression comme condition booléenne
+     */
+    default boolean test(Map<String, Object> data) {
+        return isTruthy(evaluate(data));
+    }
+
+    ConditionExpression ALWAYS_TRUE = new Literal(Boolean.TRUE);
+    ConditionExpression ALWAYS_FALSE = new Literal(Boolean.FALSE);
+
+    // ========== NŒUDS ==========
+
+    /**
+     * Valeur constante (chaîne, nombre, booléen, null)
+     */
+    record Literal(Object value) implements ConditionExpression {
+        @Override
+        public Object evaluate(Map<String, Object> data) {
+            return value;
+        }
+    }
+
+    /**
+     * Chemin dans les données de session (ex: user.balance, items.0.name)
+     *
+     * @param parts    Segments du chemin, découpés à la compilation
+     * @param bareWord Texte d'origine, utilisé comme littéral si la racine est
+     *                 absente (syntaxe historique: status == ACTIVE)
+     */
+    record Path(String[] parts, String bareWord) implements ConditionExpression {
+        @Override
+        public Object evaluate(Map<String, Object> data) {
+            if (data == null) {
+                return bareWord;
+            }
+            if (bareWord != null && !data.containsKey(parts[0])) {
+                return bareWord;
+            }
+
+            Object current = data;
+            for (String part : parts) {
+                if (current instanceof Map<?, ?> map) {
+                    current = map.get(part);
+                } else if (current instanceof List<?> list) {
+                    int index = parseIndex(part);
+                    current = index >= 0 && index < list.size() ? list.get(index) : null;
+                } else {
+                    return null;
+                }
+
+                if (current == null) {
+                    return null;
+                }
+            }
+            return current;
+        }
+
+        private static int parseIndex(String part) {
+            try {
+                return Integer.parseInt(part);
+            } catch (NumberFormatException e) {
+                return -1;
+            }
+        }
+    }
+
+    record Not(ConditionExpression operand) implements ConditionExpression {
+        @Override
+        public Object evaluate(Map<String, Object> data) {
+            return !operand.test(data);
+        }
+    }
+
+    record And(ConditionExpression left, ConditionExpression right) implements ConditionExpression {
+        @Override
+        public Object evaluate(Map<String, Object> data) {
+            return left.test(data) && right.test(data);
+        }
+    }
+
+    record Or(ConditionExpression left, ConditionExpression right) implements ConditionExpression {
+        @Override
+        public Object evaluate(Map<String, Object> data) {
+            return left.test(data) || right.test(data);
+        }
+    }
+
+    enum Operator {
+        EQ, NE, LT, GT, LE, GE
+    }
+
+    record Comparison(Operator operator, ConditionExpression left, ConditionExpression right)
+            implements ConditionExpression {
+        @Override
+        public Object evaluate(Map<String, Object> data) {
+            Object actual = left.evaluate(data);
+            Object expected = right.evaluate(data);
+
+            return switch (operator) {
+                case EQ -> valueEquals(actual, expected);
+                case NE -> !valueEquals(actual, expected);
+                case LT -> compare(actual, expected, c -> c < 0);
+                case GT -> compare(actual, expected, c -> c > 0);
+                case LE -> compare(actual, expected, c -> c <= 0);
+                case GE -> compare(actual, expected, c -> c >= 0);
+            };
+        }
+    }
+
+    // ========== COERCITIONS ==========
+
+    static boolean isTruthy(Object value) {
+        return value != null && !Boolean.FALSE.equals(value);
+    }
+
+    static boolean valueEquals(Object actual, Object expected) {
+        if (actual == null || expected == null) {
+            return actual == expected;
+        }
+
+        if (actual instanceof Number || expected instanceof Number) {
+            BigDecimal left = toNumber(actual);
+            BigDecimal right = toNumber(expected);
+            if (left != null && right != null) {
+                return left.compareTo(right) == 0;
+            }
+        }
+
+        if (actual.equals(expected)) {
+            return true;
+        }
+
+        return actual.toString().equals(expected.toString());
+    }
+
+    static boolean compare(Object actual, Object expected, IntPredicate test) {
+        if (actual == null || expected == null) {
+            return false;
+        }
+
+        BigDecimal left = toNumber(actual);
+        BigDecimal right = toNumber(expected);
+        if (left != null && right != null) {
+            return test.test(left.compareTo(right));
+        }
+
+        if (actual instanceof String a && expected instanceof String b) {
+            return test.test(a.compareTo(b));
+        }
+
+        return false;
+    }
+
+    static BigDecimal toNumber(Object value) {
+        if (value instanceof BigDecimal decimal) {
+            return decimal;
+        }
+        if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+            return BigDecimal.valueOf(((Number) value).longValue());
+        }
+        if (value instanceof Number number) {
+            double d = number.doubleValue();
+            return Double.isFinite(d) ? BigDecimal.valueOf(d) : null;
+        }
+        if (value instanceof String text && !text.isBlank()) {
+            try {
+                return new BigDecimal(text.trim());
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+}
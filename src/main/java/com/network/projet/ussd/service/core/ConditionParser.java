@@ -0,0 +1,224 @@
+package com.network.projet.ussd.service.core;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * ConditionParser - Analyseur descendant récursif des conditions de transition
+ *
+ * Grammaire:
+ * <pre>
+ * or         := and ('||' and)*
+ * and        := unary ('&amp;&amp;' unary)*
+ * unary      := '!' unary | comparison
+ * comparison := primary (('==' | '!=' | '&lt;' | '&gt;' | '&lt;=' | '&gt;=') primary)?
+ * primary    := '(' or ')' | 'null' | 'true' | 'false' | number | string | path
+ * path       := identifier ('.' identifier)*
+ * </pre>
+ *
+ * @author Network Projet Team
+ */
+final class ConditionParser {
+
+    private enum TokenType {
+        IDENTIFIER, NUMBER, STRING, OPERATOR, LPAREN, RPAREN, END
+    }
+
+    private record Token(TokenType type, String text) {
+    }
+
+    private final String source;
+    private final List<Token> tokens;
+    private int position;
+
+    private ConditionParser(String source) {
+        this.source = source;
+        this.tokens = tokenize(source);
+    }
+
+    /**
+     * Compile une expression (sans les accolades {{ }})
+     *
+     * @throws IllegalArgumentException si l'expression est invalide
+     */
+    static ConditionExpression parse(String expression) {
+        ConditionParser parser = new ConditionParser(expression);
+        ConditionExpression result = parser.parseOr();
+        parser.expect(TokenType.END, null);
+        return result;
+    }
+
+    // ========== ANALYSE SYNTAXIQUE ==========
+
+    private ConditionExpression parseOr() {
+        ConditionExpression left = parseAnd();
+        while (acceptOperator("||")) {
+            left = new ConditionExpression.Or(left, parseAnd());
+        }
+        return left;
+    }
+
+    private ConditionExpression parseAnd() {
+        ConditionExpression left = parseUnary();
+        while (acceptOperator("&&")) {
+            left = new ConditionExpression.And(left, parseUnary());
+        }
+        return left;
+    }
+
+    private ConditionExpression parseUnary() {
+        if (acceptOperator("!")) {
+            return new ConditionExpression.Not(parseUnary());
+        }
+        return parseComparison();
+    }
+
+    private ConditionExpression parseComparison() {
+        ConditionExpression left = parsePrimary(false);
+
+        Token token = peek();
+        if (token.type() != TokenType.OPERATOR) {
+            return left;
+        }
+
+        ConditionExpression.Operator operator = switch (token.text()) {
+            case "==" -> ConditionExpression.Operator.EQ;
+            case "!=" -> ConditionExpression.Operator.NE;
+            case "<" -> ConditionExpression.Operator.LT;
+            case ">" -> ConditionExpression.Operator.GT;
+            case "<=" -> ConditionExpression.Operator.LE;
+            case ">=" -> ConditionExpression.Operator.GE;
+            default -> null;
+        };
+
+        if (operator == null) {
+            return left;
+        }
+
+        position++;
+        return new ConditionExpression.Comparison(operator, left, parsePrimary(true));
+    }
+
+    private ConditionExpression parsePrimary(boolean rightOperand) {
+        Token token = next();
+
+        return switch (token.type()) {
+            case LPAREN -> {
+                ConditionExpression inner = parseOr();
+                expect(TokenType.RPAREN, ")");
+                yield inner;
+            }
+            case NUMBER -> new ConditionExpression.Literal(new BigDecimal(token.text()));
+            case STRING -> new ConditionExpression.Literal(token.text());
+            case IDENTIFIER -> switch (token.text()) {
+                case "null" -> new ConditionExpression.Literal(null);
+                case "true" -> new ConditionExpression.Literal(Boolean.TRUE);
+                case "false" -> new ConditionExpression.Literal(Boolean.FALSE);
+                default -> new ConditionExpression.Path(
+                        token.text().split("\\."),
+                        rightOperand ? token.text() : null);
+            };
+            default -> throw error("Unexpected token '" + token.text() + "'");
+        };
+    }
+
+    private boolean acceptOperator(String operator) {
+        Token token = peek();
+        if (token.type() == TokenType.OPERATOR && token.text().equals(operator)) {
+            position++;
+            return true;
+        }
+        return false;
+    }
+
+    private void expect(TokenType type, String text) {
+        Token token = next();
+        if (token.type() != type) {
+            throw error("Expected " + (text != null ? "'" + text + "'" : "end of expression")
+                    + " but found '" + token.text() + "'");
+        }
+    }
+
+    private Token peek() {
+        return tokens.get(position);
+    }
+
+    private Token next() {
+        Token token = tokens.get(position);
+        if (token.type() != TokenType.END) {
+            position++;
+        }
+        return token;
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException(message + " in condition: " + source);
+    }
+
+    // ========== ANALYSE LEXICALE ==========
+
+    private static List<Token> tokenize(String source) {
+        List<Token> tokens = new ArrayList<>();
+        int length = source.length();
+        int i = 0;
+
+        while (i < length) {
+            char c = source.charAt(i);
+
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '(') {
+                tokens.add(new Token(TokenType.LPAREN, "("));
+                i++;
+            } else if (c == ')') {
+                tokens.add(new Token(TokenType.RPAREN, ")"));
+                i++;
+            } else if (c == '\'' || c == '"') {
+                int end = source.indexOf(c, i + 1);
+                if (end < 0) {
+                    throw new IllegalArgumentException("Unterminated string in condition: " + source);
+                }
+                tokens.add(new Token(TokenType.STRING, source.substring(i + 1, end)));
+                i = end + 1;
+            } else if (isOperatorStart(c)) {
+                String two = i + 1 < length ? source.substring(i, i + 2) : "";
+                if (two.equals("==") || two.equals("!=") || two.equals("<=") || two.equals(">=")
+                        || two.equals("&&") || two.equals("||")) {
+                    tokens.add(new Token(TokenType.OPERATOR, two));
+                    i += 2;
+                } else if (c == '!' || c == '<' || c == '>') {
+                    tokens.add(new Token(TokenType.OPERATOR, String.valueOf(c)));
+                    i++;
+                } else {
+                    throw new IllegalArgumentException("Unexpected '" + c + "' in condition: " + source);
+                }
+            } else if (Character.isDigit(c) || (c == '-' && i + 1 < length && Character.isDigit(source.charAt(i + 1)))) {
+                int start = i++;
+                while (i < length && (Character.isDigit(source.charAt(i)) || source.charAt(i) == '.')) {
+                    i++;
+                }
+                tokens.add(new Token(TokenType.NUMBER, source.substring(start, i)));
+            } else if (isIdentifierPart(c)) {
+                int start = i;
+                while (i < length && isIdentifierPart(source.charAt(i))) {
+                    i++;
+                }
+                tokens.add(new Token(TokenType.IDENTIFIER, source.substring(start, i)));
+            } else {
+                throw new IllegalArgumentException("Unexpected '" + c + "' in condition: " + source);
+            }
+        }
+
+        tokens.add(new Token(TokenType.END, "<end>"));
+        return tokens;
+    }
+
+    private static boolean isOperatorStart(char c) {
+        return c == '=' || c == '!' || c == '<' || c == '>' || c == '&' || c == '|';
+    }
+
+    private static boolean isIdentifierPart(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '.' || c == '$';
+    }
+}
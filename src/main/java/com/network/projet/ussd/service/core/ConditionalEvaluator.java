@@ -1,24 +1,37 @@
 package com.network.projet.ussd.service.core;
 
-import lombok.RequiredArgsConstructor;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.util.Collection;
 import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * ConditionalEvaluator - Evaluates conditional expressions in transitions
- * Supports: {{var != null}}, {{var == null}}, {{var == 'value'}}, etc.
+ * Supports: {{var != null}}, {{var == 'value'}}, {{balance >= 500}},
+ * {{user.status == 'ACTIVE' && !blocked}}, {{(a || b) && count < 3}}, etc.
+ *
+ * Each expression is parsed once into a ConditionExpression AST and cached;
+ * evaluation is then a simple tree walk over the session data.
  */
 @Slf4j
 @Component
-@RequiredArgsConstructor
 public class ConditionalEvaluator {
 
-    private static final Pattern CONDITION_PATTERN = Pattern.compile("\\{\\{\\s*(.+?)\\s*}}");
-    
+    private static final String OPEN = "{{";
+    private static final String CLOSE = "}}";
+
+    private final Cache<String, ConditionExpression> expressionCache;
+
+    public ConditionalEvaluator(@Value("${ussd.condition.cache.max-size:10000}") long maxSize) {
+        this.expressionCache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .build();
+    }
+
     /**
      * Evaluate a condition string against session data
      * 
@@ -31,90 +44,62 @@ public class ConditionalEvaluator {
             return true; // No condition = always true
         }
 
-        // Extract expression from {{...}}
-        Matcher matcher = CONDITION_PATTERN.matcher(condition);
-        if (!matcher.find()) {
-            // Not a conditional expression, treat as literal match
-            return true;
-        }
-
-        String expression = matcher.group(1).trim();
-        log.debug("Evaluating condition: {}", expression);
+        ConditionExpression expression = compile(condition);
 
         try {
-            return evaluateExpression(expression, sessionData);
-        } catch (Exception e) {
-            log.error("Failed to evaluate condition: {}", expression, e);
+            return expression.test(sessionData);
+        } catch (RuntimeException e) {
+            log.error("Failed to evaluate condition: {}", condition, e);
             return false;
         }
     }
 
-    private boolean evaluateExpression(String expression, Map<String, Object> sessionData) {
-        // Handle != null
-        if (expression.contains("!=")) {
-            String[] parts = expression.split("!=");
-            String varName = parts[0].trim();
-            String expectedValue = parts[1].trim();
-            
-            Object actualValue = sessionData.get(varName);
-            
-            if ("null".equals(expectedValue)) {
-                return actualValue != null;
-            }
-            
-            return !valueEquals(actualValue, parseValue(expectedValue));
+    /**
+     * Compile a condition (cached).
+     * A string without {{...}} is not a conditional expression and always matches;
+     * an invalid expression never matches.
+     */
+    public ConditionExpression compile(String condition) {
+        if (condition == null || condition.isEmpty()) {
+            return ConditionExpression.ALWAYS_TRUE;
         }
+        return expressionCache.get(condition, this::parse);
+    }
 
-        // Handle == null or == 'value'
-        if (expression.contains("==")) {
-            String[] parts = expression.split("==");
-            String varName = parts[0].trim();
-            String expectedValue = parts[1].trim();
-            
-            Object actualValue = sessionData.get(varName);
-            
-            if ("null".equals(expectedValue)) {
-                return actualValue == null;
+    /**
+     * Pre-compile the conditions of an automaton when it is loaded
+     *
+     * @return number of conditional expressions compiled
+     */
+    public int precompile(Collection<String> conditions) {
+        int count = 0;
+        for (String condition : conditions) {
+            if (condition != null && condition.contains(OPEN)) {
+                compile(condition);
+                count++;
             }
-            
-            return valueEquals(actualValue, parseValue(expectedValue));
         }
-
-        // Handle simple existence check
-        return sessionData.containsKey(expression) && sessionData.get(expression) != null;
+        return count;
     }
 
-    private Object parseValue(String value) {
-        value = value.trim();
-        
-        // Remove quotes
-        if ((value.startsWith("'") && value.endsWith("'")) || 
-            (value.startsWith("\"") && value.endsWith("\""))) {
-            return value.substring(1, value.length() - 1);
+    private ConditionExpression parse(String condition) {
+        // Extract expression from {{...}}
+        int start = condition.indexOf(OPEN);
+        int end = start >= 0 ? condition.indexOf(CLOSE, start + OPEN.length()) : -1;
+        if (end < 0) {
+            // Not a conditional expression, treat as literal match
+            return ConditionExpression.ALWAYS_TRUE;
         }
-        
-        // Parse numbers
+
+        String expression = condition.substring(start + OPEN.length(), end).trim();
+
         try {
-            if (value.contains(".")) {
-                return Double.parseDouble(value);
-            }
-            return Integer.parseInt(value);
-        } catch (NumberFormatException e) {
-            // Not a number, return as string
+            ConditionExpression compiled = ConditionParser.parse(expression);
+            log.debug("Condition compiled: {}", expression);
+            return compiled;
+        } catch (IllegalArgumentException e) {
+            log.error("Invalid condition expression: {} ({})", expression, e.getMessage());
+            return ConditionExpression.ALWAYS_FALSE;
         }
-        
-        // Parse booleans
-        if ("true".equalsIgnoreCase(value)) return true;
-        if ("false".equalsIgnoreCase(value)) return false;
-        
-        return value;
-    }
-
-    private boolean valueEquals(Object actual, Object expected) {
-        if (actual == null && expected == null) return true;
-        if (actual == null || expected == null) return false;
-        
-        // Convert to strings for comparison
-        return actual.toString().equals(expected.toString());
     }
-}
\ No newline at end of file
+}
@@ -1,21 +1,45 @@
 package com.network.projet.ussd.service.core;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import com.network.projet.ussd.repository.GenericStorageRepository;
 
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
 
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 
 import com.network.projet.ussd.domain.model.GenericStorage;
 
+/**
+ * GenericStorageService - Stockage clé/valeur JSON par (téléphone, service, clé)
+ *
+ * Les lectures passent par un cache mémoire (read-through, absences comprises).
+ * Les écritures de ce nœud mettent le cache à jour avec la valeur renvoyée par
+ * la base; la durée de vie d'une entrée est bornée par ussd.storage.cache.ttl-seconds
+ * (écritures des autres nœuds) et par l'expiration propre de la valeur.
+ *
+ * loadAll et writeAll traitent les actions de stockage d'une étape en lot:
+ * un seul SELECT multi-clés, et une seule transaction pour les écritures.
+ */
 @Slf4j
 @Service
 @RequiredArgsConstructor
@@ -23,53 +47,55 @@ public class GenericStorageService {
 
     private final GenericStorageRepository repository;
     private final ObjectMapper objectMapper;
+    private final TransactionalOperator transactionalOperator;
+
+    @Value("${ussd.storage.cache.max-size:50000}")
+    private long cacheMaxSize;
+
+    @Value("${ussd.storage.cache.ttl-seconds:60}")
+    private long cacheTtlSeconds;
+
+    private Cache<StorageKey, CachedValue> cache;
+
+    @PostConstruct
+    void init() {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfter(new CachedValueExpiry())
+                .build();
+    }
 
     public Mono<Void> save(String phoneNumber, String serviceCode, String key, Object value) {
-        return repository
-                .findByPhoneNumberAndServiceCodeAndStorageKey(phoneNumber, serviceCode, key)
-                .defaultIfEmpty(new GenericStorage())
-                .flatMap(storage -> {
-                    storage.setPhoneNumber(phoneNumber);
-                    storage.setServiceCode(serviceCode);
-                    storage.setStorageKey(key);
-
-                    // Conversion Object → JSON String
-                    try {
-                        String jsonValue = objectMapper.writeValueAsString(value);
-                        storage.setStorageValue(jsonValue);
-                    } catch (Exception e) {
-                        log.error("Failed to serialize value to JSON", e);
-                        return Mono.error(new RuntimeException("Failed to serialize value", e));
-                    }
+        return save(phoneNumber, serviceCode, key, value, null);
+    }
 
-                    storage.setUpdatedAt(LocalDateTime.now());
-                    if (storage.getId() == null) {
-                        storage.setCreatedAt(LocalDateTime.now());
-                    }
-                    return repository.save(storage);
-                })
+    /**
+     * Enregistre une valeur (upsert atomique: une seule requête)
+     *
+     * @param ttlSeconds Durée de vie de la valeur (null ou 0 = pas d'expiration)
+     */
+    public Mono<Void> save(String phoneNumber, String serviceCode, String key, Object value, Integer ttlSeconds) {
+        LocalDateTime expiresAt = ttlSeconds != null && ttlSeconds > 0
+                ? LocalDateTime.now().plusSeconds(ttlSeconds)
+                : null;
+
+        return toJson(value)
+                .flatMap(jsonValue -> repository.upsert(phoneNumber, serviceCode, key, jsonValue, expiresAt))
+                .doOnNext(this::cacheWritten)
+                .doOnError(error -> cache.invalidate(new StorageKey(phoneNumber, serviceCode, key)))
                 .then();
     }
 
     public Mono<Object> load(String phoneNumber, String serviceCode, String key) {
-        return repository
-                .findByPhoneNumberAndServiceCodeAndStorageKey(phoneNumber, serviceCode, key)
-                .mapNotNull(storage -> {
-                    try {
-                        return objectMapper.readValue(storage.getStorageValue(), Object.class);
-                    } catch (Exception e) {
-                        log.error("Failed to deserialize JSON value", e);
-                        return null;
-                    }
-                });
+        return loadJson(phoneNumber, serviceCode, key)
+                .mapNotNull(this::fromJson);
     }
 
     public Mono<Map<String, Object>> loadMap(String phoneNumber, String serviceCode, String key) {
-        return repository
-                .findByPhoneNumberAndServiceCodeAndStorageKey(phoneNumber, serviceCode, key)
-                .mapNotNull(storage -> {
+        return loadJson(phoneNumber, serviceCode, key)
+                .mapNotNull(json -> {
                     try {
-                        return objectMapper.readValue(storage.getStorageValue(), Map.class);
+                        return objectMapper.readValue(json, Map.class);
                     } catch (Exception e) {
                         log.error("Failed to deserialize JSON to Map", e);
                         return null;
@@ -78,11 +104,10 @@ public class GenericStorageService {
     }
 
     public Mono<List<Object>> loadList(String phoneNumber, String serviceCode, String key) {
-        return repository
-                .findByPhoneNumberAndServiceCodeAndStorageKey(phoneNumber, serviceCode, key)
-                .mapNotNull(storage -> {
+        return loadJson(phoneNumber, serviceCode, key)
+                .mapNotNull(json -> {
                     try {
-                        return objectMapper.readValue(storage.getStorageValue(), List.class);
+                        return objectMapper.readValue(json, List.class);
                     } catch (Exception e) {
                         log.error("Failed to deserialize JSON to List", e);
                         return null;
@@ -90,19 +115,275 @@ public class GenericStorageService {
                 });
     }
 
+    /**
+     * Ajoute un élément à une liste (append atomique côté serveur, sans lecture préalable)
+     */
     public Mono<Void> append(String phoneNumber, String serviceCode, String key, Object item) {
-        return loadList(phoneNumber, serviceCode, key)
-                .defaultIfEmpty(List.of())
-                .flatMap(list -> {
-                    List<Object> mutableList = new java.util.ArrayList<>(list);
-                    mutableList.add(item);
-                    return save(phoneNumber, serviceCode, key, mutableList);
-                });
+        return toJson(item)
+                .flatMap(jsonItem -> repository.appendItem(phoneNumber, serviceCode, key, jsonItem,
+                        LocalDateTime.now()))
+                .doOnNext(this::cacheWritten)
+                .doOnError(error -> cache.invalidate(new StorageKey(phoneNumber, serviceCode, key)))
+                .then();
     }
 
     public Mono<Void> delete(String phoneNumber, String serviceCode, String key) {
-        return repository
-                .findByPhoneNumberAndServiceCodeAndStorageKey(phoneNumber, serviceCode, key)
-                .flatMap(repository::delete);
+        StorageKey storageKey = new StorageKey(phoneNumber, serviceCode, key);
+
+        return repository.deleteByPhoneNumberAndServiceCodeAndStorageKey(phoneNumber, serviceCode, key)
+                .doOnSuccess(unused -> cache.put(storageKey, CachedValue.absent(cacheTtlSeconds)))
+                .doOnError(error -> cache.invalidate(storageKey));
+    }
+
+    // ========== LOTS ==========
+
+    /**
+     * Charge plusieurs clés: cache d'abord, puis un seul SELECT pour les clés manquantes
+     *
+     * @return Valeurs des clés présentes (les clés absentes ou expirées sont omises)
+     */
+    public Mono<Map<String, Object>> loadAll(String phoneNumber, String serviceCode, Collection<String> keys) {
+        Map<String, Object> values = new LinkedHashMap<>();
+        List<String> misses = new ArrayList<>();
+
+        for (String key : new LinkedHashSet<>(keys)) {
+            CachedValue cached = cache.getIfPresent(new StorageKey(phoneNumber, serviceCode, key));
+            if (cached == null) {
+                misses.add(key);
+            } else if (cached.json() != null) {
+                putValue(values, key, cached.json());
+            }
+        }
+
+        if (misses.isEmpty()) {
+            return Mono.just(values);
+        }
+
+        return repository.findActiveByKeys(phoneNumber, serviceCode, misses, LocalDateTime.now())
+                .collectMap(GenericStorage::getStorageKey)
+                .map(found -> {
+                    for (String key : misses) {
+                        StorageKey storageKey = new StorageKey(phoneNumber, serviceCode, key);
+                        GenericStorage storage = found.get(key);
+                        if (storage == null) {
+                            cache.asMap().putIfAbsent(storageKey, CachedValue.absent(cacheTtlSeconds));
+                            continue;
+                        }
+                        cache.asMap().putIfAbsent(storageKey,
+                                CachedValue.of(storage.getStorageValue(), storage.getExpiresAt(), cacheTtlSeconds));
+                        putValue(values, key, storage.getStorageValue());
+                    }
+                    log.debug("Storage batch load: {} keys, {} from database", keys.size(), misses.size());
+                    return values;
+                });
+    }
+
+    /**
+     * Exécute plusieurs écritures dans l'ordre, au sein d'une seule transaction
+     * (une seule connexion, un seul commit). Le cache n'est mis à jour qu'après
+     * le commit; en cas d'échec, les clés concernées sont invalidées.
+     */
+    public Mono<Void> writeAll(String phoneNumber, String serviceCode, List<StorageWrite> writes) {
+        if (writes == null || writes.isEmpty()) {
+            return Mono.empty();
+        }
+        if (writes.size() == 1) {
+            return write(phoneNumber, serviceCode, writes.get(0));
+        }
+
+        return Mono.defer(() -> {
+            LocalDateTime now = LocalDateTime.now();
+            Map<StorageKey, CachedValue> committed = new LinkedHashMap<>();
+
+            return Flux.fromIterable(writes)
+                    .concatMap(storageWrite -> writeInTransaction(phoneNumber, serviceCode, storageWrite, now,
+                            committed))
+                    .then()
+                    .as(transactionalOperator::transactional)
+                    .doOnSuccess(unused -> {
+                        cache.putAll(committed);
+                        log.debug("Storage batch write: {} statements committed", writes.size());
+                    })
+                    .doOnError(error -> writes.forEach(storageWrite -> cache.invalidate(
+                            new StorageKey(phoneNumber, serviceCode, storageWrite.key()))));
+        });
+    }
+
+    private Mono<Void> write(String phoneNumber, String serviceCode, StorageWrite storageWrite) {
+        return switch (storageWrite.operation()) {
+            case SAVE -> save(phoneNumber, serviceCode, storageWrite.key(), storageWrite.value(),
+                    storageWrite.ttlSeconds());
+            case APPEND -> append(phoneNumber, serviceCode, storageWrite.key(), storageWrite.value());
+            case DELETE -> delete(phoneNumber, serviceCode, storageWrite.key());
+        };
+    }
+
+    /**
+     * Écriture au sein d'une transaction: la valeur résultante est retenue
+     * (dernière écriture par clé) et n'entre dans le cache qu'au commit
+     */
+    private Mono<Void> writeInTransaction(String phoneNumber, String serviceCode, StorageWrite storageWrite,
+            LocalDateTime now, Map<StorageKey, CachedValue> committed) {
+        String key = storageWrite.key();
+        StorageKey storageKey = new StorageKey(phoneNumber, serviceCode, key);
+
+        return switch (storageWrite.operation()) {
+            case SAVE -> {
+                Integer ttlSeconds = storageWrite.ttlSeconds();
+                LocalDateTime expiresAt = ttlSeconds != null && ttlSeconds > 0 ? now.plusSeconds(ttlSeconds) : null;
+                yield toJson(storageWrite.value())
+                        .flatMap(json -> repository.upsert(phoneNumber, serviceCode, key, json, expiresAt))
+                        .doOnNext(storage -> committed.put(storageKey, toCachedValue(storage)))
+                        .then();
+            }
+            case APPEND -> toJson(storageWrite.value())
+                    .flatMap(json -> repository.appendItem(phoneNumber, serviceCode, key, json, now))
+                    .doOnNext(storage -> committed.put(storageKey, toCachedValue(storage)))
+                    .then();
+            case DELETE -> repository.deleteByPhoneNumberAndServiceCodeAndStorageKey(phoneNumber, serviceCode, key)
+                    .doOnSuccess(unused -> committed.put(storageKey, CachedValue.absent(cacheTtlSeconds)));
+        };
+    }
+
+    // ========== PURGE ==========
+
+    /**
+     * Supprime périodiquement les valeurs expirées de generic_storage
+     */
+    @Scheduled(fixedDelayString = "${ussd.storage.sweep-interval-ms:300000}")
+    public void purgeExpired() {
+        repository.deleteExpired(LocalDateTime.now())
+                .subscribe(
+                        count -> {
+                            if (count > 0) {
+                                log.info("Purged {} expired storage values", count);
+                            }
+                        },
+                        error -> log.error("Failed to purge expired storage values", error));
+    }
+
+    // ========== CACHE ==========
+
+    /**
+     * Valeur JSON d'une clé (cache puis base)
+     */
+    private Mono<String> loadJson(String phoneNumber, String serviceCode, String key) {
+        StorageKey storageKey = new StorageKey(phoneNumber, serviceCode, key);
+
+        CachedValue cached = cache.getIfPresent(storageKey);
+        if (cached != null) {
+            log.trace("Storage cache hit: {}", storageKey);
+            return Mono.justOrEmpty(cached.json());
+        }
+
+        return repository.findActive(phoneNumber, serviceCode, key, LocalDateTime.now())
+                .map(storage -> {
+                    // Une écriture concurrente de ce nœud reste prioritaire
+                    cache.asMap().putIfAbsent(storageKey,
+                            CachedValue.of(storage.getStorageValue(), storage.getExpiresAt(), cacheTtlSeconds));
+                    return storage.getStorageValue();
+                })
+                .switchIfEmpty(Mono.fromRunnable(() -> cache.asMap()
+                        .putIfAbsent(storageKey, CachedValue.absent(cacheTtlSeconds))));
+    }
+
+    private void cacheWritten(GenericStorage storage) {
+        StorageKey storageKey = new StorageKey(
+                storage.getPhoneNumber(), storage.getServiceCode(), storage.getStorageKey());
+        cache.put(storageKey, toCachedValue(storage));
+    }
+
+    private CachedValue toCachedValue(GenericStorage storage) {
+        return CachedValue.of(storage.getStorageValue(), storage.getExpiresAt(), cacheTtlSeconds);
+    }
+
+    private void putValue(Map<String, Object> values, String key, String json) {
+        Object value = fromJson(json);
+        if (value != null) {
+            values.put(key, value);
+        }
+    }
+
+    private Object fromJson(String json) {
+        try {
+            return objectMapper.readValue(json, Object.class);
+        } catch (Exception e) {
+            log.error("Failed to deserialize JSON value", e);
+            return null;
+        }
+    }
+
+    /**
+     * Conversion Object → JSON String
+     */
+    private Mono<String> toJson(Object value) {
+        try {
+            return Mono.just(objectMapper.writeValueAsString(value));
+        } catch (Exception e) {
+            log.error("Failed to serialize value to JSON", e);
+            return Mono.error(new RuntimeException("Failed to serialize value", e));
+        }
+    }
+
+    /**
+     * Écriture d'une action de stockage (value déjà résolue)
+     */
+    public record StorageWrite(Operation operation, String key, Object value, Integer ttlSeconds) {
+
+        public enum Operation {
+            SAVE, APPEND, DELETE
+        }
+
+        public static StorageWrite save(String key, Object value, Integer ttlSeconds) {
+            return new StorageWrite(Operation.SAVE, key, value, ttlSeconds);
+        }
+
+        public static StorageWrite append(String key, Object item) {
+            return new StorageWrite(Operation.APPEND, key, item, null);
+        }
+
+        public static StorageWrite delete(String key) {
+            return new StorageWrite(Operation.DELETE, key, null, null);
+        }
+    }
+
+    private record StorageKey(String phoneNumber, String serviceCode, String storageKey) {
+    }
+
+    /**
+     * Valeur en cache (json null = clé absente)
+     */
+    private record CachedValue(String json, long ttlNanos) {
+
+        static CachedValue of(String json, LocalDateTime expiresAt, long cacheTtlSeconds) {
+            long ttlNanos = Duration.ofSeconds(cacheTtlSeconds).toNanos();
+            if (expiresAt != null) {
+                long remaining = Duration.between(LocalDateTime.now(), expiresAt).toNanos();
+                ttlNanos = Math.max(0, Math.min(ttlNanos, remaining));
+            }
+            return new CachedValue(json, ttlNanos);
+        }
+
+        static CachedValue absent(long cacheTtlSeconds) {
+            return new CachedValue(null, Duration.ofSeconds(cacheTtlSeconds).toNanos());
+        }
+    }
+
+    private static class CachedValueExpiry implements Expiry<StorageKey, CachedValue> {
+
+        @Override
+        public long expireAfterCreate(StorageKey key, CachedValue value, long currentTime) {
+            return value.ttlNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(StorageKey key, CachedValue value, long currentTime, long currentDuration) {
+            return value.ttlNanos();
+        }
+
+        @Override
+        public long expireAfterRead(StorageKey key, CachedValue value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
     }
-}
\ No newline at end of file
+}
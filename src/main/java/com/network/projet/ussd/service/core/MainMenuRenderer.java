@@ -0,0 +1,206 @@
+package com.network.projet.ussd.service.core;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.network.projet.ussd.domain.model.UssdService;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * MainMenuRenderer - Menu principal (*500#) pré-rendu par version du catalogue
+ *
+ * Les pages sont calculées une seule fois par version du catalogue de
+ * ServiceRegistry, chacune tenant dans la limite USSD (182 caractères).
+ * La numérotation des services est globale: le choix N désigne toujours le
+ * N-ième service actif (résolution par index en O(1), quelle que soit la page).
+ *
+ * Navigation: 99 = page suivante, 98 = page précédente, 0 = quitter.
+ *
+ * @author Network Projet Team
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MainMenuRenderer {
+
+    public static final String NEXT_PAGE = "99";
+    public static final String PREVIOUS_PAGE = "98";
+    public static final String EXIT = "0";
+
+    private static final String HEADER = "Bienvenue sur USSD Gateway\n";
+    private static final String EMPTY = "Aucun service disponible.";
+    private static final String NEXT_LINE = NEXT_PAGE + ". Suivant\n";
+    private static final String PREVIOUS_LINE = PREVIOUS_PAGE + ". Précédent\n";
+    private static final String EXIT_LINE = EXIT + ". Quitter";
+
+    private final ServiceRegistry serviceRegistry;
+
+    @Value("${ussd.main-menu.max-length:182}")
+    private int maxLength;
+
+    @Value("${ussd.main-menu.page-memory-seconds:300}")
+    private long pageMemorySeconds;
+
+    private volatile RenderedMenu menu;
+
+    /**
+     * sessionId → page affichée (le menu principal n'a pas de session USSD)
+     */
+    private Cache<String, Integer> pages;
+
+    @PostConstruct
+    void init() {
+        this.pages = Caffeine.newBuilder()
+                .expireAfterAccess(Duration.ofSeconds(pageMemorySeconds))
+                .build();
+    }
+
+    /**
+     * Menu de la version courante du catalogue (rendu uniquement si la version a changé)
+     */
+    public Mono<RenderedMenu> current() {
+        long version = serviceRegistry.getCatalogVersion();
+        RenderedMenu cached = menu;
+        if (cached != null && version >= 0 && cached.version() == version) {
+            return Mono.just(cached);
+        }
+
+        return serviceRegistry.getAllActiveServices()
+                .collectList()
+                .map(services -> {
+                    RenderedMenu rendered = render(serviceRegistry.getCatalogVersion(), services);
+                    menu = rendered;
+                    log.info("Main menu rendered: version={}, {} services, {} pages",
+                            rendered.version(), services.size(), rendered.pageCount());
+                    return rendered;
+                });
+    }
+
+    // ========== PAGE COURANTE PAR SESSION ==========
+
+    public int currentPage(String sessionId) {
+        Integer page = sessionId != null ? pages.getIfPresent(sessionId) : null;
+        return page != null ? page : 0;
+    }
+
+    public void rememberPage(String sessionId, int page) {
+        if (sessionId != null) {
+            pages.put(sessionId, page);
+        }
+    }
+
+    public void forget(String sessionId) {
+        if (sessionId != null) {
+            pages.invalidate(sessionId);
+        }
+    }
+
+    // ========== RENDU ==========
+
+    private RenderedMenu render(long version, List<UssdService> services) {
+        if (services.isEmpty()) {
+            return new RenderedMenu(version, List.of(HEADER + EMPTY), List.of());
+        }
+
+        List<String> rendered = new ArrayList<>();
+        int next = 0;
+
+        while (next < services.size()) {
+            boolean first = rendered.isEmpty();
+            String previous = first ? "" : PREVIOUS_LINE;
+
+            // Dernière page si tous les services restants tiennent sans "Suivant"
+            int end = fill(services, next, HEADER.length() + previous.length() + EXIT_LINE.length());
+            boolean last = end == services.size();
+            if (!last) {
+                end = fill(services, next,
+                        HEADER.length() + previous.length() + NEXT_LINE.length() + EXIT_LINE.length());
+            }
+
+            StringBuilder page = new StringBuilder(HEADER);
+            int budget = maxLength - HEADER.length() - previous.length() - EXIT_LINE.length()
+                    - (last ? 0 : NEXT_LINE.length());
+            for (int i = next; i < end; i++) {
+                page.append(item(i, services.get(i), budget));
+            }
+            page.append(previous);
+            if (!last) {
+                page.append(NEXT_LINE);
+            }
+            page.append(EXIT_LINE);
+
+            rendered.add(page.toString());
+            next = end;
+        }
+
+        return new RenderedMenu(version, List.copyOf(rendered), List.copyOf(services));
+    }
+
+    /**
+     * Index (exclu) du dernier service tenant sur la page; au moins un service par page
+     */
+    private int fill(List<UssdService> services, int from, int fixedLength) {
+        int length = fixedLength;
+        int end = from;
+
+        while (end < services.size()) {
+            length += item(end, services.get(end), Integer.MAX_VALUE).length();
+            if (length > maxLength && end > from) {
+                break;
+            }
+            end++;
+        }
+        return end;
+    }
+
+    /**
+     * Ligne d'un service, nom tronqué si la ligne seule dépasse le budget de la page
+     */
+    private static String item(int index, UssdService service, int budget) {
+        String prefix = (index + 1) + ". ";
+        String name = service.getName() != null ? service.getName() : service.getCode();
+        int room = budget - prefix.length() - 1;
+
+        if (name.length() > room && room > 1) {
+            name = name.substring(0, room - 1) + "…";
+        }
+        return prefix + name + "\n";
+    }
+
+    /**
+     * Menu pré-rendu: pages et services dans l'ordre de numérotation
+     */
+    public record RenderedMenu(long version, List<String> pages, List<UssdService> services) {
+
+        public int pageCount() {
+            return pages.size();
+        }
+
+        public String page(int index) {
+            return pages.get(clampPage(index));
+        }
+
+        public int clampPage(int index) {
+            return Math.max(0, Math.min(index, pages.size() - 1));
+        }
+
+        /**
+         * Service du choix N (1..size), ou null hors limites
+         */
+        public UssdService service(int number) {
+            return number >= 1 && number <= services.size() ? services.get(number - 1) : null;
+        }
+
+        public int size() {
+            return services.size();
+        }
+    }
+}
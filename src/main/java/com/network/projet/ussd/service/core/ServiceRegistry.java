@@ -2,27 +2,82 @@ package com.network.projet.ussd.service.core;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.network.projet.ussd.domain.model.UssdService;
+import com.network.projet.ussd.domain.model.automaton.Action;
 import com.network.projet.ussd.domain.model.automaton.AutomatonDefinition;
+import com.network.projet.ussd.domain.model.automaton.CompiledAutomaton;
+import com.network.projet.ussd.domain.model.automaton.CompiledState;
+import com.network.projet.ussd.domain.model.automaton.CompiledTransition;
 import com.network.projet.ussd.exception.ServiceNotFoundException;
 import com.network.projet.ussd.repository.UssdServiceRepository;
+import com.network.projet.ussd.util.HandlebarsTemplateEngine;
+import io.r2dbc.postgresql.api.Notification;
+import io.r2dbc.postgresql.api.PostgresqlConnection;
+import io.r2dbc.postgresql.api.PostgresqlResult;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Wrapped;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * ServiceRegistry - Catalogue des services USSD et automates compilés
+ *
+ * Le catalogue complet (code → service, shortCode → service actif, liste
+ * ordonnée des services actifs) est tenu en mémoire: aucune requête SQL sur
+ * le chemin d'une requête USSD.
+ *
+ * Invalidation sur tous les nœuds: un trigger sur ussd_service incrémente
+ * ussd_service_catalog_version et émet NOTIFY ussd_service_changed.
+ * Chaque nœud écoute ce canal sur une connexion dédiée et recharge le
+ * catalogue; un polling de la version sert de filet de sécurité
+ * (notification perdue, reconnexion, base sans LISTEN).
+ */
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class ServiceRegistry {
 
+    private static final String CHANNEL = "ussd_service_changed";
+
     private final UssdServiceRepository serviceRepository;
     private final ObjectMapper objectMapper;
+    private final HandlebarsTemplateEngine templateEngine;
+    private final ConditionalEvaluator conditionalEvaluator;
+    private final ConnectionFactory connectionFactory;
+
+    @Value("${ussd.registry.listen-enabled:true}")
+    private boolean listenEnabled;
+
+    /**
+     * Automate compilé, valide tant que son service source est celui du catalogue
+     */
+    private final Map<String, CachedAutomaton> automatonCache = new ConcurrentHashMap<>();
 
-    private final Map<String, AutomatonDefinition> automatonCache = new ConcurrentHashMap<>();
+    private volatile Catalog catalog;
+
+    private Disposable listener;
+
+    // ========== AUTOMATES ==========
 
     /**
      * Load automaton for a service (with caching)
@@ -30,27 +85,47 @@ public class ServiceRegistry {
      * @param code Technical service code (e.g. "todo-manager")
      */
     public Mono<AutomatonDefinition> loadAutomaton(String code) {
-        return serviceRepository.findByCode(code)
-                .switchIfEmpty(Mono.error(new ServiceNotFoundException("Service non trouvé: " + code)))
-                .flatMap(service -> {
+        return loadCompiledAutomaton(code).map(CompiledAutomaton::getDefinition);
+    }
+
+    /**
+     * Load the compiled (indexed) automaton for a service (with caching).
+     * The automaton is compiled once, when it enters the cache.
+     * 
+     * @param code Technical service code (e.g. "todo-manager")
+     */
+    public Mono<CompiledAutomaton> loadCompiledAutomaton(String code) {
+        return catalog()
+                .flatMap(current -> {
+                    UssdService service = current.byCode().get(code);
+                    if (service == null) {
+                        return Mono.error(new ServiceNotFoundException("Service non trouvé: " + code));
+                    }
+
                     // Vérifier que le service est actif
                     if (!Boolean.TRUE.equals(service.getIsActive())) {
                         return Mono.error(new ServiceNotFoundException(
                                 "Le service '" + service.getName() + "' est actuellement bloqué."));
                     }
 
-                    // Vérifier le cache
-                    if (automatonCache.containsKey(code)) {
-                        return Mono.just(automatonCache.get(code));
+                    // Vérifier le cache (compilé depuis cette version du service)
+                    CachedAutomaton cached = automatonCache.get(code);
+                    if (cached != null && cached.source() == service) {
+                        return Mono.just(cached.compiled());
                     }
 
-                    // Parser la configuration JSON
+                    // Parser et compiler la configuration JSON
                     try {
                         AutomatonDefinition automaton = objectMapper.readValue(
                                 service.getJsonConfig(),
                                 AutomatonDefinition.class);
-                        automatonCache.put(code, automaton);
-                        return Mono.just(automaton);
+                        CompiledAutomaton compiled = CompiledAutomaton.compile(automaton);
+                        automatonCache.put(code, new CachedAutomaton(service, compiled));
+                        int templates = templateEngine.precompile(collectTemplates(compiled));
+                        int conditions = conditionalEvaluator.precompile(collectConditions(compiled));
+                        log.info("Automaton compiled for service: {} ({} states, {} templates, {} conditions)",
+                                code, compiled.getStatesById().size(), templates, conditions);
+                        return Mono.just(compiled);
                     } catch (Exception e) {
                         log.error("Failed to parse automaton for service: {}", code, e);
                         return Mono
@@ -59,31 +134,249 @@ public class ServiceRegistry {
                 });
     }
 
+    /**
+     * Templates rendered by AutomatonEngine: state messages and storage action values
+     */
+    private List<String> collectTemplates(CompiledAutomaton automaton) {
+        List<String> templates = new ArrayList<>();
+
+        for (CompiledState state : automaton.getStatesById().values()) {
+            templates.add(state.getMessage());
+            collectActionTemplates(state.getPreActions(), templates);
+            collectActionTemplates(state.getPostActions(), templates);
+        }
+
+        return templates;
+    }
+
+    /**
+     * Conditional expressions evaluated by AutomatonEngine when dispatching transitions
+     */
+    private List<String> collectConditions(CompiledAutomaton automaton) {
+        List<String> conditions = new ArrayList<>();
+
+        for (CompiledState state : automaton.getStatesById().values()) {
+            for (CompiledTransition transition : state.getDispatchTransitions()) {
+                if (!transition.isInputTransition()) {
+                    conditions.add(transition.getCondition());
+                }
+            }
+        }
+
+        return conditions;
+    }
+
+    private void collectActionTemplates(List<Action> actions, List<String> templates) {
+        if (actions == null) {
+            return;
+        }
+
+        for (Action action : actions) {
+            if (action.getValue() instanceof String value) {
+                templates.add(value);
+            }
+        }
+    }
+
+    // ========== CATALOGUE ==========
+
     /**
      * Get service by USSD short code
      * 
      * @param shortCode USSD code (e.g. "*500*1#")
      */
     public Mono<UssdService> getServiceByShortCode(String shortCode) {
-        return serviceRepository.findByShortCode(shortCode)
-                .filter(service -> Boolean.TRUE.equals(service.getIsActive()))
+        return catalog()
+                .flatMap(current -> Mono.justOrEmpty(current.byShortCode().get(shortCode)))
                 .switchIfEmpty(Mono.error(new ServiceNotFoundException("Service inactif ou inconnu: " + shortCode)));
     }
 
+    /**
+     * Short codes des services actifs (résolution des codes étendus *500*1*2#)
+     */
+    public Mono<Set<String>> getActiveShortCodes() {
+        return catalog().map(current -> current.byShortCode().keySet());
+    }
+
     /**
      * List all active services
      */
     public Flux<UssdService> getAllActiveServices() {
-        return serviceRepository.findByIsActiveTrue();
+        return catalog().flatMapIterable(Catalog::active);
     }
 
     /**
-     * Invalidate cache
+     * Invalidate cache (écriture locale: rechargement immédiat du catalogue;
+     * les autres nœuds sont prévenus par NOTIFY)
      * 
      * @param code Technical service code
      */
     public void invalidateCache(String code) {
         automatonCache.remove(code);
         log.info("Cache invalidated for service: {}", code);
+        refresh();
+    }
+
+    /**
+     * Version du catalogue chargé (-1 si pas encore chargé)
+     */
+    public long getCatalogVersion() {
+        Catalog current = catalog;
+        return current != null ? current.version() : -1;
+    }
+
+    private Mono<Catalog> catalog() {
+        Catalog current = catalog;
+        return current != null ? Mono.just(current) : reload();
+    }
+
+    private void refresh() {
+        reload().subscribe(
+                loaded -> log.debug("Service catalog refreshed: version={}", loaded.version()),
+                error -> log.error("Failed to refresh service catalog", error));
+    }
+
+    /**
+     * Recharge le catalogue: version lue avant les lignes, pour qu'une
+     * écriture concurrente soit au pire rechargée une seconde fois
+     */
+    private Mono<Catalog> reload() {
+        return serviceRepository.findCatalogVersion()
+                .defaultIfEmpty(0L)
+                .flatMap(version -> serviceRepository.findAll()
+                        .collectList()
+                        .map(services -> install(version, services)));
+    }
+
+    private synchronized Catalog install(long version, List<UssdService> services) {
+        Catalog previous = catalog;
+        if (previous != null && version < previous.version()) {
+            return previous;
+        }
+
+        Map<String, UssdService> byCode = new HashMap<>();
+        Map<String, UssdService> byShortCode = new HashMap<>();
+        List<UssdService> active = new ArrayList<>();
+
+        services.sort(Comparator.comparing(UssdService::getId, Comparator.nullsLast(Comparator.naturalOrder())));
+
+        for (UssdService loaded : services) {
+            // Un service inchangé garde son instance (et son automate compilé)
+            UssdService unchanged = previous != null ? previous.byCode().get(loaded.getCode()) : null;
+            UssdService service = loaded.equals(unchanged) ? unchanged : loaded;
+
+            byCode.put(service.getCode(), service);
+            if (Boolean.TRUE.equals(service.getIsActive())) {
+                active.add(service);
+                if (service.getShortCode() != null) {
+                    byShortCode.putIfAbsent(service.getShortCode(), service);
+                }
+            }
+        }
+
+        Catalog installed = new Catalog(version, Collections.unmodifiableMap(byCode),
+                Collections.unmodifiableMap(byShortCode), Collections.unmodifiableList(active));
+        catalog = installed;
+
+        automatonCache.entrySet().removeIf(entry -> byCode.get(entry.getKey()) != entry.getValue().source());
+
+        log.info("Service catalog loaded: version={}, {} services ({} active)",
+                version, byCode.size(), active.size());
+        return installed;
+    }
+
+    // ========== INVALIDATION (LISTEN/NOTIFY + POLLING) ==========
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        refresh();
+
+        ConnectionFactory target = connectionFactory instanceof Wrapped<?> wrapped
+                && wrapped.unwrap() instanceof ConnectionFactory unwrapped
+                        ? unwrapped
+                        : connectionFactory;
+
+        if (!listenEnabled || !"PostgreSQL".equals(target.getMetadata().getName())) {
+            log.info("Service catalog LISTEN disabled, relying on version polling");
+            return;
+        }
+
+        this.listener = listen(target)
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1))
+                        .maxBackoff(Duration.ofSeconds(30))
+                        .doBeforeRetry(signal -> log.warn("Service catalog listener lost, reconnecting: {}",
+                                signal.failure().getMessage())))
+                .subscribe(this::onNotification,
+                        error -> log.error("Service catalog listener stopped", error));
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (listener != null) {
+            listener.dispose();
+        }
+    }
+
+    /**
+     * Polling de la version du catalogue (notification perdue ou LISTEN indisponible)
+     */
+    @Scheduled(fixedDelayString = "${ussd.registry.poll-interval-ms:5000}")
+    public void pollCatalogVersion() {
+        Catalog current = catalog;
+        if (current == null) {
+            return;
+        }
+
+        serviceRepository.findCatalogVersion()
+                .filter(version -> version != current.version())
+                .flatMap(version -> reload())
+                .subscribe(
+                        loaded -> log.info("Service catalog version changed: version={}", loaded.version()),
+                        error -> log.warn("Service catalog version check failed: {}", error.getMessage()));
+    }
+
+    /**
+     * Connexion dédiée (hors pool) en LISTEN; le catalogue est rechargé à
+     * chaque (re)connexion pour rattraper les notifications manquées
+     */
+    private Flux<String> listen(ConnectionFactory factory) {
+        return Flux.usingWhen(
+                Mono.from(factory.create()).cast(PostgresqlConnection.class),
+                connection -> connection.createStatement("LISTEN " + CHANNEL)
+                        .execute()
+                        .flatMap(PostgresqlResult::getRowsUpdated)
+                        .thenMany(Flux.defer(() -> {
+                            log.info("Listening for service catalog changes on channel {}", CHANNEL);
+                            refresh();
+                            return connection.getNotifications();
+                        }))
+                        .mapNotNull(Notification::getParameter)
+                        .concatWith(Mono.error(new IllegalStateException("LISTEN connection closed"))),
+                Connection::close);
+    }
+
+    private void onNotification(String payload) {
+        long version;
+        try {
+            version = Long.parseLong(payload);
+        } catch (NumberFormatException e) {
+            version = Long.MAX_VALUE;
+        }
+
+        Catalog current = catalog;
+        if (current == null || version > current.version()) {
+            log.debug("Service catalog change notified: version={}", payload);
+            refresh();
+        }
+    }
+
+    private record Catalog(
+            long version,
+            Map<String, UssdService> byCode,
+            Map<String, UssdService> byShortCode,
+            List<UssdService> active) {
+    }
+
+    private record CachedAutomaton(UssdService source, CompiledAutomaton compiled) {
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,179 @@
+package com.network.projet.ussd.service.core;
+
+import com.network.projet.ussd.domain.model.UssdSession;
+import com.network.projet.ussd.domain.model.automaton.SessionConfig;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * SessionContext - Unité de travail d'une étape USSD
+ *
+ * La session et ses données JSON sont chargées une seule fois au début de
+ * l'étape. Toutes les étapes du moteur (pré-actions, état, post-actions,
+ * navigation) modifient cette copie en mémoire, puis SessionManager.commit()
+ * persiste le résultat en une seule sauvegarde.
+ *
+ * La session chargée n'est jamais modifiée: navigation et terminaison sont
+ * retenues ici et appliquées par commit() à une copie. Une étape qui échoue
+ * (action, sérialisation, conflit de version) laisse la session intacte.
+ *
+ * Les actions exécutées en parallèle travaillent chacune sur une copie
+ * (fork) dont les modifications sont reportées par merge() dans l'ordre
+ * de déclaration, comme en exécution séquentielle.
+ *
+ * @author Network Projet Team
+ */
+public class SessionContext {
+
+    /**
+     * Clé injectée automatiquement dans les données (non persistée)
+     */
+    static final String PHONE_NUMBER_KEY = "phoneNumber";
+
+    private final UssdSession session;
+    private final Map<String, Object> data;
+    private final SessionConfig sessionConfig;
+    private boolean dirty;
+
+    /**
+     * Fork uniquement: données à reporter sur le contexte parent
+     */
+    private final Map<String, Object> changes;
+
+    /**
+     * Navigation et terminaison en attente du commit (ou du merge d'un fork)
+     */
+    private final String baseStateId;
+    private String movedTo;
+    private boolean terminated;
+
+    SessionContext(UssdSession session, Map<String, Object> data, SessionConfig sessionConfig) {
+        this.session = session;
+        this.data = data;
+        this.sessionConfig = sessionConfig;
+        this.data.put(PHONE_NUMBER_KEY, session.getPhoneNumber());
+        this.changes = null;
+        this.baseStateId = session.getCurrentStateId();
+    }
+
+    private SessionContext(SessionContext parent) {
+        this.session = parent.session;
+        this.data = new HashMap<>(parent.data);
+        this.sessionConfig = parent.sessionConfig;
+        this.changes = new LinkedHashMap<>();
+        this.baseStateId = parent.getCurrentStateId();
+    }
+
+    /**
+     * Session telle que chargée au début de l'étape (non modifiée par l'étape)
+     */
+    public UssdSession getSession() {
+        return session;
+    }
+
+    public String getSessionId() {
+        return session.getSessionId();
+    }
+
+    /**
+     * Délais de session du service (échéance calculée au commit)
+     */
+    public SessionConfig getSessionConfig() {
+        return sessionConfig;
+    }
+
+    public String getCurrentStateId() {
+        return movedTo != null ? movedTo : baseStateId;
+    }
+
+    /**
+     * Données de session vivantes (lecture et rendu des templates)
+     */
+    public Map<String, Object> getData() {
+        return data;
+    }
+
+    public Object get(String key) {
+        return data.get(key);
+    }
+
+    /**
+     * Stocke une donnée dans la session (en mémoire)
+     */
+    public void put(String key, Object value) {
+        if (key == null) {
+            return;
+        }
+        data.put(key, value);
+        if (changes != null) {
+            changes.put(key, value);
+        }
+        dirty = true;
+    }
+
+    /**
+     * Stocke plusieurs données dans la session (en mémoire)
+     */
+    public void putAll(Map<String, Object> values) {
+        if (values == null || values.isEmpty()) {
+            return;
+        }
+        data.putAll(values);
+        if (changes != null) {
+            changes.putAll(values);
+        }
+        dirty = true;
+    }
+
+    /**
+     * Déplace la session vers un nouvel état (appliqué au commit)
+     */
+    public void moveTo(String stateId) {
+        movedTo = stateId;
+        dirty = true;
+    }
+
+    /**
+     * Termine la session à la fin de l'étape (appliqué au commit)
+     */
+    public void terminate() {
+        terminated = true;
+        dirty = true;
+    }
+
+    public boolean isTerminated() {
+        return terminated;
+    }
+
+    // ========== EXÉCUTION PARALLÈLE ==========
+
+    /**
+     * Copie isolée pour une action exécutée en parallèle
+     * (la session n'est modifiée qu'au merge)
+     */
+    SessionContext fork() {
+        return new SessionContext(this);
+    }
+
+    /**
+     * Reporte les modifications d'un fork sur ce contexte
+     */
+    void merge(SessionContext fork) {
+        if (!fork.dirty) {
+            return;
+        }
+        putAll(fork.changes);
+        if (fork.movedTo != null) {
+            moveTo(fork.movedTo);
+        }
+        if (fork.terminated) {
+            terminate();
+        }
+    }
+
+    public boolean isDirty() {
+        return dirty;
+    }
+}
@@ -0,0 +1,149 @@
+package com.network.projet.ussd.service.core;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * SessionExpiryWheel - Roue temporelle hachée des échéances des sessions actives
+ *
+ * Chaque sauvegarde d'une session active (re)programme son échéance
+ * (expiresAt) dans le seau de son tick; advance() ne parcourt que les seaux
+ * des ticks écoulés depuis l'appel précédent, sans balayage de la base.
+ *
+ * Les reprogrammations ne retirent pas l'ancienne entrée: l'échéance
+ * courante de chaque session fait foi et les entrées périmées sont ignorées
+ * au passage de leur seau. Une échéance au-delà d'un tour de roue reste dans
+ * son seau jusqu'au tour suivant.
+ *
+ * Précision: une session expire au plus un tick après son échéance.
+ *
+ * @author Network Projet Team
+ */
+@Slf4j
+@Component
+public class SessionExpiryWheel {
+
+    @Value("${ussd.session.expiry.tick-ms:1000}")
+    private long tickMs;
+
+    @Value("${ussd.session.expiry.wheel-size:512}")
+    private int wheelSize;
+
+    /**
+     * sessionId → échéance courante (epoch millis)
+     */
+    private final Map<String, Long> deadlines = new ConcurrentHashMap<>();
+
+    private List<Queue<Timeout>> buckets;
+    private int mask;
+
+    /**
+     * Dernier tick entièrement traité
+     */
+    private volatile long lastTick;
+
+    @PostConstruct
+    void init() {
+        int size = Integer.highestOneBit(Math.max(wheelSize, 2) - 1) << 1;
+        this.buckets = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            buckets.add(new ConcurrentLinkedQueue<>());
+        }
+        this.mask = size - 1;
+        this.lastTick = System.currentTimeMillis() / tickMs - 1;
+
+        log.info("Session expiry wheel initialized: {} buckets of {}ms", size, tickMs);
+    }
+
+    /**
+     * Programme (ou reprogramme) l'échéance d'une session
+     */
+    public void schedule(String sessionId, LocalDateTime expiresAt) {
+        if (sessionId == null || expiresAt == null) {
+            return;
+        }
+
+        long deadline = expiresAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        Long previous = deadlines.put(sessionId, deadline);
+        if (previous != null && previous == deadline) {
+            return;
+        }
+
+        // Échéance dans un tick déjà traité: seau du prochain tick
+        long tick = Math.max(deadline / tickMs, lastTick + 1);
+        buckets.get((int) (tick & mask)).add(new Timeout(sessionId, deadline));
+    }
+
+    /**
+     * Retire une session de la roue (terminée)
+     */
+    public void cancel(String sessionId) {
+        if (sessionId != null) {
+            deadlines.remove(sessionId);
+        }
+    }
+
+    /**
+     * Avance la roue jusqu'au dernier tick écoulé
+     *
+     * @return Sessions dont l'échéance est passée (retirées de la roue)
+     */
+    public synchronized List<String> advance(long nowMillis) {
+        long target = nowMillis / tickMs - 1;
+        if (target <= lastTick) {
+            return List.of();
+        }
+
+        List<String> expired = new ArrayList<>();
+        // Après une pause de plus d'un tour, chaque seau n'est parcouru qu'une fois
+        long from = Math.max(lastTick + 1, target - mask);
+
+        for (long tick = from; tick <= target; tick++) {
+            Queue<Timeout> bucket = buckets.get((int) (tick & mask));
+
+            for (int pending = bucket.size(); pending > 0; pending--) {
+                Timeout timeout = bucket.poll();
+                if (timeout == null) {
+                    break;
+                }
+
+                Long current = deadlines.get(timeout.sessionId());
+                if (current == null || current != timeout.deadline()) {
+                    continue; // annulée ou reprogrammée
+                }
+
+                if (timeout.deadline() <= nowMillis) {
+                    if (deadlines.remove(timeout.sessionId(), current)) {
+                        expired.add(timeout.sessionId());
+                    }
+                } else {
+                    bucket.add(timeout); // tour suivant
+                }
+            }
+        }
+
+        lastTick = target;
+        return expired;
+    }
+
+    /**
+     * Nombre de sessions suivies
+     */
+    public int getTrackedSessions() {
+        return deadlines.size();
+    }
+
+    private record Timeout(String sessionId, long deadline) {
+    }
+}
@@ -0,0 +1,91 @@
+package com.network.projet.ussd.service.core;
+
+import com.network.projet.ussd.exception.SessionBusyException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * SessionLanes - File d'exécution par sessionId
+ *
+ * Les requêtes dupliquées ou qui se chevauchent pour une même session
+ * (relances de l'opérateur, double saisie) s'exécutent strictement l'une
+ * après l'autre: chacune attend la fin de la précédente avant de lire la
+ * session. Les sessions différentes restent entièrement parallèles.
+ *
+ * Chaque file ne contient que la fin de la dernière étape en attente ou en
+ * cours; elle est retirée dès que la session n'a plus d'étape en vol. Une
+ * étape ne rend son tour qu'une fois l'étape précédente terminée, même si
+ * elle échoue ou est annulée pendant son attente.
+ * Non réentrant: une étape ne doit pas ouvrir une seconde étape sur la même
+ * session.
+ *
+ * @author Network Projet Team
+ */
+@Slf4j
+@Component
+public class SessionLanes {
+
+    @Value("${ussd.session.lane.wait-timeout-ms:10000}")
+    private long waitTimeoutMs;
+
+    /**
+     * sessionId → fin de la dernière étape mise en file
+     */
+    private final Map<String, Mono<Void>> tails = new ConcurrentHashMap<>();
+
+    /**
+     * Exécute une étape après toutes celles déjà en file pour la session
+     *
+     * @throws SessionBusyException (signal d'erreur) si l'étape précédente
+     *                              dépasse le délai d'attente
+     */
+    public <T> Mono<T> run(String sessionId, Supplier<Mono<T>> step) {
+        if (sessionId == null || sessionId.isEmpty()) {
+            return Mono.defer(step);
+        }
+
+        return Mono.defer(() -> {
+            Sinks.Empty<Void> released = Sinks.empty();
+            Mono<Void> turn = released.asMono();
+            Mono<Void> previous = tails.put(sessionId, turn);
+
+            Mono<Void> wait = Mono.empty();
+            if (previous != null) {
+                log.debug("Session {} busy, step queued", sessionId);
+                wait = previous.timeout(Duration.ofMillis(waitTimeoutMs),
+                        Mono.error(() -> new SessionBusyException(sessionId)));
+            }
+
+            Runnable release = () -> {
+                released.tryEmitEmpty();
+                tails.remove(sessionId, turn);
+            };
+
+            return wait.then(Mono.defer(step))
+                    .doFinally(signal -> {
+                        if (previous == null) {
+                            release.run();
+                        } else {
+                            // Étape abandonnée en attente (délai, annulation): le tour n'est
+                            // rendu qu'après l'étape précédente, jamais en parallèle d'elle
+                            previous.doFinally(s -> release.run()).subscribe();
+                        }
+                    });
+        });
+    }
+
+    /**
+     * Nombre de sessions ayant au moins une étape en vol
+     */
+    public int getActiveLanes() {
+        return tails.size();
+    }
+}
@@ -3,15 +3,15 @@ package com.network.projet.ussd.service.core;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.network.projet.ussd.domain.model.UssdSession;
-import com.network.projet.ussd.domain.model.automaton.State;
-import com.network.projet.ussd.repository.UssdSessionRepository;
+import com.network.projet.ussd.domain.model.automaton.CompiledAutomaton;
+import com.network.projet.ussd.domain.model.automaton.SessionConfig;
+import com.network.projet.ussd.service.store.SessionStore;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Mono;
 
-import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.Map;
@@ -21,11 +21,19 @@ import java.util.Map;
 @RequiredArgsConstructor
 public class SessionManager {
 
-    private final UssdSessionRepository sessionRepository;
+    private final SessionStore sessionStore;
+    private final SessionWriteBehindCache sessionCache;
+    private final SessionLanes sessionLanes;
     private final ServiceRegistry serviceRegistry;
     private final ObjectMapper objectMapper;
 
-    private static final Duration SESSION_TIMEOUT = Duration.ofMinutes(5);
+    /**
+     * Service sans sessionConfig: délai d'inactivité par défaut, sans durée de vie absolue
+     */
+    private static final SessionConfig NO_SESSION_CONFIG = new SessionConfig();
+
+    @Value("${ussd.session.timeout-minutes:5}")
+    private long defaultInactivityMinutes;
 
     /**
      * Récupère une session existante ou en crée une nouvelle
@@ -35,7 +43,7 @@ public class SessionManager {
                 sessionId, phoneNumber, ussdCode);
 
         if (sessionId != null && !sessionId.isEmpty()) {
-            return sessionRepository.findBySessionId(sessionId)
+            return sessionCache.findBySessionId(sessionId)
                     .flatMap(session -> {
                         if (!session.isActive() || session.isExpired()) {
                             log.info("Session {} is inactive/expired, creating new", sessionId);
@@ -46,7 +54,8 @@ public class SessionManager {
                     .switchIfEmpty(createNewSession(sessionId, phoneNumber, ussdCode));
         }
 
-        return sessionRepository.findByPhoneNumberAndIsActiveTrue(phoneNumber)
+        return sessionStore.findActiveByPhoneNumber(phoneNumber)
+                .map(sessionCache::resolve)
                 .flatMap(existingSession -> {
                     if (existingSession.isExpired()) {
                         return expireAndCreateNew(existingSession, phoneNumber, ussdCode);
@@ -63,83 +72,53 @@ public class SessionManager {
         log.debug("Updating session: {}", session.getSessionId());
 
         session.preUpdate();
-        return sessionRepository.save(session)
+        return sessionCache.save(session)
                 .doOnSuccess(s -> log.debug("Session updated: {}", s.getSessionId()))
                 .doOnError(e -> log.error("Failed to update session: {}", session.getSessionId(), e));
     }
 
     /**
-     * Stocke une donnée dans la session
+     * Ouvre l'unité de travail d'une étape sur une session déjà chargée
+     * (aucun accès base: sessionData est parsé une seule fois)
      */
-    public Mono<Void> storeSessionData(String sessionId, String key, Object value) {
-        log.debug(">>> STORE START: sessionId={}, key={}, value={}", sessionId, key, value);
-
-        return sessionRepository.findBySessionId(sessionId)
-                .switchIfEmpty(Mono.error(new RuntimeException("Session not found: " + sessionId)))
-                .flatMap(session -> {
-                    try {
-                        Map<String, Object> data = parseSessionData(session.getSessionData());
-
-                        log.debug(">>> BEFORE store - existing keys: {}", data.keySet());
-                        data.put(key, value);
-                        log.debug(">>> AFTER put - new keys: {}", data.keySet());
-                        log.debug(">>> Value for '{}': {}", key, data.get(key));
-
-                        String jsonData = objectMapper.writeValueAsString(data);
-                        session.setSessionData(jsonData);
-                        session.preUpdate();
-
-                        log.debug(">>> Saving to DB...");
-                        return sessionRepository.save(session)
-                                .doOnSuccess(saved -> {
-                                    log.debug(">>> SAVE SUCCESS");
-                                    log.debug(">>> Saved sessionData: {}", saved.getSessionData());
-                                })
-                                .then();
-
-                    } catch (Exception e) {
-                        log.error("Failed to store data for session: {}", sessionId, e);
-                        return Mono.error(new RuntimeException("Failed to store session data", e));
-                    }
-                })
-                .doOnSuccess(v -> log.debug(">>> STORE END: Successfully stored {}={}", key, value))
-                .doOnError(e -> log.error(">>> STORE ERROR for key: {}", key, e));
+    public SessionContext openContext(UssdSession session, CompiledAutomaton automaton) {
+        return new SessionContext(session, parseSessionData(session.getSessionData()),
+                automaton != null ? automaton.getSessionConfig() : null);
     }
 
     /**
-     * Store multiple key-value pairs in ONE database operation (no race condition)
+     * Persiste l'unité de travail en une seule sauvegarde
+     * (données, état courant, expiration glissante et éventuelle terminaison)
+     *
+     * Appliquée à une copie de la session chargée: en cas d'échec, la session
+     * chargée (et la copie du tier mémoire) restent dans leur état précédent
      */
-    public Mono<Void> storeBatchData(String sessionId, Map<String, Object> dataToStore) {
-        if (dataToStore == null || dataToStore.isEmpty()) {
-            return Mono.empty();
+    public Mono<UssdSession> commit(SessionContext context) {
+        UssdSession session = context.getSession().toBuilder().build();
+        session.setCurrentStateId(context.getCurrentStateId());
+        if (context.isTerminated()) {
+            session.terminate();
         }
 
-        log.debug(">>> BATCH STORE START: sessionId={}, keys={}", sessionId, dataToStore.keySet());
-
-        return sessionRepository.findBySessionId(sessionId)
-                .switchIfEmpty(Mono.error(new RuntimeException("Session not found: " + sessionId)))
-                .flatMap(session -> {
-                    try {
-                        Map<String, Object> existingData = parseSessionData(session.getSessionData());
-
-                        log.debug(">>> BEFORE batch - existing keys: {}", existingData.keySet());
-                        existingData.putAll(dataToStore); // Ajoute TOUTES les nouvelles données d'un coup
-                        log.debug(">>> AFTER batch - new keys: {}", existingData.keySet());
-
-                        String jsonData = objectMapper.writeValueAsString(existingData);
-                        session.setSessionData(jsonData);
-                        session.preUpdate();
+        try {
+            Map<String, Object> data = new HashMap<>(context.getData());
+            data.remove(SessionContext.PHONE_NUMBER_KEY);
+            session.setSessionData(objectMapper.writeValueAsString(data));
+        } catch (Exception e) {
+            log.error("Failed to serialize session data: {}", session.getSessionId(), e);
+            return Mono.error(new RuntimeException("Failed to store session data", e));
+        }
 
-                        return sessionRepository.save(session)
-                                .doOnSuccess(saved -> log.debug(">>> BATCH SAVED: {}", saved.getSessionData()))
-                                .then();
+        if (session.isActive()) {
+            session.touch(computeExpiry(session.getCreatedAt(), context.getSessionConfig()));
+        } else {
+            session.preUpdate();
+        }
 
-                    } catch (Exception e) {
-                        log.error("Failed to batch store data", e);
-                        return Mono.error(new RuntimeException("Failed to batch store", e));
-                    }
-                })
-                .doOnSuccess(v -> log.debug(">>> BATCH COMPLETE: {} keys stored", dataToStore.size()));
+        return sessionCache.save(session)
+                .doOnSuccess(s -> log.debug("Session committed: sessionId={}, state={}, active={}",
+                        s.getSessionId(), s.getCurrentStateId(), s.getIsActive()))
+                .doOnError(e -> log.error("Failed to commit session: {}", session.getSessionId(), e));
     }
 
     /**
@@ -149,7 +128,7 @@ public class SessionManager {
     public Mono<Map<String, Object>> getSessionData(String sessionId) {
         log.debug("Getting session data: sessionId={}", sessionId);
 
-        return sessionRepository.findBySessionId(sessionId)
+        return sessionCache.findBySessionId(sessionId)
                 .map(session -> {
                     Map<String, Object> data = parseSessionData(session.getSessionData());
 
@@ -168,29 +147,36 @@ public class SessionManager {
     public Mono<Void> endSession(String sessionId) {
         log.info("Ending session: {}", sessionId);
 
-        return sessionRepository.findBySessionId(sessionId)
+        return sessionLanes.run(sessionId, () -> sessionCache.findBySessionId(sessionId)
                 .flatMap(session -> {
                     session.terminate();
-                    return sessionRepository.save(session);
-                })
+                    return sessionCache.save(session);
+                }))
                 .then()
                 .doOnSuccess(v -> log.info("Session ended: {}", sessionId))
                 .doOnError(e -> log.error("Error ending session: {}", sessionId, e));
     }
 
     /**
-     * Termine une session par ID technique
+     * Réactive une session archivée (support client): une copie active est
+     * recréée dans le store, avec une échéance recalculée selon sa SessionConfig
+     *
+     * @return false si une session active existe déjà pour ce sessionId
      */
-    public Mono<Void> terminateSession(Long id) {
-        log.info("Terminating session by id: {}", id);
+    public Mono<Boolean> reactivateSession(UssdSession archived) {
+        String sessionId = archived.getSessionId();
 
-        return sessionRepository.findById(id)
-                .flatMap(session -> {
-                    session.terminate();
-                    return sessionRepository.save(session);
-                })
-                .then()
-                .doOnSuccess(v -> log.info("Session terminated: {}", id));
+        return sessionLanes.run(sessionId, () -> sessionCache.findBySessionId(sessionId)
+                .map(active -> false)
+                .switchIfEmpty(Mono.defer(() -> {
+                    UssdSession session = archived.toBuilder()
+                            .id(null)
+                            .version(null)
+                            .isActive(true)
+                            .createdAt(LocalDateTime.now())
+                            .build();
+                    return updateSessionExpiration(session).thenReturn(true);
+                })));
     }
 
     /**
@@ -201,19 +187,19 @@ public class SessionManager {
                 sessionId, phoneNumber, ussdCode);
 
         return serviceRegistry.getServiceByShortCode(ussdCode)
-                .flatMap(service -> serviceRegistry.loadAutomaton(service.getCode())
-                        .map(automaton -> findInitialState(automaton))
-                        .map(initialState -> {
+                .flatMap(service -> serviceRegistry.loadCompiledAutomaton(service.getCode())
+                        .map(automaton -> {
+                            LocalDateTime now = LocalDateTime.now();
                             UssdSession session = UssdSession.builder()
                                     .sessionId(sessionId)
                                     .phoneNumber(phoneNumber)
                                     .serviceCode(service.getCode()) // CODE TECHNIQUE
-                                    .currentStateId(initialState.getId())
+                                    .currentStateId(automaton.getInitialState().getId())
                                     .sessionData("{}")
                                     .isActive(true)
-                                    .createdAt(LocalDateTime.now())
-                                    .updatedAt(LocalDateTime.now())
-                                    .expiresAt(LocalDateTime.now().plus(SESSION_TIMEOUT))
+                                    .createdAt(now)
+                                    .updatedAt(now)
+                                    .expiresAt(computeExpiry(now, automaton.getSessionConfig()))
                                     .build();
 
                             session.prePersist();
@@ -221,6 +207,7 @@ public class SessionManager {
                         }))
                 .switchIfEmpty(Mono.defer(() -> {
                     log.warn("Service not found for ussdCode: {}, creating session with default state", ussdCode);
+                    LocalDateTime now = LocalDateTime.now();
                     UssdSession session = UssdSession.builder()
                             .sessionId(sessionId)
                             .phoneNumber(phoneNumber)
@@ -228,14 +215,14 @@ public class SessionManager {
                             .currentStateId("1")
                             .sessionData("{}")
                             .isActive(true)
-                            .createdAt(LocalDateTime.now())
-                            .updatedAt(LocalDateTime.now())
-                            .expiresAt(LocalDateTime.now().plus(SESSION_TIMEOUT))
+                            .createdAt(now)
+                            .updatedAt(now)
+                            .expiresAt(computeExpiry(now, NO_SESSION_CONFIG))
                             .build();
                     session.prePersist();
                     return Mono.just(session);
                 }))
-                .flatMap(sessionRepository::save)
+                .flatMap(sessionCache::save)
                 .doOnSuccess(s -> log.info("Session created: sessionId={}, phone={}, serviceCode={}",
                         s.getSessionId(), s.getPhoneNumber(), s.getServiceCode()))
                 .doOnError(e -> log.error("Failed to create session for phone: {}", phoneNumber, e));
@@ -247,52 +234,49 @@ public class SessionManager {
     private Mono<UssdSession> updateSessionExpiration(UssdSession session) {
         log.trace("Updating session expiration: {}", session.getSessionId());
 
-        session.touch(SESSION_TIMEOUT);
-        return sessionRepository.save(session);
+        return serviceRegistry.loadCompiledAutomaton(session.getServiceCode())
+                .mapNotNull(CompiledAutomaton::getSessionConfig)
+                .onErrorResume(e -> Mono.empty())
+                .defaultIfEmpty(NO_SESSION_CONFIG)
+                .flatMap(config -> {
+                    session.touch(computeExpiry(session.getCreatedAt(), config));
+                    return sessionCache.save(session);
+                });
     }
 
     /**
-     * Expire une session et en crée une nouvelle
+     * Échéance d'une session selon la SessionConfig de son service:
+     * la première atteinte entre l'inactivité (maintenant + maxInactivitySeconds,
+     * ussd.session.timeout-minutes par défaut) et la durée de vie absolue
+     * (création + timeoutSeconds, si définie)
      */
-    private Mono<UssdSession> expireAndCreateNew(UssdSession oldSession, String phoneNumber, String ussdCode) {
-        log.info("Expiring session {} and creating new one", oldSession.getSessionId());
+    private LocalDateTime computeExpiry(LocalDateTime createdAt, SessionConfig config) {
+        LocalDateTime now = LocalDateTime.now();
+        SessionConfig effective = config != null ? config : NO_SESSION_CONFIG;
 
-        oldSession.terminate();
-        return sessionRepository.save(oldSession)
-                .then(createNewSession(oldSession.getSessionId(), phoneNumber, ussdCode));
-    }
+        LocalDateTime expiry = effective.getMaxInactivitySeconds() != null
+                ? now.plusSeconds(effective.getMaxInactivitySeconds())
+                : now.plusMinutes(defaultInactivityMinutes);
 
-    /**
-     * Trouve l'état initial dans l'automate
-     */
-    private State findInitialState(com.network.projet.ussd.domain.model.automaton.AutomatonDefinition automaton) {
-        return automaton.getStates().stream()
-                .filter(state -> Boolean.TRUE.equals(state.getIsInitial()))
-                .findFirst()
-                .orElseThrow(() -> new RuntimeException("No initial state found in automaton"));
+        if (effective.getTimeoutSeconds() != null) {
+            LocalDateTime lifetime = (createdAt != null ? createdAt : now)
+                    .plusSeconds(effective.getTimeoutSeconds());
+            if (lifetime.isBefore(expiry)) {
+                expiry = lifetime;
+            }
+        }
+        return expiry;
     }
 
     /**
-     * Tâche planifiée: Nettoie les sessions expirées toutes les minutes
+     * Expire une session et en crée une nouvelle
      */
-    @Scheduled(fixedRate = 60000)
-    public void cleanupExpiredSessions() {
-        LocalDateTime now = LocalDateTime.now();
-
-        log.debug("Running expired sessions cleanup (threshold: {})", now);
-
-        sessionRepository.findByIsActiveTrueAndExpiresAtBefore(now)
-                .flatMap(session -> {
-                    log.info("Cleaning up expired session: sessionId={}, phone={}, expiresAt={}",
-                            session.getSessionId(), session.getPhoneNumber(), session.getExpiresAt());
+    private Mono<UssdSession> expireAndCreateNew(UssdSession oldSession, String phoneNumber, String ussdCode) {
+        log.info("Expiring session {} and creating new one", oldSession.getSessionId());
 
-                    session.terminate();
-                    return sessionRepository.save(session);
-                })
-                .subscribe(
-                        session -> log.debug("Session expired: {}", session.getSessionId()),
-                        error -> log.error("Error during session cleanup", error),
-                        () -> log.trace("Session cleanup completed"));
+        oldSession.terminate();
+        return sessionCache.save(oldSession)
+                .then(createNewSession(oldSession.getSessionId(), phoneNumber, ussdCode));
     }
 
     /**
@@ -319,7 +303,7 @@ public class SessionManager {
     public Mono<UssdSession> getSession(String sessionId) {
         log.debug("Getting session by sessionId: {}", sessionId);
 
-        return sessionRepository.findBySessionId(sessionId)
+        return sessionCache.findBySessionId(sessionId)
                 .doOnSuccess(session -> {
                     if (session != null) {
                         log.debug("Session found: sessionId={}, phone={}, currentState={}",
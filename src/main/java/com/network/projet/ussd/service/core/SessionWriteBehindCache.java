@@ -0,0 +1,362 @@
+package com.network.projet.ussd.service.core;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.network.projet.ussd.domain.model.UssdSession;
+import com.network.projet.ussd.service.store.SessionStore;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * SessionWriteBehindCache - Tier mémoire (Caffeine) devant le SessionStore
+ *
+ * Rôle: Garder les dialogues actifs en mémoire pour ne pas solliciter
+ * le store (PostgreSQL, Redis...) à chaque touche.
+ *
+ * Responsabilités:
+ * - Lectures servies depuis la mémoire (read-through sur cache miss)
+ * - Écritures coalescées par sessionId et flushées en lots de façon asynchrone
+ * - Flush synchrone pour les sessions terminées (état final, expiration)
+ * - Flush des entrées sales évincées du cache et à l'arrêt de l'application
+ * - Échéance de chaque session active tenue à jour dans SessionExpiryWheel
+ * - Conflits de version (session modifiée par un autre nœud): la copie
+ * mémoire est abandonnée et la session sera relue depuis le store
+ *
+ * Le tier mémoire ne contient que l'état validé: les lectures renvoient une
+ * copie et les écritures en conservent une, si bien qu'une étape qui modifie
+ * sa session sans la sauvegarder ne laisse aucune trace dans le cache.
+ *
+ * Les flush différés passent par la file de la session (SessionLanes) pour
+ * ne jamais sauvegarder une session pendant qu'une étape la modifie.
+ *
+ * @author Network Projet Team
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SessionWriteBehindCache {
+
+    private final SessionStore sessionStore;
+    private final SessionLanes sessionLanes;
+    private final SessionExpiryWheel expiryWheel;
+
+    @Value("${ussd.session.cache.max-size:100000}")
+    private long maxSize;
+
+    @Value("${ussd.session.cache.expire-after-access-seconds:600}")
+    private long expireAfterAccessSeconds;
+
+    @Value("${ussd.session.cache.flush-batch-size:500}")
+    private int flushBatchSize;
+
+    private Cache<String, UssdSession> sessions;
+
+    /**
+     * Sessions modifiées en mémoire et pas encore persistées (coalescées par sessionId)
+     */
+    private final Map<String, UssdSession> dirtySessions = new ConcurrentHashMap<>();
+
+    private final AtomicBoolean flushing = new AtomicBoolean(false);
+
+    @PostConstruct
+    void init() {
+        this.sessions = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterAccess(Duration.ofSeconds(expireAfterAccessSeconds))
+                .evictionListener(this::onEviction)
+                .build();
+
+        log.info("Session hot tier initialized: maxSize={}, expireAfterAccess={}s, batchSize={}",
+                maxSize, expireAfterAccessSeconds, flushBatchSize);
+    }
+
+    // ========== LECTURE ==========
+
+    /**
+     * Trouve une session active par sessionId (mémoire puis store)
+     * Retourne une copie: la modifier n'affecte pas le tier mémoire
+     */
+    public Mono<UssdSession> findBySessionId(String sessionId) {
+        if (sessionId == null) {
+            return Mono.empty();
+        }
+
+        UssdSession cached = sessions.getIfPresent(sessionId);
+        if (cached != null) {
+            log.trace("Session cache hit: {}", sessionId);
+            return Mono.just(copy(cached));
+        }
+
+        return sessionStore.get(sessionId)
+                .map(this::resolve);
+    }
+
+    /**
+     * Retourne la copie mémoire d'une session chargée depuis le store si elle existe
+     * (la copie mémoire peut contenir des écritures pas encore flushées)
+     */
+    public UssdSession resolve(UssdSession loaded) {
+        if (loaded == null || loaded.getSessionId() == null) {
+            return loaded;
+        }
+
+        UssdSession cached = sessions.getIfPresent(loaded.getSessionId());
+        if (cached != null) {
+            return copy(cached);
+        }
+
+        if (loaded.isActive()) {
+            sessions.put(loaded.getSessionId(), copy(loaded));
+            expiryWheel.schedule(loaded.getSessionId(), loaded.getExpiresAt());
+        }
+        return loaded;
+    }
+
+    // ========== ÉCRITURE ==========
+
+    /**
+     * Enregistre une session
+     * - nouvelle session (sans version) ou session terminée: écriture synchrone
+     * - session active existante: écriture différée (write-behind)
+     */
+    public Mono<UssdSession> save(UssdSession session) {
+        if (session.isActive()) {
+            expiryWheel.schedule(session.getSessionId(), session.getExpiresAt());
+        } else {
+            expiryWheel.cancel(session.getSessionId());
+        }
+
+        if (session.getVersion() == null || !session.isActive()) {
+            return flushNow(session);
+        }
+
+        UssdSession snapshot = copy(session);
+        sessions.put(session.getSessionId(), snapshot);
+        dirtySessions.put(session.getSessionId(), snapshot);
+        return Mono.just(session);
+    }
+
+    /**
+     * Écrit immédiatement une session dans le store et met à jour le tier mémoire
+     * (id et version attribués par le store sont reportés sur la session passée)
+     *
+     * @throws OptimisticLockingFailureException (signal d'erreur) si la session
+     *                                           a été modifiée entre-temps
+     */
+    public Mono<UssdSession> flushNow(UssdSession session) {
+        String sessionId = session.getSessionId();
+        dirtySessions.remove(sessionId);
+
+        return sessionStore.compareAndSet(session)
+                .flatMap(written -> written
+                        ? Mono.just(session)
+                        : Mono.<UssdSession>error(new OptimisticLockingFailureException(
+                                "Session modified concurrently: " + sessionId)))
+                .doOnSuccess(saved -> {
+                    if (saved.isActive()) {
+                        sessions.put(sessionId, copy(saved));
+                    } else {
+                        sessions.invalidate(sessionId);
+                    }
+                })
+                .doOnError(OptimisticLockingFailureException.class, error -> {
+                    log.warn("Session version conflict, dropping in-memory copy: sessionId={}, version={}",
+                            sessionId, session.getVersion());
+                    sessions.invalidate(sessionId);
+                });
+    }
+
+    /**
+     * Retire une session du tier mémoire (après flush éventuel)
+     */
+    public Mono<Void> evict(String sessionId) {
+        UssdSession pending = dirtySessions.remove(sessionId);
+        sessions.invalidate(sessionId);
+
+        return pending != null ? persist(pending).then() : Mono.empty();
+    }
+
+    // ========== EXPIRATION ==========
+
+    /**
+     * Libère le tier mémoire d'une session arrivée à échéance
+     * (à appeler dans la file de la session)
+     * - copie mémoire prolongée entre-temps: rien à faire
+     * - écriture en attente: persistée directement comme session terminée
+     *
+     * @return true si la session reste à désactiver dans le store
+     */
+    public Mono<Boolean> expire(String sessionId) {
+        UssdSession cached = sessions.getIfPresent(sessionId);
+        if (cached != null && cached.isActive() && !cached.isExpired()) {
+            return Mono.just(false);
+        }
+
+        UssdSession pending = dirtySessions.remove(sessionId);
+        sessions.invalidate(sessionId);
+        if (pending == null) {
+            return Mono.just(true);
+        }
+
+        pending.terminate();
+        return persist(pending).thenReturn(false);
+    }
+
+    // ========== FLUSH ==========
+
+    /**
+     * Flush périodique des écritures coalescées, par lots
+     */
+    @Scheduled(fixedDelayString = "${ussd.session.cache.flush-interval-ms:500}")
+    public void flushDirtySessions() {
+        if (dirtySessions.isEmpty() || !flushing.compareAndSet(false, true)) {
+            return;
+        }
+
+        List<String> batch = nextBatch();
+
+        // l'entrée sale est retirée dans la file de la session: une étape ne
+        // peut pas s'intercaler entre ce retrait et la sauvegarde
+        Flux.fromIterable(batch)
+                .flatMap(sessionId -> sessionLanes.run(sessionId, () -> flushPending(sessionId))
+                        .onErrorResume(error -> {
+                            log.warn("Session write-behind flush postponed: {} ({})",
+                                    sessionId, error.toString());
+                            return Mono.empty();
+                        }))
+                .count()
+                .doFinally(signal -> flushing.set(false))
+                .subscribe(count -> {
+                    if (count > 0) {
+                        log.debug("Session write-behind flush: {} sessions persisted", count);
+                    }
+                });
+    }
+
+    /**
+     * Flush complet à l'arrêt de l'application
+     */
+    @PreDestroy
+    public void flushAll() {
+        if (dirtySessions.isEmpty()) {
+            return;
+        }
+
+        List<UssdSession> pending = new ArrayList<>(dirtySessions.values());
+        dirtySessions.clear();
+
+        log.info("Flushing {} pending sessions before shutdown", pending.size());
+        Flux.fromIterable(pending)
+                .concatMap(this::persist)
+                .then()
+                .block(Duration.ofSeconds(30));
+    }
+
+    /**
+     * Nombre de sessions en attente d'écriture
+     */
+    public int getPendingWrites() {
+        return dirtySessions.size();
+    }
+
+    /**
+     * Nombre de sessions présentes en mémoire
+     */
+    public long getCachedSessions() {
+        return sessions.estimatedSize();
+    }
+
+    private List<String> nextBatch() {
+        List<String> batch = new ArrayList<>(Math.min(flushBatchSize, dirtySessions.size()));
+
+        for (String sessionId : dirtySessions.keySet()) {
+            if (batch.size() >= flushBatchSize) {
+                break;
+            }
+            batch.add(sessionId);
+        }
+
+        return batch;
+    }
+
+    /**
+     * Persiste l'écriture en attente d'une session (à appeler dans sa file);
+     * remise en attente si le store échoue
+     */
+    private Mono<UssdSession> flushPending(String sessionId) {
+        UssdSession session = dirtySessions.remove(sessionId);
+        if (session == null) {
+            return Mono.empty();
+        }
+
+        return persist(session)
+                .onErrorResume(error -> {
+                    log.error("Session write-behind flush failed, re-queuing: {}", sessionId, error);
+                    dirtySessions.putIfAbsent(sessionId, session);
+                    return Mono.empty();
+                });
+    }
+
+    private static UssdSession copy(UssdSession session) {
+        return session.toBuilder().build();
+    }
+
+    /**
+     * Sauvegarde différée; en cas de conflit de version la copie mémoire est abandonnée
+     */
+    private Mono<UssdSession> persist(UssdSession session) {
+        return sessionStore.compareAndSet(session)
+                .flatMap(written -> {
+                    if (!written) {
+                        discard(session);
+                        return Mono.empty();
+                    }
+                    return Mono.just(session);
+                });
+    }
+
+    /**
+     * Abandonne une copie mémoire périmée (version modifiée par un autre nœud)
+     */
+    private void discard(UssdSession session) {
+        log.warn("Session version conflict, dropping in-memory copy: sessionId={}, version={}",
+                session.getSessionId(), session.getVersion());
+        dirtySessions.remove(session.getSessionId(), session);
+        sessions.asMap().remove(session.getSessionId(), session);
+    }
+
+    /**
+     * Une session sale évincée du cache (taille ou inactivité) est persistée
+     */
+    private void onEviction(String sessionId, UssdSession session, RemovalCause cause) {
+        if (sessionId == null || session == null) {
+            return;
+        }
+
+        if (dirtySessions.get(sessionId) == session) {
+            log.debug("Flushing evicted session: sessionId={}, cause={}", sessionId, cause);
+            sessionLanes.run(sessionId, () -> dirtySessions.remove(sessionId, session)
+                            ? persist(session)
+                            : Mono.<UssdSession>empty())
+                    .subscribe(
+                            saved -> log.trace("Evicted session persisted: {}", sessionId),
+                            error -> log.error("Failed to persist evicted session: {}", sessionId, error));
+        }
+    }
+}
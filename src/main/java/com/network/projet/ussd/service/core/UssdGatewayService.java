@@ -1,16 +1,20 @@
 package com.network.projet.ussd.service.core;
 
+import com.network.projet.ussd.domain.enums.StateType;
 import com.network.projet.ussd.domain.model.UssdSession;
-import com.network.projet.ussd.domain.model.automaton.AutomatonDefinition;
-import com.network.projet.ussd.domain.model.automaton.State;
+import com.network.projet.ussd.domain.model.automaton.CompiledState;
 import com.network.projet.ussd.dto.request.UssdRequest;
-import com.network.projet.ussd.exception.InvalidStateException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Mono;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 
 @Slf4j
 @Service
@@ -20,13 +24,25 @@ public class UssdGatewayService {
 	private final ServiceRegistry serviceRegistry;
 	private final SessionManager sessionManager;
 	private final AutomatonEngine automatonEngine;
+	private final MainMenuRenderer mainMenuRenderer;
 
 	private static final String MAIN_MENU_CODE = "*500#";
+	private static final String CHAIN_SEPARATOR = "*";
+
+	@Value("${ussd.chained-input.enabled:true}")
+	private boolean chainedInputEnabled;
+
+	@Value("${ussd.chained-input.max-steps:10}")
+	private int maxChainSteps;
 
 	/**
 	 * Processes a USSD request
+	 *
+	 * @param fromDialString true quand le texte provient du code composé d'une
+	 *                       nouvelle session (*500*1*2# ou sélection du menu
+	 *                       principal): il est alors toujours découpé en étapes
 	 */
-	public Mono<StateResult> processRequest(UssdRequest request, UssdSession session) {
+	public Mono<StateResult> processRequest(UssdRequest request, UssdSession session, boolean fromDialString) {
 		log.info("Processing USSD Request: ussdCode={}, phone={}, sessionId={}, currentState={}",
 				request.getUssdCode(), request.getPhoneNumber(),
 				session != null ? session.getSessionId() : "NEW",
@@ -35,7 +51,7 @@ public class UssdGatewayService {
 		if (session == null || isSessionExpired(session)) {
 			return initializeNewSession(request);
 		} else {
-			return continueExistingSession(request, session);
+			return continueExistingSession(request, session, fromDialString);
 		}
 	}
 
@@ -53,26 +69,110 @@ public class UssdGatewayService {
 	/**
 	 * Continues an existing session
 	 */
-	private Mono<StateResult> continueExistingSession(UssdRequest request, UssdSession session) {
+	private Mono<StateResult> continueExistingSession(UssdRequest request, UssdSession session,
+			boolean fromDialString) {
 		String input = request.getText();
 
 		log.debug("Continuing session: sessionId={}, currentState={}, input='{}'",
 				session.getSessionId(), session.getCurrentStateId(), input);
 
-		return serviceRegistry.loadAutomaton(session.getServiceCode())
-				.flatMap(automaton -> automatonEngine.processInput(session, automaton, input))
-				.flatMap(result -> {
-					log.debug("State execution result: nextState={}, continue={}",
-							result.getNextStateId(), result.isContinueSession());
+		// NE PAS appeler updateSession/terminateSession ici: AutomatonEngine persiste
+		// l'étape (ou la chaîne d'étapes) et la terminaison éventuelle en une seule sauvegarde
+		return serviceRegistry.loadCompiledAutomaton(session.getServiceCode())
+				.flatMap(automaton -> {
+					// Réponse à une saisie libre (INPUT...): "*" fait partie du texte
+					boolean chainable = fromDialString
+							|| automaton.getState(session.getCurrentStateId()).getType() == StateType.MENU;
+					List<String> inputs = chainable ? splitChainedInput(input) : List.of(input);
+
+					if (inputs.size() > maxChainSteps) {
+						log.warn("Chained input rejected: {} steps > max {}, sessionId={}",
+								inputs.size(), maxChainSteps, session.getSessionId());
+						return Mono.just(StateResult.builder()
+								.message("❌ Trop d'entrées enchaînées (" + maxChainSteps + " maximum). Réessayez.")
+								.continueSession(true)
+								.nextStateId(session.getCurrentStateId())
+								.build());
+					}
+
+					return inputs.size() > 1
+							? automatonEngine.executeChain(automaton, session, inputs)
+							: automatonEngine.executeState(automaton, session, input);
+				})
+				.doOnNext(result -> log.debug("State execution result: nextState={}, continue={}",
+						result.getNextStateId(), result.isContinueSession()));
+	}
+
+	// ========================================================================
+	// ENTRÉES CHAÎNÉES (*500*1*2*3# ET "1*2*3")
+	// ========================================================================
+
+	/**
+	 * Découpe une saisie chaînée "1*2*3" en étapes (une seule étape si la
+	 * fonctionnalité est désactivée ou sans séparateur). Appliqué au code
+	 * composé d'une nouvelle session et aux réponses à un état MENU; une
+	 * chaîne de plus de max-steps étapes est refusée, jamais tronquée.
+	 */
+	public List<String> splitChainedInput(String text) {
+		if (!chainedInputEnabled || text == null || text.indexOf(CHAIN_SEPARATOR) < 0) {
+			return Collections.singletonList(text);
+		}
+
+		List<String> inputs = new ArrayList<>();
+		for (String token : text.split("\\" + CHAIN_SEPARATOR)) {
+			String input = token.trim();
+			if (!input.isEmpty()) {
+				inputs.add(input);
+			}
+		}
+
+		if (inputs.isEmpty()) {
+			return Collections.singletonList(text);
+		}
+		return inputs;
+	}
 
-					// NE PAS appeler updateSession ici car c'est déjà fait dans AutomatonEngine
+	/**
+	 * Résout un code étendu d'une nouvelle session: *500*1*2*3# devient le
+	 * plus long code connu (service actif ou menu principal) suivi des
+	 * entrées restantes, placées avant le texte éventuel ("2*3")
+	 */
+	public Mono<UssdRequest> expandShortCode(UssdRequest request) {
+		String ussdCode = request.getUssdCode();
 
-					if (!result.isContinueSession()) {
-						return sessionManager.terminateSession(session.getId())
-								.thenReturn(result);
+		if (!chainedInputEnabled || ussdCode == null || MAIN_MENU_CODE.equals(ussdCode)
+				|| !ussdCode.startsWith(CHAIN_SEPARATOR) || !ussdCode.endsWith("#")) {
+			return Mono.just(request);
+		}
+
+		return serviceRegistry.getActiveShortCodes()
+				.map(shortCodes -> {
+					if (shortCodes.contains(ussdCode)) {
+						return request;
 					}
 
-					return Mono.just(result); // Retourne directement le résultat
+					String[] segments = ussdCode.substring(1, ussdCode.length() - 1).split("\\" + CHAIN_SEPARATOR);
+
+					for (int length = segments.length - 1; length >= 1; length--) {
+						String candidate = CHAIN_SEPARATOR
+								+ String.join(CHAIN_SEPARATOR, Arrays.copyOfRange(segments, 0, length)) + "#";
+						if (!MAIN_MENU_CODE.equals(candidate) && !shortCodes.contains(candidate)) {
+							continue;
+						}
+
+						String chained = String.join(CHAIN_SEPARATOR,
+								Arrays.copyOfRange(segments, length, segments.length));
+						String text = request.getText();
+						log.debug("Extended short code {} → {} + '{}'", ussdCode, candidate, chained);
+
+						return UssdRequest.builder()
+								.sessionId(request.getSessionId())
+								.phoneNumber(request.getPhoneNumber())
+								.ussdCode(candidate)
+								.text(text == null || text.isBlank() ? chained : chained + CHAIN_SEPARATOR + text)
+								.build();
+					}
+					return request;
 				});
 	}
 
@@ -80,28 +180,19 @@ public class UssdGatewayService {
 	 * Initializes session for main menu
 	 */
 	private Mono<StateResult> initializeMainMenuSession(UssdRequest request) {
-		return serviceRegistry.getAllActiveServices()
-				.collectList()
-				.flatMap(services -> {
-					StringBuilder menu = new StringBuilder("🌐 USSD Gateway\nChoisissez un service:\n\n");
-					for (int i = 0; i < services.size(); i++) {
-						menu.append(String.format("%d. %s\n", i + 1, services.get(i).getName()));
-					}
-					menu.append("\n0. Quitter");
-
-					return sessionManager.getOrCreateSession(
-							request.getSessionId(),
-							request.getPhoneNumber(),
-							MAIN_MENU_CODE).flatMap(session -> {
-								session.setCurrentStateId("MAIN_MENU");
-								return sessionManager.updateSession(session)
-										.thenReturn(StateResult.builder()
-												.message(menu.toString())
-												.continueSession(true)
-												.nextStateId("MAIN_MENU")
-												.build());
-							});
-				});
+		return mainMenuRenderer.current()
+				.flatMap(menu -> sessionManager.getOrCreateSession(
+						request.getSessionId(),
+						request.getPhoneNumber(),
+						MAIN_MENU_CODE).flatMap(session -> {
+							session.setCurrentStateId("MAIN_MENU");
+							return sessionManager.updateSession(session)
+									.thenReturn(StateResult.builder()
+											.message(menu.page(0))
+											.continueSession(true)
+											.nextStateId("MAIN_MENU")
+											.build());
+						}));
 	}
 
 	/**
@@ -109,9 +200,9 @@ public class UssdGatewayService {
 	 */
 	private Mono<StateResult> initializeServiceSession(UssdRequest request) {
 		return serviceRegistry.getServiceByShortCode(request.getUssdCode())
-				.flatMap(service -> serviceRegistry.loadAutomaton(service.getCode())
+				.flatMap(service -> serviceRegistry.loadCompiledAutomaton(service.getCode())
 						.flatMap(automaton -> {
-							State initialState = findInitialState(automaton);
+							CompiledState initialState = automaton.getInitialState();
 
 							return sessionManager.getOrCreateSession(
 									request.getSessionId(),
@@ -136,16 +227,6 @@ public class UssdGatewayService {
 				});
 	}
 
-	/**
-	 * Finds the initial state in the automaton
-	 */
-	private State findInitialState(AutomatonDefinition automaton) {
-		return automaton.getStates().stream()
-				.filter(state -> Boolean.TRUE.equals(state.getIsInitial()))
-				.findFirst()
-				.orElseThrow(() -> new InvalidStateException("No initial state found in automaton"));
-	}
-
 	/**
 	 * Checks if session has expired
 	 */
@@ -0,0 +1,153 @@
+package com.network.projet.ussd.service.core;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.network.projet.ussd.dto.request.UssdRequest;
+import com.network.projet.ussd.dto.response.UssdResponse;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * UssdReplayCache - Rejeu idempotent des requêtes USSD relancées par l'opérateur
+ *
+ * Rôle: Sur timeout, l'opérateur renvoie le même callback. La relance reçoit
+ * la réponse déjà calculée (ou rejoint l'étape encore en cours) au lieu de
+ * ré-exécuter l'étape de l'automate et ses API_CALL.
+ *
+ * Seule la dernière requête de chaque session est retenue, identifiée par
+ * son empreinte (code USSD, texte, numéro de séquence). Sans numéro de
+ * séquence, une saisie identique n'est considérée comme une relance que
+ * pendant une fenêtre courte (l'utilisateur peut légitimement répéter "1").
+ *
+ * Les étapes en erreur ne sont pas retenues: leur relance est ré-exécutée.
+ *
+ * @author Network Projet Team
+ */
+@Slf4j
+@Component
+public class UssdReplayCache {
+
+    @Value("${ussd.replay.enabled:true}")
+    private boolean enabled;
+
+    @Value("${ussd.replay.ttl-seconds:30}")
+    private long ttlSeconds;
+
+    @Value("${ussd.replay.unsequenced-ttl-seconds:5}")
+    private long unsequencedTtlSeconds;
+
+    @Value("${ussd.replay.max-size:100000}")
+    private long maxSize;
+
+    /**
+     * sessionId → dernière requête et sa réponse (partagée si encore en cours)
+     */
+    private Cache<String, Entry> entries;
+
+    private final LongAdder replayedRequests = new LongAdder();
+
+    @PostConstruct
+    void init() {
+        this.entries = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new EntryExpiry())
+                .build();
+    }
+
+    /**
+     * Exécute l'étape, ou rejoue la réponse de la requête identique précédente
+     *
+     * @param request Requête validée
+     * @param step    Fournisseur de l'étape complète (routage, automate, commit)
+     */
+    public Mono<UssdResponse> execute(UssdRequest request, Supplier<Mono<UssdResponse>> step) {
+        if (!enabled || request.getSessionId() == null) {
+            return Mono.defer(step);
+        }
+
+        return Mono.defer(() -> {
+            String sessionId = request.getSessionId();
+            String fingerprint = fingerprint(request);
+
+            Entry current = entries.getIfPresent(sessionId);
+            if (current != null && current.fingerprint().equals(fingerprint)) {
+                return replay(sessionId, current);
+            }
+
+            long ttl = Duration.ofSeconds(request.getSequence() != null ? ttlSeconds : unsequencedTtlSeconds)
+                    .toNanos();
+            Entry fresh = new Entry(fingerprint, Mono.defer(step).cache(), ttl);
+
+            Map<String, Entry> map = entries.asMap();
+            boolean installed = current == null
+                    ? map.putIfAbsent(sessionId, fresh) == null
+                    : map.replace(sessionId, current, fresh);
+
+            if (!installed) {
+                Entry winner = entries.getIfPresent(sessionId);
+                if (winner != null && winner.fingerprint().equals(fingerprint)) {
+                    return replay(sessionId, winner);
+                }
+                return Mono.defer(step);
+            }
+
+            return fresh.response()
+                    .doOnError(error -> map.remove(sessionId, fresh));
+        });
+    }
+
+    /**
+     * Nombre de sessions dont la dernière réponse est retenue
+     */
+    public long getCachedSessions() {
+        return entries.estimatedSize();
+    }
+
+    /**
+     * Nombre de relances servies sans ré-exécution
+     */
+    public long getReplayedCount() {
+        return replayedRequests.sum();
+    }
+
+    private Mono<UssdResponse> replay(String sessionId, Entry entry) {
+        replayedRequests.increment();
+        log.info("Replaying response for duplicate request: sessionId={}", sessionId);
+        return entry.response()
+                .doOnError(error -> entries.asMap().remove(sessionId, entry));
+    }
+
+    private static String fingerprint(UssdRequest request) {
+        return request.getUssdCode() + '\n' + request.getText() + '\n' + request.getSequence();
+    }
+
+    private record Entry(String fingerprint, Mono<UssdResponse> response, long ttlNanos) {
+    }
+
+    private static class EntryExpiry implements Expiry<String, Entry> {
+
+        @Override
+        public long expireAfterCreate(String key, Entry value, long currentTime) {
+            return value.ttlNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Entry value, long currentTime, long currentDuration) {
+            return value.ttlNanos();
+        }
+
+        @Override
+        public long expireAfterRead(String key, Entry value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
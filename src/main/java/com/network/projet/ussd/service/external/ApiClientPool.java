@@ -0,0 +1,284 @@
+package com.network.projet.ussd.service.external;
+
+import com.network.projet.ussd.config.WebClientConfig;
+import com.network.projet.ussd.domain.model.automaton.ApiConfig;
+import com.network.projet.ussd.domain.model.automaton.ConnectionPoolConfig;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionPoolMetrics;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.net.SocketAddress;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * ApiClientPool - WebClient partagés par API partenaire
+ *
+ * Rôle: Fournir à ApiInvoker un WebClient longue durée par baseUrl, chacun
+ * avec son propre ConnectionProvider Reactor Netty, pour qu'un partenaire
+ * lent ne puisse pas épuiser les connexions des autres.
+ *
+ * Responsabilités:
+ * - Création paresseuse d'un pool par baseUrl (réglages apiConfig.connectionPool,
+ * valeurs par défaut ussd.http.pool.*)
+ * - Taille maximale des réponses (ussd.http.max-response-bytes)
+ * - Remplacement du pool quand sa configuration change (l'ancien est libéré
+ * après un délai de grâce)
+ * - Exposition de l'occupation des pools
+ *
+ * @author Network Projet Team
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ApiClientPool {
+
+    private static final Duration RETIRE_GRACE_PERIOD = Duration.ofSeconds(60);
+
+    private final WebClient.Builder webClientBuilder;
+
+    @Value("${ussd.http.max-response-bytes:1048576}")
+    private int maxResponseBytes;
+
+    @Value("${ussd.http.pool.max-connections:50}")
+    private int defaultMaxConnections;
+
+    @Value("${ussd.http.pool.pending-acquire-max-count:200}")
+    private int defaultPendingAcquireMaxCount;
+
+    @Value("${ussd.http.pool.pending-acquire-timeout-ms:5000}")
+    private int defaultPendingAcquireTimeoutMs;
+
+    @Value("${ussd.http.pool.max-idle-time-seconds:30}")
+    private int defaultMaxIdleTimeSeconds;
+
+    @Value("${ussd.http.pool.max-life-time-seconds:300}")
+    private int defaultMaxLifeTimeSeconds;
+
+    @Value("${ussd.http.pool.evict-in-background-seconds:30}")
+    private int defaultEvictInBackgroundSeconds;
+
+    @Value("${ussd.http.pool.keep-alive:true}")
+    private boolean defaultKeepAlive;
+
+    /**
+     * baseUrl normalisée → client et pool dédiés
+     */
+    private final Map<String, PooledClient> clients = new ConcurrentHashMap<>();
+
+    /**
+     * Nom du pool → métriques par adresse distante (alimenté par Reactor Netty)
+     */
+    private final Map<String, Map<SocketAddress, ConnectionPoolMetrics>> poolMetrics = new ConcurrentHashMap<>();
+
+    private final AtomicInteger generation = new AtomicInteger();
+
+    private WebClient defaultClient;
+
+    @PostConstruct
+    void init() {
+        this.defaultClient = webClientBuilder.clone()
+                .codecs(codecs -> codecs.defaultCodecs().maxInMemorySize(maxResponseBytes))
+                .build();
+    }
+
+    // ========== ACCÈS AUX CLIENTS ==========
+
+    /**
+     * Retourne le WebClient dédié à la baseUrl de la configuration API
+     * (client partagé par défaut si aucune baseUrl n'est définie)
+     */
+    public WebClient getClient(ApiConfig apiConfig) {
+        String baseUrl = apiConfig != null ? normalize(apiConfig.getBaseUrl()) : null;
+        if (baseUrl == null) {
+            return defaultClient;
+        }
+
+        ConnectionPoolConfig config = apiConfig.getConnectionPool();
+
+        PooledClient current = clients.get(baseUrl);
+        if (current != null && Objects.equals(current.config(), config)) {
+            return current.client();
+        }
+
+        return clients.compute(baseUrl, (key, existing) -> {
+            if (existing != null && Objects.equals(existing.config(), config)) {
+                return existing;
+            }
+            if (existing != null) {
+                log.info("Connection pool configuration changed for {}, replacing pool {}", key, existing.name());
+                retire(existing);
+            }
+            return create(key, config);
+        }).client();
+    }
+
+    /**
+     * Client partagé (pool global) pour les appels sans baseUrl
+     */
+    public WebClient getDefaultClient() {
+        return defaultClient;
+    }
+
+    // ========== MÉTRIQUES ==========
+
+    /**
+     * Occupation des pools, par baseUrl
+     */
+    public Map<String, PoolStats> getPoolStats() {
+        Map<String, PoolStats> stats = new TreeMap<>();
+
+        clients.forEach((baseUrl, pooled) -> {
+            int acquired = 0;
+            int allocated = 0;
+            int idle = 0;
+            int pending = 0;
+
+            Map<SocketAddress, ConnectionPoolMetrics> metrics = poolMetrics.get(pooled.name());
+            if (metrics != null) {
+                for (ConnectionPoolMetrics metric : metrics.values()) {
+                    acquired += metric.acquiredSize();
+                    allocated += metric.allocatedSize();
+                    idle += metric.idleSize();
+                    pending += metric.pendingAcquireSize();
+                }
+            }
+
+            stats.put(baseUrl, PoolStats.builder()
+                    .poolName(pooled.name())
+                    .maxConnections(pooled.maxConnections())
+                    .pendingAcquireMaxCount(pooled.pendingAcquireMaxCount())
+                    .acquired(acquired)
+                    .allocated(allocated)
+                    .idle(idle)
+                    .pendingAcquire(pending)
+                    .build());
+        });
+
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        clients.values().forEach(pooled -> pooled.provider().dispose());
+        clients.clear();
+    }
+
+    // ========== CRÉATION DES POOLS ==========
+
+    private PooledClient create(String baseUrl, ConnectionPoolConfig config) {
+        ConnectionPoolConfig settings = config != null ? config : new ConnectionPoolConfig();
+
+        String name = "api-" + generation.incrementAndGet() + "-" + baseUrl;
+        int maxConnections = valueOrDefault(settings.getMaxConnections(), defaultMaxConnections);
+        int pendingAcquireMaxCount = valueOrDefault(settings.getPendingAcquireMaxCount(), defaultPendingAcquireMaxCount);
+        int pendingAcquireTimeoutMs = valueOrDefault(settings.getPendingAcquireTimeoutMs(), defaultPendingAcquireTimeoutMs);
+        int maxIdleTimeSeconds = valueOrDefault(settings.getMaxIdleTimeSeconds(), defaultMaxIdleTimeSeconds);
+        int maxLifeTimeSeconds = valueOrDefault(settings.getMaxLifeTimeSeconds(), defaultMaxLifeTimeSeconds);
+        int evictSeconds = valueOrDefault(settings.getEvictInBackgroundSeconds(), defaultEvictInBackgroundSeconds);
+        boolean keepAlive = settings.getKeepAlive() != null ? settings.getKeepAlive() : defaultKeepAlive;
+
+        ConnectionProvider provider = ConnectionProvider.builder(name)
+                .maxConnections(maxConnections)
+                .pendingAcquireMaxCount(pendingAcquireMaxCount)
+                .pendingAcquireTimeout(Duration.ofMillis(pendingAcquireTimeoutMs))
+                .maxIdleTime(Duration.ofSeconds(maxIdleTimeSeconds))
+                .maxLifeTime(Duration.ofSeconds(maxLifeTimeSeconds))
+                .evictInBackground(Duration.ofSeconds(evictSeconds))
+                .metrics(true, MetricsRegistrar::new)
+                .build();
+
+        HttpClient httpClient = WebClientConfig.applyTimeouts(HttpClient.create(provider))
+                .keepAlive(keepAlive);
+
+        WebClient client = webClientBuilder.clone()
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .codecs(codecs -> codecs.defaultCodecs().maxInMemorySize(maxResponseBytes))
+                .build();
+
+        log.info("Connection pool created: {} (maxConnections={}, pendingAcquireMaxCount={}, maxIdleTime={}s, keepAlive={})",
+                name, maxConnections, pendingAcquireMaxCount, maxIdleTimeSeconds, keepAlive);
+
+        return new PooledClient(name, config, provider, client, maxConnections, pendingAcquireMaxCount);
+    }
+
+    /**
+     * Libère un pool remplacé une fois les requêtes en cours terminées
+     */
+    private void retire(PooledClient pooled) {
+        Mono.delay(RETIRE_GRACE_PERIOD)
+                .then(pooled.provider().disposeLater())
+                .doFinally(signal -> poolMetrics.remove(pooled.name()))
+                .subscribe(
+                        unused -> {
+                        },
+                        error -> log.warn("Failed to dispose connection pool {}: {}", pooled.name(), error.getMessage()));
+    }
+
+    static String normalize(String baseUrl) {
+        if (baseUrl == null || baseUrl.isBlank()) {
+            return null;
+        }
+        String trimmed = baseUrl.trim();
+        return trimmed.endsWith("/") ? trimmed.substring(0, trimmed.length() - 1) : trimmed;
+    }
+
+    private static int valueOrDefault(Integer value, int defaultValue) {
+        return value != null && value > 0 ? value : defaultValue;
+    }
+
+    private record PooledClient(
+            String name,
+            ConnectionPoolConfig config,
+            ConnectionProvider provider,
+            WebClient client,
+            int maxConnections,
+            int pendingAcquireMaxCount) {
+    }
+
+    /**
+     * Reçoit les métriques de Reactor Netty (un enregistrement par adresse distante)
+     */
+    private class MetricsRegistrar implements ConnectionProvider.MeterRegistrar {
+
+        @Override
+        public void registerMetrics(String poolName, String id, SocketAddress remoteAddress,
+                ConnectionPoolMetrics metrics) {
+            poolMetrics.computeIfAbsent(poolName, key -> new ConcurrentHashMap<>())
+                    .put(remoteAddress, metrics);
+        }
+
+        @Override
+        public void deRegisterMetrics(String poolName, String id, SocketAddress remoteAddress) {
+            Map<SocketAddress, ConnectionPoolMetrics> metrics = poolMetrics.get(poolName);
+            if (metrics != null) {
+                metrics.remove(remoteAddress);
+            }
+        }
+    }
+
+    @lombok.Data
+    @lombok.Builder
+    public static class PoolStats {
+        private String poolName;
+        private int maxConnections;
+        private int pendingAcquireMaxCount;
+        private int acquired;
+        private int allocated;
+        private int idle;
+        private int pendingAcquire;
+    }
+}
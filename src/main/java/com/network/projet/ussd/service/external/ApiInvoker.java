@@ -10,15 +10,19 @@ import com.network.projet.ussd.domain.enums.AuthenticationType;
 import com.network.projet.ussd.domain.model.automaton.Authentication;
 import com.network.projet.ussd.exception.ApiCallException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
 
 import reactor.core.publisher.Mono;
 
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.util.HashMap;
 import java.util.List;
@@ -28,13 +32,16 @@ import java.util.Map;
  * ApiInvoker - Service d'invocation des API externes
  * 
  * Rôle: Gestion des appels HTTP vers les API externes avec support complet
- * Appelle: WebClient, AuthenticationHandler, TemplateEngine
+ * Appelle: ApiClientPool (WebClient par baseUrl), AuthenticationHandler, TemplateEngine
  * 
  * Responsabilités:
  * - Exécution des requêtes HTTP (GET, POST, PUT, DELETE, PATCH)
  * - Gestion de l'authentification via AuthenticationHandler
  * - Rendu des templates dans les URLs, headers et body
- * - Gestion des timeouts et retry
+ * - Gestion des timeouts, retry, circuit breaker et bulkhead (ApiResilienceRegistry)
+ * - Cache TTL des réponses GET (ApiResponseCache, opt-in par action)
+ * - Fusion des GET identiques simultanés (RequestCoalescer)
+ * - Extraction sélective des réponses selon responseMapping (ResponseExtractor)
  * - Mapping des erreurs HTTP vers des réponses structurées
  * 
  * @author Network Projet Team
@@ -45,12 +52,22 @@ import java.util.Map;
 @Slf4j
 public class ApiInvoker {
 
-    private final WebClient.Builder webClientBuilder;
+    private final ApiClientPool clientPool;
+    private final ApiResilienceRegistry resilienceRegistry;
+    private final ApiResponseCache responseCache;
+    private final RequestCoalescer requestCoalescer;
     private final TemplateEngine templateEngine;
     private final AuthenticationHandler authenticationHandler;
     private final ObjectMapper objectMapper;
 
-    private static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(30);
+    static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(10);
+
+    /**
+     * responseMapping (instance de la définition d'automate) → extracteur compilé
+     */
+    private final Cache<Map<String, String>, ResponseExtractor> extractorCache = Caffeine.newBuilder()
+            .weakKeys()
+            .build();
 
     // ========== MÉTHODES PRINCIPALES ==========
 
@@ -85,14 +102,33 @@ public class ApiInvoker {
             Map<String, String> headers = buildHeaders(apiConfig, action, sessionData);
             Object requestBody = buildRequestBody(action, sessionData);
             HttpMethod method = action.getMethod() != null ? action.getMethod() : HttpMethod.POST;
-            Duration timeout = apiConfig.getTimeout() != null
-                    ? Duration.ofSeconds(apiConfig.getTimeout())
+            // apiConfig.timeout est exprimé en millisecondes (ex: 10000)
+            Duration timeout = apiConfig.getTimeout() != null && apiConfig.getTimeout() > 0
+                    ? Duration.ofMillis(apiConfig.getTimeout())
                     : DEFAULT_TIMEOUT;
 
-            log.info("Built request: url={}, method={}, timeout={}s", url, method, timeout.getSeconds());
+            log.info("Built request: url={}, method={}, timeout={}ms", url, method, timeout.toMillis());
+
+            // Extraction sélective selon onSuccess.responseMapping
+            ResponseExtractor extractor = getResponseExtractor(action);
+
+            // Exécution de la requête (retry, circuit breaker et bulkhead par baseUrl)
+            WebClient client = clientPool.getClient(apiConfig);
+            Mono<ExternalApiResponse> call;
+            if (isCacheable(method, action)) {
+                call = executeCachedGet(apiConfig, client, url, headers, timeout, extractor,
+                        action.getCacheTtlSeconds());
+            } else if (method == HttpMethod.GET) {
+                // GET identiques simultanés: un seul appel partagé
+                call = requestCoalescer.execute(requestKey(url, headers, extractor),
+                        () -> resilienceRegistry.execute(apiConfig, method,
+                                () -> executeRequest(client, url, method, null, headers, timeout, extractor)));
+            } else {
+                call = resilienceRegistry.execute(apiConfig, method,
+                        () -> executeRequest(client, url, method, requestBody, headers, timeout, extractor));
+            }
 
-            // Exécution de la requête
-            return executeRequest(url, method, requestBody, headers, timeout)
+            return call
                     .doOnSuccess(response -> log.info("API call successful: status={}", response.getStatus()))
                     .doOnError(error -> log.error("API call failed: {}", error.getMessage()));
 
@@ -122,9 +158,24 @@ public class ApiInvoker {
             Map<String, String> headers,
             Duration timeout) {
 
-        log.debug("Executing {} request to {}", method, url);
+        return executeRequest(clientPool.getDefaultClient(), url, method, body, headers, timeout, null);
+    }
 
-        WebClient client = webClientBuilder.build();
+    /**
+     * Exécute une requête HTTP avec le client (pool de connexions) fourni
+     *
+     * @param extractor Extraction sélective de la réponse (null = document complet)
+     */
+    private Mono<ExternalApiResponse> executeRequest(
+            WebClient client,
+            String url,
+            HttpMethod method,
+            Object body,
+            Map<String, String> headers,
+            Duration timeout,
+            ResponseExtractor extractor) {
+
+        log.debug("Executing {} request to {}", method, url);
 
         // Construction de la requête
         WebClient.RequestBodySpec requestSpec = client
@@ -166,26 +217,109 @@ public class ApiInvoker {
                             return Mono.error(new RuntimeException(
                                     response.statusCode().value() + " from " + method + " " + url));
                         })
-                .bodyToMono(String.class)
+                .toEntity(byte[].class)
                 .timeout(timeout)
-                .map(responseBody -> {
-                    Object data = null;
-                    try {
-                        data = objectMapper.readValue(responseBody, Object.class);
-                    } catch (Exception e) {
-                        log.warn("Failed to parse response as JSON", e);
-                    }
-
-                    return ExternalApiResponse.builder()
-                            .status(ApiResponseStatus.SUCCESS)
-                            .statusCode(200)
-                            .body(responseBody)
-                            .data(data)
-                            .build();
-                })
+                .map(entity -> toResponse(entity, extractor))
                 .onErrorResume(error -> handleException(error, url, method));
     }
 
+    /**
+     * Construit la réponse à partir du corps brut (borné par ussd.http.max-response-bytes)
+     * - avec extracteur: seules les valeurs mappées sont matérialisées
+     * - sans extracteur: document JSON complet (le texte n'est gardé que s'il n'est pas du JSON)
+     */
+    private ExternalApiResponse toResponse(ResponseEntity<byte[]> entity, ResponseExtractor extractor) {
+        ExternalApiResponse.ExternalApiResponseBuilder response = ExternalApiResponse.builder()
+                .status(ApiResponseStatus.SUCCESS)
+                .statusCode(entity.getStatusCode().value())
+                .headers(entity.getHeaders().toSingleValueMap());
+
+        byte[] responseBody = entity.getBody();
+        if (responseBody == null || responseBody.length == 0) {
+            return response.extracted(extractor != null ? new HashMap<>() : null).build();
+        }
+
+        if (extractor != null) {
+            try {
+                return response.extracted(extractor.extract(responseBody, objectMapper)).build();
+            } catch (Exception e) {
+                log.warn("Failed to extract mapped values from response: {}", e.getMessage());
+                return response.extracted(new HashMap<>()).build();
+            }
+        }
+
+        try {
+            return response.data(objectMapper.readValue(responseBody, Object.class)).build();
+        } catch (Exception e) {
+            log.warn("Failed to parse response as JSON", e);
+            return response.body(new String(responseBody, StandardCharsets.UTF_8)).build();
+        }
+    }
+
+    /**
+     * Extracteur compilé pour le responseMapping de l'action (mis en cache)
+     */
+    private ResponseExtractor getResponseExtractor(Action action) {
+        Map<String, String> responseMapping = action.getOnSuccess() != null
+                ? action.getOnSuccess().getResponseMapping()
+                : null;
+
+        if (responseMapping == null || responseMapping.isEmpty()) {
+            return null;
+        }
+        return extractorCache.get(responseMapping, ResponseExtractor::compile);
+    }
+
+    /**
+     * Empreinte de requête GET: URL + en-têtes + valeurs extraites
+     */
+    private String requestKey(String url, Map<String, String> headers, ResponseExtractor extractor) {
+        String key = responseCache.key(url, headers);
+        return extractor != null ? key + "#" + extractor.getSignature() : key;
+    }
+
+    /**
+     * Exécute un GET via le cache de réponses (action avec cacheTtlSeconds)
+     * - entrée fraîche: servie depuis la mémoire
+     * - entrée expirée avec ETag: requête conditionnelle If-None-Match
+     * - appels simultanés pour la même clé: un seul appel partagé
+     */
+    private Mono<ExternalApiResponse> executeCachedGet(
+            ApiConfig apiConfig,
+            WebClient client,
+            String url,
+            Map<String, String> headers,
+            Duration timeout,
+            ResponseExtractor extractor,
+            int ttlSeconds) {
+
+        String key = requestKey(url, headers, extractor);
+        ApiResponseCache.CachedResponse cached = responseCache.get(key);
+
+        if (cached != null && cached.isFresh()) {
+            log.debug("API response cache hit: {}", url);
+            return Mono.just(cached.toResponse());
+        }
+
+        Map<String, String> requestHeaders = headers;
+        if (cached != null && cached.etag() != null) {
+            requestHeaders = headers != null ? new HashMap<>(headers) : new HashMap<>();
+            requestHeaders.put("If-None-Match", cached.etag());
+        }
+
+        Map<String, String> finalHeaders = requestHeaders;
+        return requestCoalescer.execute(key, () -> resilienceRegistry.execute(apiConfig, HttpMethod.GET,
+                () -> executeRequest(client, url, HttpMethod.GET, null, finalHeaders, timeout, extractor))
+                .map(response -> {
+                    if (cached != null && Integer.valueOf(304).equals(response.getStatusCode())) {
+                        log.debug("API response revalidated (304): {}", url);
+                        return responseCache.revalidated(key, cached, response, ttlSeconds);
+                    }
+                    responseCache.put(key, response, ttlSeconds);
+                    return response;
+                }));
+    }
+
     // ========== CONSTRUCTION DE LA REQUÊTE ==========
 
     /**
@@ -401,6 +535,15 @@ public class ApiInvoker {
         };
     }
 
+    /**
+     * Vérifie si la réponse peut être servie depuis le cache (GET + cacheTtlSeconds)
+     */
+    private boolean isCacheable(HttpMethod method, Action action) {
+        return method == HttpMethod.GET
+                && action.getCacheTtlSeconds() != null
+                && action.getCacheTtlSeconds() > 0;
+    }
+
     /**
      * Vérifie si la méthode HTTP requiert un body
      */
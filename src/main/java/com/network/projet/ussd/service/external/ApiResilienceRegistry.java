@@ -0,0 +1,293 @@
+package com.network.projet.ussd.service.external;
+
+import com.network.projet.ussd.domain.enums.HttpMethod;
+import com.network.projet.ussd.domain.model.automaton.ApiConfig;
+import com.network.projet.ussd.domain.model.automaton.ResilienceConfig;
+import com.network.projet.ussd.dto.ExternalApiResponse;
+import com.network.projet.ussd.exception.ApiCallException;
+import com.network.projet.ussd.exception.ApiUnavailableException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * ApiResilienceRegistry - Politiques de résilience par API partenaire
+ *
+ * Rôle: Protéger les dialogues USSD d'un partenaire dégradé. Chaque baseUrl
+ * a son propre bulkhead, disjoncteur et politique de retry.
+ *
+ * Ordre d'application: Retry( CircuitBreaker( Bulkhead( appel ) ) )
+ * - Bulkhead: limite les appels simultanés; au-delà, refus immédiat
+ * - CircuitBreaker: refus immédiat tant que le partenaire est en échec, pour
+ * que le moteur aille directement à l'état onError
+ * - Retry: backoff exponentiel avec jitter, uniquement pour les méthodes
+ * idempotentes (GET, PUT, DELETE) et les erreurs transitoires, dans un budget
+ * total (max-total-ms): une nouvelle tentative n'est lancée que si le backoff
+ * et un appel complet (apiConfig.timeout) tiennent dans le temps restant
+ *
+ * Les erreurs 4xx ne comptent pas comme des échecs du partenaire.
+ *
+ * @author Network Projet Team
+ */
+@Slf4j
+@Component
+public class ApiResilienceRegistry {
+
+    private static final Duration MAX_RETRY_BACKOFF = Duration.ofSeconds(2);
+    private static final double RETRY_JITTER = 0.5;
+
+    @Value("${ussd.http.resilience.max-concurrent-calls:100}")
+    private int defaultMaxConcurrentCalls;
+
+    @Value("${ussd.http.resilience.sliding-window-size:20}")
+    private int defaultSlidingWindowSize;
+
+    @Value("${ussd.http.resilience.minimum-calls:10}")
+    private int defaultMinimumCalls;
+
+    @Value("${ussd.http.resilience.failure-rate-threshold:50}")
+    private int defaultFailureRateThreshold;
+
+    @Value("${ussd.http.resilience.open-state-seconds:30}")
+    private int defaultOpenStateSeconds;
+
+    @Value("${ussd.http.resilience.retry-backoff-ms:200}")
+    private int defaultRetryBackoffMs;
+
+    @Value("${ussd.http.resilience.max-total-ms:15000}")
+    private int defaultMaxTotalMs;
+
+    /**
+     * baseUrl normalisée → politique du partenaire
+     */
+    private final Map<String, PartnerPolicy> policies = new ConcurrentHashMap<>();
+
+    // ========== EXÉCUTION ==========
+
+    /**
+     * Exécute un appel sous la politique de résilience du partenaire
+     *
+     * @param apiConfig Configuration API (baseUrl, retryAttempts, resilience)
+     * @param method    Méthode HTTP (détermine si le retry est autorisé)
+     * @param call      Fournisseur de l'appel HTTP (réévalué à chaque tentative)
+     */
+    public Mono<ExternalApiResponse> execute(
+            ApiConfig apiConfig,
+            HttpMethod method,
+            Supplier<Mono<ExternalApiResponse>> call) {
+
+        String baseUrl = apiConfig != null ? ApiClientPool.normalize(apiConfig.getBaseUrl()) : null;
+        if (baseUrl == null) {
+            return Mono.defer(call);
+        }
+
+        PartnerPolicy policy = getPolicy(baseUrl, apiConfig.getResilience());
+        Mono<ExternalApiResponse> attempt = Mono.defer(() -> guardedCall(policy, call));
+
+        int retryAttempts = apiConfig.getRetryAttempts() != null ? apiConfig.getRetryAttempts() : 0;
+        if (retryAttempts <= 0 || !isIdempotent(method)) {
+            return attempt;
+        }
+
+        // apiConfig.timeout est exprimé en millisecondes (voir ApiInvoker)
+        long attemptNanos = (apiConfig.getTimeout() != null && apiConfig.getTimeout() > 0
+                ? Duration.ofMillis(apiConfig.getTimeout())
+                : ApiInvoker.DEFAULT_TIMEOUT).toNanos();
+
+        // Échéance calculée à chaque souscription (horloge du scheduler des backoffs)
+        return Mono.defer(() -> {
+            long deadline = now() + policy.maxTotal().toNanos();
+
+            return attempt.retryWhen(Retry.from(signals -> signals.concatMap(signal -> {
+                Throwable failure = signal.failure();
+                if (signal.totalRetries() >= retryAttempts || !isPartnerFailure(failure)) {
+                    return Mono.error(failure);
+                }
+
+                Duration backoff = backoff(policy.retryBackoff(), signal.totalRetries());
+                long remaining = deadline - now();
+                if (remaining < backoff.toNanos() + attemptNanos) {
+                    log.warn("Not retrying {} {}: {}ms left of the {}ms budget ({})",
+                            method, baseUrl, TimeUnit.NANOSECONDS.toMillis(remaining),
+                            policy.maxTotal().toMillis(), failure.getMessage());
+                    return Mono.error(failure);
+                }
+
+                log.warn("Retrying {} {} (attempt {}): {}",
+                        method, baseUrl, signal.totalRetries() + 1, failure.getMessage());
+                return Mono.delay(backoff);
+            })));
+        });
+    }
+
+    /**
+     * Backoff exponentiel plafonné, avec jitter de ±RETRY_JITTER
+     */
+    private static Duration backoff(Duration base, long retry) {
+        long exponential = base.toMillis() << Math.min(retry, 16);
+        long capped = Math.min(exponential, MAX_RETRY_BACKOFF.toMillis());
+        double jitter = 1 + RETRY_JITTER * (2 * ThreadLocalRandom.current().nextDouble() - 1);
+        return Duration.ofMillis(Math.round(capped * jitter));
+    }
+
+    private static long now() {
+        return Schedulers.parallel().now(TimeUnit.NANOSECONDS);
+    }
+
+    private Mono<ExternalApiResponse> guardedCall(PartnerPolicy policy, Supplier<Mono<ExternalApiResponse>> call) {
+        // Bulkhead
+        if (policy.inFlight().incrementAndGet() > policy.maxConcurrentCalls()) {
+            policy.inFlight().decrementAndGet();
+            policy.rejectedCalls().increment();
+            log.warn("Bulkhead full for {} ({} calls in flight)", policy.baseUrl(), policy.maxConcurrentCalls());
+            return Mono.error(new ApiUnavailableException(policy.baseUrl(), "Too many concurrent calls"));
+        }
+
+        // Circuit breaker
+        CircuitBreaker breaker = policy.circuitBreaker();
+        if (!breaker.tryAcquire()) {
+            policy.inFlight().decrementAndGet();
+            policy.rejectedCalls().increment();
+            log.debug("Circuit open for {}, failing fast", policy.baseUrl());
+            return Mono.error(new ApiUnavailableException(policy.baseUrl(), "Circuit open"));
+        }
+
+        return call.get()
+                .doOnSuccess(response -> breaker.onSuccess())
+                .doOnError(error -> {
+                    if (isPartnerFailure(error)) {
+                        breaker.onFailure();
+                        if (breaker.getState() == CircuitBreaker.State.OPEN) {
+                            log.warn("Circuit opened for {} (failure rate {}%)",
+                                    policy.baseUrl(), breaker.getFailureRate());
+                        }
+                    } else {
+                        breaker.onSuccess();
+                    }
+                })
+                .doOnCancel(breaker::onIgnored)
+                .doFinally(signal -> policy.inFlight().decrementAndGet());
+    }
+
+    // ========== MÉTRIQUES ==========
+
+    /**
+     * État des politiques, par baseUrl
+     */
+    public Map<String, ResilienceStats> getStats() {
+        Map<String, ResilienceStats> stats = new TreeMap<>();
+
+        policies.forEach((baseUrl, policy) -> stats.put(baseUrl, ResilienceStats.builder()
+                .circuitState(policy.circuitBreaker().getState().name())
+                .failureRate(policy.circuitBreaker().getFailureRate())
+                .inFlight(policy.inFlight().get())
+                .maxConcurrentCalls(policy.maxConcurrentCalls())
+                .rejectedCalls(policy.rejectedCalls().sum())
+                .build()));
+
+        return stats;
+    }
+
+    // ========== POLITIQUES ==========
+
+    private PartnerPolicy getPolicy(String baseUrl, ResilienceConfig config) {
+        PartnerPolicy current = policies.get(baseUrl);
+        if (current != null && Objects.equals(current.config(), config)) {
+            return current;
+        }
+
+        return policies.compute(baseUrl, (key, existing) -> existing != null
+                && Objects.equals(existing.config(), config) ? existing : createPolicy(key, config));
+    }
+
+    private PartnerPolicy createPolicy(String baseUrl, ResilienceConfig config) {
+        ResilienceConfig settings = config != null ? config : new ResilienceConfig();
+
+        int maxConcurrentCalls = valueOrDefault(settings.getMaxConcurrentCalls(), defaultMaxConcurrentCalls);
+        int slidingWindowSize = valueOrDefault(settings.getSlidingWindowSize(), defaultSlidingWindowSize);
+        int minimumCalls = valueOrDefault(settings.getMinimumCalls(), defaultMinimumCalls);
+        int failureRateThreshold = valueOrDefault(settings.getFailureRateThreshold(), defaultFailureRateThreshold);
+        int openStateSeconds = valueOrDefault(settings.getOpenStateSeconds(), defaultOpenStateSeconds);
+        int retryBackoffMs = valueOrDefault(settings.getRetryBackoffMs(), defaultRetryBackoffMs);
+        int maxTotalMs = valueOrDefault(settings.getMaxTotalMs(), defaultMaxTotalMs);
+
+        log.info("Resilience policy created for {}: maxConcurrentCalls={}, window={}, failureRate>={}%, open={}s, "
+                        + "retryBudget={}ms",
+                baseUrl, maxConcurrentCalls, slidingWindowSize, failureRateThreshold, openStateSeconds, maxTotalMs);
+
+        return new PartnerPolicy(
+                baseUrl,
+                config,
+                new CircuitBreaker(slidingWindowSize, minimumCalls, failureRateThreshold,
+                        Duration.ofSeconds(openStateSeconds)),
+                maxConcurrentCalls,
+                Duration.ofMillis(retryBackoffMs),
+                Duration.ofMillis(maxTotalMs),
+                new AtomicInteger(),
+                new LongAdder());
+    }
+
+    // ========== CLASSIFICATION DES ERREURS ==========
+
+    private static boolean isIdempotent(HttpMethod method) {
+        return method == HttpMethod.GET
+                || method == HttpMethod.PUT
+                || method == HttpMethod.DELETE;
+    }
+
+    /**
+     * Erreur imputable au partenaire (5xx, timeout, réseau), par opposition
+     * à une erreur de la requête (4xx) ou à une réponse trop volumineuse
+     */
+    private static boolean isPartnerFailure(Throwable error) {
+        if (error instanceof ApiCallException apiError) {
+            return apiError.getStatusCode() >= 500;
+        }
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof DataBufferLimitException) {
+                return false;
+            }
+        }
+        return !(error instanceof ApiUnavailableException);
+    }
+
+    private static int valueOrDefault(Integer value, int defaultValue) {
+        return value != null && value > 0 ? value : defaultValue;
+    }
+
+    private record PartnerPolicy(
+            String baseUrl,
+            ResilienceConfig config,
+            CircuitBreaker circuitBreaker,
+            int maxConcurrentCalls,
+            Duration retryBackoff,
+            Duration maxTotal,
+            AtomicInteger inFlight,
+            LongAdder rejectedCalls) {
+    }
+
+    @lombok.Data
+    @lombok.Builder
+    public static class ResilienceStats {
+        private String circuitState;
+        private int failureRate;
+        private int inFlight;
+        private int maxConcurrentCalls;
+        private long rejectedCalls;
+    }
+}
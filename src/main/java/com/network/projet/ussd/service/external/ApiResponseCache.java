@@ -0,0 +1,229 @@
+package com.network.projet.ussd.service.external;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.network.projet.ussd.domain.enums.ApiResponseStatus;
+import com.network.projet.ussd.dto.ExternalApiResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * ApiResponseCache - Cache TTL des réponses GET des actions API_CALL
+ *
+ * Rôle: Servir depuis la mémoire les réponses GET répétées (météo, tarifs...)
+ * pour les actions qui l'activent avec "cacheTtlSeconds".
+ *
+ * Règles:
+ * - Clé = URL rendue + empreinte des en-têtes de la requête (donc du scope
+ * d'authentification: token Bearer, clé API...)
+ * - Durée de fraîcheur = min(cacheTtlSeconds, Cache-Control max-age)
+ * - Cache-Control no-store: jamais mis en cache
+ * - Réponse avec ETag: conservée après expiration pour être revalidée
+ * (If-None-Match / 304) au lieu d'être re-téléchargée
+ *
+ * @author Network Projet Team
+ */
+@Slf4j
+@Component
+public class ApiResponseCache {
+
+    private static final String ETAG = "ETag";
+    private static final String CACHE_CONTROL = "Cache-Control";
+
+    private final Cache<String, CachedResponse> responses;
+
+    public ApiResponseCache(@Value("${ussd.http.response-cache.max-size:10000}") long maxSize) {
+        this.responses = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new RetentionExpiry())
+                .recordStats()
+                .build();
+    }
+
+    // ========== LECTURE / ÉCRITURE ==========
+
+    /**
+     * Empreinte d'une requête GET (clé de cache et de fusion des appels)
+     */
+    public String key(String url, Map<String, String> headers) {
+        if (headers == null || headers.isEmpty()) {
+            return url;
+        }
+        return url + "|" + fingerprint(new TreeMap<>(headers).toString());
+    }
+
+    /**
+     * Entrée fraîche ou revalidable, ou null
+     */
+    public CachedResponse get(String key) {
+        return responses.getIfPresent(key);
+    }
+
+    /**
+     * Met en cache une réponse réussie, selon le TTL de l'action et Cache-Control
+     */
+    public void put(String key, ExternalApiResponse response, int ttlSeconds) {
+        if (!response.isSuccess() || !response.isHttpSuccess()) {
+            return;
+        }
+
+        String cacheControl = response.getHeader(CACHE_CONTROL);
+        String directives = cacheControl != null ? cacheControl.toLowerCase(Locale.ROOT) : "";
+        if (directives.contains("no-store")) {
+            log.debug("Response not cached (no-store): {}", key);
+            return;
+        }
+
+        long freshSeconds = ttlSeconds;
+        if (directives.contains("no-cache")) {
+            freshSeconds = 0;
+        } else {
+            long maxAge = parseMaxAge(directives);
+            if (maxAge >= 0) {
+                freshSeconds = Math.min(freshSeconds, maxAge);
+            }
+        }
+
+        String etag = response.getHeader(ETAG);
+        if (freshSeconds <= 0 && etag == null) {
+            return;
+        }
+
+        long now = System.nanoTime();
+        long freshNanos = freshSeconds * 1_000_000_000L;
+        // Une réponse avec ETag reste revalidable pendant une période TTL supplémentaire
+        long retainNanos = etag != null ? freshNanos + ttlSeconds * 1_000_000_000L : freshNanos;
+
+        responses.put(key, new CachedResponse(response, etag, now + freshNanos, retainNanos));
+    }
+
+    /**
+     * Réponse 304: l'entrée est de nouveau fraîche
+     */
+    public ExternalApiResponse revalidated(String key, CachedResponse cached, ExternalApiResponse notModified,
+            int ttlSeconds) {
+        ExternalApiResponse refreshed = cached.toResponse();
+        if (notModified.getHeaders() != null) {
+            Map<String, String> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+            if (refreshed.getHeaders() != null) {
+                headers.putAll(refreshed.getHeaders());
+            }
+            headers.putAll(notModified.getHeaders());
+            refreshed.setHeaders(headers);
+        }
+        put(key, refreshed, ttlSeconds);
+        return refreshed;
+    }
+
+    // ========== MÉTRIQUES ==========
+
+    public ResponseCacheStats getCacheStats() {
+        CacheStats stats = responses.stats();
+        return ResponseCacheStats.builder()
+                .hitCount(stats.hitCount())
+                .missCount(stats.missCount())
+                .hitRate(stats.hitRate())
+                .evictionCount(stats.evictionCount())
+                .size(responses.estimatedSize())
+                .build();
+    }
+
+    // ========== UTILITAIRES ==========
+
+    private static long parseMaxAge(String directives) {
+        int index = directives.indexOf("max-age=");
+        if (index < 0) {
+            return -1;
+        }
+
+        int start = index + "max-age=".length();
+        int end = start;
+        while (end < directives.length() && Character.isDigit(directives.charAt(end))) {
+            end++;
+        }
+
+        try {
+            return Long.parseLong(directives.substring(start, end));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static String fingerprint(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Réponse en cache. Les données parsées sont partagées entre sessions et
+     * doivent être traitées en lecture seule.
+     */
+    public record CachedResponse(ExternalApiResponse response, String etag, long freshUntilNanos,
+            long retainNanos) {
+
+        public boolean isFresh() {
+            return System.nanoTime() - freshUntilNanos < 0;
+        }
+
+        /**
+         * Copie de la réponse servie à l'appelant
+         */
+        public ExternalApiResponse toResponse() {
+            return ExternalApiResponse.builder()
+                    .status(ApiResponseStatus.SUCCESS)
+                    .statusCode(response.getStatusCode())
+                    .body(response.getBody())
+                    .data(response.getData())
+                    .extracted(response.getExtracted())
+                    .headers(response.getHeaders())
+                    .duration(0L)
+                    .build();
+        }
+    }
+
+    /**
+     * Durée de rétention propre à chaque entrée
+     */
+    private static class RetentionExpiry implements Expiry<String, CachedResponse> {
+
+        @Override
+        public long expireAfterCreate(String key, CachedResponse value, long currentTime) {
+            return value.retainNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, CachedResponse value, long currentTime, long currentDuration) {
+            return value.retainNanos();
+        }
+
+        @Override
+        public long expireAfterRead(String key, CachedResponse value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+
+    @lombok.Data
+    @lombok.Builder
+    public static class ResponseCacheStats {
+        private long hitCount;
+        private long missCount;
+        private double hitRate;
+        private long evictionCount;
+        private long size;
+    }
+}
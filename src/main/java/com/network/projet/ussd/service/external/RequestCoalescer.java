@@ -0,0 +1,92 @@
+package com.network.projet.ussd.service.external;
+
+import com.network.projet.ussd.dto.ExternalApiResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * RequestCoalescer - Single-flight des requêtes GET identiques
+ *
+ * Rôle: Quand plusieurs sessions demandent la même ressource (même URL
+ * rendue, mêmes en-têtes) au même moment, un seul appel HTTP est émis et son
+ * résultat est partagé par tous les abonnés en attente.
+ *
+ * L'entrée est retirée dès que l'appel se termine: seuls les appels
+ * simultanés sont fusionnés (la durée de vie des réponses relève
+ * d'ApiResponseCache).
+ *
+ * @author Network Projet Team
+ */
+@Slf4j
+@Component
+public class RequestCoalescer {
+
+    private final boolean enabled;
+
+    /**
+     * Empreinte de requête → appel partagé en cours
+     */
+    private final Map<String, Mono<ExternalApiResponse>> inFlight = new ConcurrentHashMap<>();
+
+    private final LongAdder coalescedRequests = new LongAdder();
+
+    public RequestCoalescer(@Value("${ussd.http.coalesce-gets:true}") boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Exécute l'appel, ou rejoint l'appel identique déjà en cours
+     *
+     * @param key  Empreinte de la requête (URL rendue + en-têtes)
+     * @param call Fournisseur de l'appel HTTP
+     */
+    public Mono<ExternalApiResponse> execute(String key, Supplier<Mono<ExternalApiResponse>> call) {
+        if (!enabled) {
+            return Mono.defer(call);
+        }
+
+        return Mono.defer(() -> {
+            Mono<ExternalApiResponse> existing = inFlight.get(key);
+            if (existing != null) {
+                return join(key, existing);
+            }
+
+            AtomicReference<Mono<ExternalApiResponse>> self = new AtomicReference<>();
+            Mono<ExternalApiResponse> shared = Mono.defer(call)
+                    .doFinally(signal -> inFlight.remove(key, self.get()))
+                    .cache();
+            self.set(shared);
+
+            Mono<ExternalApiResponse> winner = inFlight.putIfAbsent(key, shared);
+            return winner != null ? join(key, winner) : shared;
+        });
+    }
+
+    /**
+     * Nombre d'appels en cours
+     */
+    public int getInFlightCount() {
+        return inFlight.size();
+    }
+
+    /**
+     * Nombre de requêtes servies par un appel déjà en cours
+     */
+    public long getCoalescedCount() {
+        return coalescedRequests.sum();
+    }
+
+    private Mono<ExternalApiResponse> join(String key, Mono<ExternalApiResponse> shared) {
+        coalescedRequests.increment();
+        log.debug("Joining in-flight request: {}", key);
+        return shared;
+    }
+}
@@ -0,0 +1,194 @@
+package com.network.projet.ussd.service.external;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * ResponseExtractor - Extraction sélective d'une réponse JSON
+ *
+ * Compilé une seule fois à partir du responseMapping d'une action
+ * (cible → chemin, ex: "temperature" → "main.temp", "first" → "items.0.name").
+ * Les chemins forment un arbre; la réponse est parcourue en un seul passage
+ * sur le flux de tokens Jackson et seules les valeurs des chemins mappés sont
+ * matérialisées. Les sous-arbres non mappés sont sautés sans allocation et la
+ * lecture s'arrête dès que tous les chemins ont été trouvés.
+ *
+ * Le chemin "." désigne le document entier (qui est alors matérialisé).
+ *
+ * @author Network Projet Team
+ */
+public final class ResponseExtractor {
+
+    private final Node root = new Node();
+    private final int targetCount;
+    private final boolean wholeDocument;
+    private final String signature;
+
+    private ResponseExtractor(Map<String, String> responseMapping) {
+        int count = 0;
+        boolean whole = false;
+
+        for (Map.Entry<String, String> entry : responseMapping.entrySet()) {
+            String path = entry.getValue();
+            if (entry.getKey() == null || path == null || path.isEmpty()) {
+                continue;
+            }
+
+            if (".".equals(path)) {
+                root.targets.add(entry.getKey());
+                whole = true;
+                count++;
+                continue;
+            }
+
+            Node node = root;
+            boolean hasSegment = false;
+            for (String part : path.split("\\.")) {
+                if (part.isEmpty()) {
+                    continue;
+                }
+                node = node.children.computeIfAbsent(part, key -> new Node());
+                hasSegment = true;
+            }
+
+            if (hasSegment) {
+                node.targets.add(entry.getKey());
+                count++;
+            }
+        }
+
+        this.targetCount = count;
+        this.wholeDocument = whole;
+        this.signature = new TreeMap<>(responseMapping).toString();
+    }
+
+    /**
+     * Compile un responseMapping (null si le mapping est vide)
+     */
+    public static ResponseExtractor compile(Map<String, String> responseMapping) {
+        if (responseMapping == null || responseMapping.isEmpty()) {
+            return null;
+        }
+        return new ResponseExtractor(responseMapping);
+    }
+
+    /**
+     * Représentation stable du mapping (distingue les extractions d'une même URL)
+     */
+    public String getSignature() {
+        return signature;
+    }
+
+    // ========== EXTRACTION ==========
+
+    /**
+     * Extrait les valeurs mappées d'un corps JSON
+     *
+     * @return cible → valeur (les chemins absents ou null sont omis)
+     */
+    public Map<String, Object> extract(byte[] body, ObjectMapper objectMapper) throws IOException {
+        Map<String, Object> result = new HashMap<>();
+
+        try (JsonParser parser = objectMapper.getFactory().createParser(body)) {
+            if (parser.nextToken() == null) {
+                return result;
+            }
+
+            if (wholeDocument) {
+                collect(objectMapper.readValue(parser, Object.class), root, result);
+            } else {
+                walk(parser, root, result, objectMapper);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Parcourt la valeur courante du parser (positionné sur son premier token)
+     *
+     * @return true quand tous les chemins ont été trouvés (arrêt de la lecture)
+     */
+    private boolean walk(JsonParser parser, Node node, Map<String, Object> result, ObjectMapper objectMapper)
+            throws IOException {
+
+        if (!node.targets.isEmpty()) {
+            collect(objectMapper.readValue(parser, Object.class), node, result);
+            return result.size() >= targetCount;
+        }
+
+        JsonToken token = parser.currentToken();
+
+        if (token == JsonToken.START_OBJECT) {
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                Node child = node.children.get(parser.currentName());
+                parser.nextToken();
+
+                if (child == null) {
+                    parser.skipChildren();
+                } else if (walk(parser, child, result, objectMapper)) {
+                    return true;
+                }
+            }
+        } else if (token == JsonToken.START_ARRAY) {
+            int index = 0;
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                Node child = node.children.get(Integer.toString(index++));
+
+                if (child == null) {
+                    parser.skipChildren();
+                } else if (walk(parser, child, result, objectMapper)) {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Affecte une valeur déjà matérialisée à ses cibles puis descend dans les
+     * chemins plus profonds (ex: "user" et "user.name" mappés ensemble)
+     */
+    private void collect(Object value, Node node, Map<String, Object> result) {
+        if (value == null) {
+            return;
+        }
+
+        for (String target : node.targets) {
+            result.put(target, value);
+        }
+
+        for (Map.Entry<String, Node> child : node.children.entrySet()) {
+            collect(childValue(value, child.getKey()), child.getValue(), result);
+        }
+    }
+
+    private static Object childValue(Object value, String part) {
+        if (value instanceof Map<?, ?> map) {
+            return map.get(part);
+        }
+        if (value instanceof List<?> list) {
+            try {
+                int index = Integer.parseInt(part);
+                return index >= 0 && index < list.size() ? list.get(index) : null;
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    private static final class Node {
+        private final Map<String, Node> children = new HashMap<>();
+        private final List<String> targets = new ArrayList<>(1);
+    }
+}
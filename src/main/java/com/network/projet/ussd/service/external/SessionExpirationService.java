@@ -1,27 +1,37 @@
 package com.network.projet.ussd.service.external;
 
+import com.network.projet.ussd.domain.model.UssdSession;
 import com.network.projet.ussd.repository.UssdSessionRepository;
+import com.network.projet.ussd.service.core.SessionExpiryWheel;
+import com.network.projet.ussd.service.core.SessionLanes;
+import com.network.projet.ussd.service.core.SessionManager;
+import com.network.projet.ussd.service.core.SessionWriteBehindCache;
+import com.network.projet.ussd.service.store.SessionStore;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.List;
 
 /**
  * SessionExpirationService - Service de nettoyage automatique des sessions
  * expirées
  * 
  * Rôle: Cronjob pour nettoyer périodiquement les sessions USSD inactives
- * Appelle: UssdSessionRepository
+ * Appelle: SessionStore, UssdSessionRepository, SessionExpiryWheel, SessionWriteBehindCache
  * 
  * Responsabilités:
- * - Désactivation automatique des sessions expirées
- * - Suppression des anciennes sessions (si nécessaire)
+ * - Désactivation des sessions expirées (roue temporelle, par lots)
+ * - Balayage de réconciliation du store (après redémarrage)
+ * - Rétention de l'archive par partitions journalières (détachement/suppression)
  * - Monitoring et logging du nettoyage
  * 
  * @author Network Projet Team
@@ -32,117 +42,127 @@ import java.util.concurrent.atomic.AtomicInteger;
 @Slf4j
 public class SessionExpirationService {
 
+	private final SessionStore sessionStore;
 	private final UssdSessionRepository sessionRepository;
+	private final SessionWriteBehindCache sessionCache;
+	private final SessionExpiryWheel expiryWheel;
+	private final SessionLanes sessionLanes;
+	private final SessionManager sessionManager;
 
-	@Value("${ussd.session.timeout-minutes:1}")
-	private long sessionTimeoutMinutes;
+	@Value("${ussd.session.expiry.batch-size:500}")
+	private int expiryBatchSize;
 
-	@Value("${ussd.session.cleanup-rate-ms:60000}")
-	private long cleanupRateMs;
+	@Value("${ussd.session.expiry.sweep-grace-seconds:60}")
+	private long sweepGraceSeconds;
 
 	@Value("${ussd.session.hard-delete-after-days:7}")
 	private long hardDeleteAfterDays;
 
-	// ========== MÉTHODE PRINCIPALE ==========
+	@Value("${ussd.session.archive.days-ahead:2}")
+	private int archiveDaysAhead;
+
+	// ========== EXPIRATION (ROUE TEMPORELLE) ==========
 
 	/**
- * Nettoie les sessions expirées (désactive les sessions inactives)
- * Exécuté automatiquement toutes les 60 secondes par défaut
- * 
- * CORRECTIONS:
- * - Cherche les sessions ACTIVES (isActive=true) expirées, pas les inactives
- * 
- * @return Mono<Void> Complété quand le nettoyage est terminé
- */
-@Scheduled(fixedRateString = "${ussd.session.cleanup-rate-ms:60000}")
-public Mono<Void> cleanupExpiredSessions() {
-    LocalDateTime threshold = LocalDateTime.now().minusMinutes(sessionTimeoutMinutes);
-    
-    log.debug("Starting session cleanup: threshold={}, timeout={}min", 
-        threshold, sessionTimeoutMinutes);
-
-    AtomicInteger cleanedCount = new AtomicInteger(0);
-    AtomicInteger errorCount = new AtomicInteger(0);
-
-    return sessionRepository.findByIsActiveTrueAndUpdatedAtBefore(threshold)
-        .flatMap(session -> {
-            log.debug("Expiring session: id={}, phone={}, updatedAt={}", 
-                session.getId(), session.getPhoneNumber(), session.getUpdatedAt());
-            
-            session.setIsActive(false);
-            
-            return sessionRepository.save(session)
-                .doOnSuccess(s -> cleanedCount.incrementAndGet())
-                .doOnError(e -> {
-                    errorCount.incrementAndGet();
-                    log.error("Failed to expire session: id={}", session.getId(), e);
-                })
-                .onErrorResume(e -> Mono.empty());
-        })
-        .then()  // Flux -> Mono<Void>
-        .doOnSuccess(v -> {
-            if (cleanedCount.get() > 0) {
-                log.info("Session cleanup completed: {} sessions expired, {} errors", 
-                    cleanedCount.get(), errorCount.get());
-            } else {
-                log.trace("Session cleanup completed: no expired sessions found");
-            }
-        })
-        .doOnError(e -> log.error("Critical error during session cleanup", e))
-        .onErrorResume(e -> Mono.empty());
-}
+	 * Expire les sessions dont l'échéance est passée depuis le dernier tick
+	 * (aucun balayage du store: les échéances viennent de SessionExpiryWheel)
+	 *
+	 * Pour chaque session, dans sa file d'exécution:
+	 * - copie mémoire prolongée entre-temps: ignorée
+	 * - écriture en attente: persistée comme session terminée
+	 * - sinon: terminée dans le store par lots (SessionStore.expire)
+	 */
+	@Scheduled(fixedRateString = "${ussd.session.expiry.tick-ms:1000}")
+	public void expireDueSessions() {
+		List<String> due = expiryWheel.advance(System.currentTimeMillis());
+		if (due.isEmpty()) {
+			return;
+		}
+
+		log.debug("Expiry wheel: {} sessions due", due.size());
+
+		Flux.fromIterable(due)
+				.flatMap(sessionId -> sessionLanes.run(sessionId, () -> sessionCache.expire(sessionId))
+						.filter(Boolean::booleanValue)
+						.map(expired -> sessionId)
+						.onErrorResume(e -> {
+							log.error("Failed to release expired session: {}", sessionId, e);
+							return Mono.empty();
+						}))
+				.buffer(expiryBatchSize)
+				.concatMap(batch -> sessionStore.expire(batch, LocalDateTime.now())
+						.onErrorResume(e -> {
+							log.error("Failed to expire batch of {} sessions", batch.size(), e);
+							return Mono.just(0);
+						}))
+				.reduce(0, Integer::sum)
+				.subscribe(count -> {
+					if (count > 0) {
+						log.info("Session expiry: {} sessions expired", count);
+					}
+				});
+	}
+
+	/**
+	 * Balayage de réconciliation: sessions qu'aucune roue ne suit (redémarrage,
+	 * nœud arrêté). Une seule requête UPDATE en R2DBC, avec une marge pour laisser
+	 * aux roues et au flush différé le temps de traiter les échéances récentes.
+	 */
+	@Scheduled(initialDelayString = "${ussd.session.expiry.sweep-initial-delay-ms:30000}",
+			fixedDelayString = "${ussd.session.expiry.sweep-interval-ms:900000}")
+	public Mono<Void> reconcileExpiredSessions() {
+		LocalDateTime threshold = LocalDateTime.now().minusSeconds(sweepGraceSeconds);
+
+		return sessionStore.sweepExpired(threshold)
+				.doOnSuccess(count -> {
+					if (count != null && count > 0) {
+						log.info("Session reconciliation sweep: {} sessions expired", count);
+					} else {
+						log.trace("Session reconciliation sweep: no expired sessions found");
+					}
+				})
+				.doOnError(e -> log.error("Critical error during session reconciliation sweep", e))
+				.onErrorResume(e -> Mono.empty())
+				.then();
+	}
 
 	// ========== MÉTHODES SUPPLÉMENTAIRES ==========
 
 	/**
- * Supprime définitivement les sessions très anciennes (hard delete)
- * Exécuté une fois par jour par défaut
- * 
- * CORRECTION:
- * - Utilise doOnSuccess() pour incrémenter le compteur AVANT la suppression
- * - delete() retourne déjà Mono<Void>
- * 
- * @return Mono<Void> Complété quand la suppression est terminée
- */
-@Scheduled(cron = "${ussd.session.hard-delete-cron:0 0 2 * * *}")
-public Mono<Void> hardDeleteOldSessions() {
-
-    LocalDateTime threshold = LocalDateTime.now().minusDays(hardDeleteAfterDays);
-
-    log.info(
-        "Starting hard delete of old sessions: threshold={}, age={} days",
-        threshold, hardDeleteAfterDays
-    );
-
-    AtomicInteger deletedCount = new AtomicInteger(0);
-
-    return sessionRepository.findByIsActiveFalseAndUpdatedAtBefore(threshold)
-        .flatMap(session ->
-            sessionRepository.delete(session)
-                .doOnSuccess(v -> deletedCount.incrementAndGet())
-                .onErrorResume(e -> {
-                    log.error("Failed to delete session: id={}", session.getId(), e);
-                    return Mono.empty();
-                })
-        )
-        .then()
-        .doOnSuccess(v -> {
-            if (deletedCount.get() > 0) {
-                log.info(
-                    "Hard delete completed: {} old sessions permanently deleted",
-                    deletedCount.get()
-                );
-            } else {
-                log.debug("Hard delete completed: no old sessions to delete");
-            }
-        })
-        .doOnError(e -> log.error("Critical error during hard delete", e))
-        .onErrorResume(e -> Mono.empty());
-}
+	 * Rétention de l'archive par partitions journalières (au lieu de supprimer
+	 * les anciennes sessions ligne par ligne)
+	 * - crée les partitions d'archive des prochains jours
+	 * - détache puis supprime celles plus anciennes que hard-delete-after-days
+	 *
+	 * Exécuté au démarrage puis une fois par jour par défaut
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	public void onApplicationReady() {
+		maintainArchivePartitions().subscribe();
+	}
+
+	@Scheduled(cron = "${ussd.session.hard-delete-cron:0 0 2 * * *}")
+	public Mono<Void> maintainArchivePartitions() {
+		log.info("Maintaining session archive partitions: retention={} days, ahead={} days",
+				hardDeleteAfterDays, archiveDaysAhead);
+
+		return sessionRepository.maintainArchivePartitions((int) hardDeleteAfterDays, archiveDaysAhead)
+				.doOnSuccess(dropped -> {
+					if (dropped != null && dropped > 0) {
+						log.info("Session archive maintenance completed: {} daily partitions dropped", dropped);
+					} else {
+						log.debug("Session archive maintenance completed: no partition to drop");
+					}
+				})
+				.doOnError(e -> log.error("Critical error during session archive maintenance", e))
+				.onErrorResume(e -> Mono.empty())
+				.then();
+	}
 
 	/**
-	 * Nettoie manuellement les sessions d'un utilisateur spécifique
+	 * Nettoie manuellement la session active d'un utilisateur spécifique
 	 * Utile pour les opérations admin ou de support
+	 * (store et tier mémoire, dans la file de la session)
 	 * 
 	 * @param phoneNumber Numéro de téléphone de l'utilisateur
 	 * @return Mono<Integer> Nombre de sessions nettoyées
@@ -150,15 +170,15 @@ public Mono<Void> hardDeleteOldSessions() {
 	public Mono<Integer> cleanupUserSessions(String phoneNumber) {
 		log.info("Manually cleaning sessions for user: phone={}", phoneNumber);
 
-		AtomicInteger count = new AtomicInteger(0);
-
-		return sessionRepository.findByPhoneNumberAndIsActiveTrue(phoneNumber)
-				.flatMap(session -> {
-					session.setIsActive(false);
-					return sessionRepository.save(session)
-							.doOnSuccess(s -> count.incrementAndGet());
-				})
-				.then(Mono.fromCallable(count::get))
+		return sessionStore.findActiveByPhoneNumber(phoneNumber)
+				.flatMap(found -> sessionLanes.run(found.getSessionId(),
+						() -> sessionCache.findBySessionId(found.getSessionId())
+								.flatMap(session -> {
+									session.terminate();
+									return sessionCache.save(session);
+								})))
+				.map(terminated -> 1)
+				.defaultIfEmpty(0)
 				.doOnSuccess(total -> log.info("Cleaned {} sessions for phone: {}", total, phoneNumber))
 				.doOnError(e -> log.error("Error cleaning sessions for phone: {}", phoneNumber, e));
 	}
@@ -177,13 +197,13 @@ public Mono<Void> hardDeleteOldSessions() {
 								.activeSessions(tuple.getT1())
 								.inactiveSessions(tuple.getT2())
 								.totalSessions(tuple.getT3())
-								.sessionTimeoutMinutes(sessionTimeoutMinutes)
 								.build())
 				.doOnSuccess(stats -> log.debug("Session stats: {}", stats));
 	}
 
 	/**
 	 * Réactive une session expirée (utile pour le support client)
+	 * La session est relue dans l'historique PostgreSQL puis recréée dans le store
 	 * 
 	 * @param sessionId ID de la session à réactiver
 	 * @return Mono<Boolean> true si réactivé avec succès
@@ -192,18 +212,13 @@ public Mono<Void> hardDeleteOldSessions() {
 		log.info("Attempting to reactivate session: {}", sessionId);
 
 		return sessionRepository.findBySessionId(sessionId)
-				.flatMap(session -> {
-					if (session.getIsActive()) {
+				.flatMap(sessionManager::reactivateSession)
+				.doOnNext(reactivated -> {
+					if (reactivated) {
+						log.info("Session reactivated: {}", sessionId);
+					} else {
 						log.warn("Session already active: {}", sessionId);
-						return Mono.just(false);
 					}
-
-					session.setIsActive(true);
-					session.setUpdatedAt(LocalDateTime.now());
-
-					return sessionRepository.save(session)
-							.map(s -> true)
-							.doOnSuccess(v -> log.info("Session reactivated: {}", sessionId));
 				})
 				.defaultIfEmpty(false)
 				.doOnError(e -> log.error("Failed to reactivate session: {}", sessionId, e));
@@ -220,12 +235,11 @@ public Mono<Void> hardDeleteOldSessions() {
 		private Long activeSessions;
 		private Long inactiveSessions;
 		private Long totalSessions;
-		private Long sessionTimeoutMinutes;
 
 		@Override
 		public String toString() {
-			return String.format("SessionStats{active=%d, inactive=%d, total=%d, timeout=%dmin}",
-					activeSessions, inactiveSessions, totalSessions, sessionTimeoutMinutes);
+			return String.format("SessionStats{active=%d, inactive=%d, total=%d}",
+					activeSessions, inactiveSessions, totalSessions);
 		}
 	}
 
@@ -233,22 +247,25 @@ public Mono<Void> hardDeleteOldSessions() {
 
 	/**
 	 * Calcule le temps restant avant expiration d'une session
+	 * (échéance expiresAt issue de la SessionConfig de son service)
 	 * 
-	 * @param lastActivity Dernière activité de la session
+	 * @param session Session USSD
 	 * @return Duration Temps restant (peut être négatif si déjà expiré)
 	 */
-	public Duration getTimeUntilExpiration(LocalDateTime lastActivity) {
-		LocalDateTime expirationTime = lastActivity.plusMinutes(sessionTimeoutMinutes);
-		return Duration.between(LocalDateTime.now(), expirationTime);
+	public Duration getTimeUntilExpiration(UssdSession session) {
+		if (session.getExpiresAt() == null) {
+			return Duration.ZERO;
+		}
+		return Duration.between(LocalDateTime.now(), session.getExpiresAt());
 	}
 
 	/**
 	 * Vérifie si une session est expirée
 	 * 
-	 * @param lastActivity Dernière activité de la session
+	 * @param session Session USSD
 	 * @return boolean true si la session est expirée
 	 */
-	public boolean isSessionExpired(LocalDateTime lastActivity) {
-		return getTimeUntilExpiration(lastActivity).isNegative();
+	public boolean isSessionExpired(UssdSession session) {
+		return session.isExpired();
 	}
 }
\ No newline at end of file
@@ -0,0 +1,141 @@
+package com.network.projet.ussd.service.store;
+
+import com.network.projet.ussd.domain.model.UssdSession;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * InMemorySessionStore - Sessions stockées dans la mémoire du processus
+ *
+ * Pour un déploiement mono-nœud ou les tests: les dialogues en cours sont
+ * perdus au redémarrage. Les valeurs stockées sont des copies, jamais les
+ * objets manipulés par les étapes.
+ *
+ * @author Network Projet Team
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "ussd.session.store.type", havingValue = "memory")
+public class InMemorySessionStore implements SessionStore {
+
+    private final SessionHistory sessionHistory;
+
+    /**
+     * sessionId → copie de la session active
+     */
+    private final Map<String, UssdSession> sessions = new ConcurrentHashMap<>();
+
+    @Override
+    public Mono<UssdSession> get(String sessionId) {
+        return Mono.justOrEmpty(sessions.get(sessionId)).map(this::copy);
+    }
+
+    @Override
+    public Mono<UssdSession> put(UssdSession session) {
+        return Mono.defer(() -> {
+            write(session, true);
+            return finish(session).thenReturn(session);
+        });
+    }
+
+    @Override
+    public Mono<Boolean> compareAndSet(UssdSession session) {
+        return Mono.defer(() -> write(session, false)
+                ? finish(session).thenReturn(true)
+                : Mono.just(false));
+    }
+
+    @Override
+    public Mono<Void> delete(String sessionId) {
+        return Mono.fromRunnable(() -> sessions.remove(sessionId));
+    }
+
+    @Override
+    public Mono<Integer> expire(Collection<String> sessionIds, LocalDateTime threshold) {
+        return Mono.defer(() -> {
+            List<UssdSession> expired = new ArrayList<>();
+            for (String sessionId : sessionIds) {
+                UssdSession stored = sessions.get(sessionId);
+                if (stored != null && isExpired(stored, threshold) && sessions.remove(sessionId, stored)) {
+                    expired.add(stored);
+                }
+            }
+            return archive(expired);
+        });
+    }
+
+    @Override
+    public Mono<Integer> sweepExpired(LocalDateTime threshold) {
+        return Mono.defer(() -> {
+            List<UssdSession> expired = new ArrayList<>();
+            sessions.forEach((sessionId, stored) -> {
+                if (isExpired(stored, threshold) && sessions.remove(sessionId, stored)) {
+                    expired.add(stored);
+                }
+            });
+            return archive(expired);
+        });
+    }
+
+    @Override
+    public Mono<UssdSession> findActiveByPhoneNumber(String phoneNumber) {
+        return Mono.justOrEmpty(sessions.values().stream()
+                        .filter(session -> Objects.equals(session.getPhoneNumber(), phoneNumber))
+                        .findFirst())
+                .map(this::copy);
+    }
+
+    /**
+     * Écrit (ou retire si terminée) la session, avec ou sans contrôle de version
+     *
+     * @return false en cas de conflit de version
+     */
+    private boolean write(UssdSession session, boolean force) {
+        boolean[] written = {false};
+
+        sessions.compute(session.getSessionId(), (sessionId, stored) -> {
+            Long storedVersion = stored != null ? stored.getVersion() : null;
+            if (!force && !Objects.equals(storedVersion, session.getVersion())) {
+                return stored;
+            }
+
+            written[0] = true;
+            session.setVersion(storedVersion != null ? storedVersion + 1 : 0L);
+            return session.isActive() ? copy(session) : null;
+        });
+
+        return written[0];
+    }
+
+    private Mono<Void> finish(UssdSession session) {
+        return session.isActive() ? Mono.empty() : sessionHistory.record(session);
+    }
+
+    private Mono<Integer> archive(List<UssdSession> expired) {
+        return Flux.fromIterable(expired)
+                .doOnNext(UssdSession::terminate)
+                .concatMap(sessionHistory::record)
+                .then(Mono.fromCallable(expired::size));
+    }
+
+    private static boolean isExpired(UssdSession session, LocalDateTime threshold) {
+        return session.getExpiresAt() != null && session.getExpiresAt().isBefore(threshold);
+    }
+
+    private UssdSession copy(UssdSession session) {
+        return session.toBuilder().build();
+    }
+}
@@ -0,0 +1,97 @@
+package com.network.projet.ussd.service.store;
+
+import com.network.projet.ussd.domain.model.UssdSession;
+import com.network.projet.ussd.repository.UssdSessionRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+/**
+ * R2dbcSessionStore - Sessions stockées dans PostgreSQL (partition active de ussd_sessions)
+ *
+ * La version est la colonne @Version de UssdSession. compareAndSet d'une
+ * session active est un UPDATE conditionnel limité à la partition active;
+ * insertion et terminaison passent par la sauvegarde Spring Data. Un conflit
+ * est signalé par false.
+ *
+ * @author Network Projet Team
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "ussd.session.store.type", havingValue = "r2dbc", matchIfMissing = true)
+public class R2dbcSessionStore implements SessionStore {
+
+    private final UssdSessionRepository sessionRepository;
+
+    @Override
+    public Mono<UssdSession> get(String sessionId) {
+        return sessionRepository.findBySessionIdAndIsActiveTrue(sessionId);
+    }
+
+    @Override
+    public Mono<UssdSession> put(UssdSession session) {
+        // Reprend l'id et la version de la ligne active pour l'écraser (insertion si absente)
+        return sessionRepository.findBySessionIdAndIsActiveTrue(session.getSessionId())
+                .map(stored -> {
+                    session.setId(stored.getId());
+                    session.setVersion(stored.getVersion());
+                    return session;
+                })
+                .switchIfEmpty(Mono.fromSupplier(() -> {
+                    session.setId(null);
+                    session.setVersion(null);
+                    return session;
+                }))
+                .flatMap(sessionRepository::save);
+    }
+
+    @Override
+    public Mono<Boolean> compareAndSet(UssdSession session) {
+        if (session.isActive() && session.getId() != null && session.getVersion() != null) {
+            return sessionRepository.updateActiveSession(session.getId(), session.getVersion(),
+                            session.getServiceCode(), session.getCurrentStateId(), session.getSessionData(),
+                            session.getUpdatedAt(), session.getExpiresAt())
+                    .map(updated -> {
+                        if (updated == 0) {
+                            return false;
+                        }
+                        session.setVersion(session.getVersion() + 1);
+                        return true;
+                    });
+        }
+
+        // Insertion, ou terminaison (déplacement de la ligne vers l'archive)
+        return sessionRepository.save(session)
+                .thenReturn(true)
+                .onErrorResume(OptimisticLockingFailureException.class, e -> Mono.just(false))
+                .onErrorResume(DuplicateKeyException.class, e -> Mono.just(false));
+    }
+
+    @Override
+    public Mono<Void> delete(String sessionId) {
+        return sessionRepository.deleteActiveBySessionId(sessionId).then();
+    }
+
+    @Override
+    public Mono<Integer> expire(Collection<String> sessionIds, LocalDateTime threshold) {
+        return sessionRepository.bulkExpireSessions(sessionIds, threshold);
+    }
+
+    @Override
+    public Mono<Integer> sweepExpired(LocalDateTime threshold) {
+        return sessionRepository.bulkExpireSessions(threshold);
+    }
+
+    @Override
+    public Mono<UssdSession> findActiveByPhoneNumber(String phoneNumber) {
+        return sessionRepository.findByPhoneNumberAndIsActiveTrue(phoneNumber);
+    }
+}
@@ -0,0 +1,263 @@
+package com.network.projet.ussd.service.store;
+
+import com.network.projet.ussd.domain.model.UssdSession;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * RedisSessionStore - Sessions stockées dans un serveur compatible protocole Redis
+ *
+ * Une session active = un hash {keyPrefix}{sessionId} (un champ par colonne,
+ * plus version). Les écritures conditionnelles et l'expiration sont des
+ * scripts Lua (EVAL) atomiques côté serveur. L'index {keyPrefix}phone:{numéro}
+ * → sessionId permet la reprise par numéro de téléphone.
+ *
+ * Les clés portent une expiration native (expiresAt + ttl-grace-seconds):
+ * une session oubliée (nœud arrêté) disparaît d'elle-même, sans archivage.
+ * Les sessions terminées ou expirées normalement sont archivées dans
+ * PostgreSQL (SessionHistory).
+ *
+ * @author Network Projet Team
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "ussd.session.store.type", havingValue = "redis")
+public class RedisSessionStore implements SessionStore {
+
+    /**
+     * KEYS: session, index téléphone
+     * ARGV: version attendue ('' absente, '*' sans contrôle), active ('1'/'0'),
+     * échéance de la clé (epoch ms), sessionId, puis paires champ/valeur
+     * Retour: nouvelle version, -1 en cas de conflit
+     */
+    private static final String WRITE_SCRIPT = """
+            local current = redis.call('HGET', KEYS[1], 'version')
+            if ARGV[1] ~= '*' and (current or '') ~= ARGV[1] then
+                return -1
+            end
+            local version = current and (tonumber(current) + 1) or 0
+            redis.call('DEL', KEYS[1])
+            if ARGV[2] ~= '1' then
+                if redis.call('GET', KEYS[2]) == ARGV[4] then
+                    redis.call('DEL', KEYS[2])
+                end
+                return version
+            end
+            redis.call('HSET', KEYS[1], 'version', version, unpack(ARGV, 5))
+            redis.call('PEXPIREAT', KEYS[1], ARGV[3])
+            redis.call('SET', KEYS[2], ARGV[4])
+            redis.call('PEXPIREAT', KEYS[2], ARGV[3])
+            return version
+            """;
+
+    /**
+     * KEYS: session; ARGV: seuil (epoch ms)
+     * Retour: champs de la session supprimée si expirée au seuil, sinon nil
+     */
+    private static final String EXPIRE_SCRIPT = """
+            local expiresAt = redis.call('HGET', KEYS[1], 'expiresAt')
+            if not expiresAt or tonumber(expiresAt) >= tonumber(ARGV[1]) then
+                return false
+            end
+            local fields = redis.call('HGETALL', KEYS[1])
+            redis.call('DEL', KEYS[1])
+            return fields
+            """;
+
+    private final SessionHistory sessionHistory;
+
+    @Value("${ussd.session.store.redis.host:localhost}")
+    private String host;
+
+    @Value("${ussd.session.store.redis.port:6379}")
+    private int port;
+
+    @Value("${ussd.session.store.redis.password:}")
+    private String password;
+
+    @Value("${ussd.session.store.redis.database:0}")
+    private int database;
+
+    @Value("${ussd.session.store.redis.key-prefix:ussd:session:}")
+    private String keyPrefix;
+
+    @Value("${ussd.session.store.redis.command-timeout-ms:2000}")
+    private long commandTimeoutMs;
+
+    @Value("${ussd.session.store.redis.ttl-grace-seconds:3600}")
+    private long ttlGraceSeconds;
+
+    @Value("${ussd.session.store.redis.concurrency:64}")
+    private int concurrency;
+
+    private RespConnection connection;
+
+    @PostConstruct
+    void init() {
+        this.connection = new RespConnection(host, port, password, database, Duration.ofMillis(commandTimeoutMs));
+        log.info("Redis session store initialized: {}:{}/{} prefix={}", host, port, database, keyPrefix);
+    }
+
+    @PreDestroy
+    void close() {
+        connection.close();
+    }
+
+    // ========== SESSIONSTORE ==========
+
+    @Override
+    public Mono<UssdSession> get(String sessionId) {
+        return connection.execute("HGETALL", sessionKey(sessionId))
+                .mapNotNull(this::toSession);
+    }
+
+    @Override
+    public Mono<UssdSession> put(UssdSession session) {
+        return write(session, "*").thenReturn(session);
+    }
+
+    @Override
+    public Mono<Boolean> compareAndSet(UssdSession session) {
+        String expected = session.getVersion() != null ? session.getVersion().toString() : "";
+        return write(session, expected);
+    }
+
+    @Override
+    public Mono<Void> delete(String sessionId) {
+        return connection.execute("DEL", sessionKey(sessionId)).then();
+    }
+
+    @Override
+    public Mono<Integer> expire(Collection<String> sessionIds, LocalDateTime threshold) {
+        long thresholdMillis = toEpochMilli(threshold);
+
+        return Flux.fromIterable(sessionIds)
+                .flatMap(sessionId -> connection.execute("EVAL", EXPIRE_SCRIPT, 1,
+                                sessionKey(sessionId), thresholdMillis)
+                        .mapNotNull(this::toSession), concurrency)
+                .doOnNext(UssdSession::terminate)
+                .concatMap(session -> sessionHistory.record(session).thenReturn(session))
+                .count()
+                .map(Long::intValue);
+    }
+
+    @Override
+    public Mono<UssdSession> findActiveByPhoneNumber(String phoneNumber) {
+        return connection.execute("GET", phoneKey(phoneNumber))
+                .flatMap(sessionId -> get(sessionId.toString()))
+                .filter(session -> phoneNumber.equals(session.getPhoneNumber()));
+    }
+
+    // ========== ENCODAGE ==========
+
+    /**
+     * Écrit la session (supprimée et archivée si terminée)
+     *
+     * @return false en cas de conflit de version
+     */
+    private Mono<Boolean> write(UssdSession session, String expectedVersion) {
+        List<Object> args = new ArrayList<>();
+        args.add("EVAL");
+        args.add(WRITE_SCRIPT);
+        args.add(2);
+        args.add(sessionKey(session.getSessionId()));
+        args.add(phoneKey(session.getPhoneNumber()));
+        args.add(expectedVersion);
+        args.add(session.isActive() ? "1" : "0");
+        args.add(toEpochMilli(session.getExpiresAt()) + ttlGraceSeconds * 1000);
+        args.add(session.getSessionId());
+
+        field(args, "sessionId", session.getSessionId());
+        field(args, "phoneNumber", session.getPhoneNumber());
+        field(args, "serviceCode", session.getServiceCode());
+        field(args, "currentStateId", session.getCurrentStateId());
+        field(args, "sessionData", session.getSessionData());
+        field(args, "createdAt", session.getCreatedAt());
+        field(args, "updatedAt", session.getUpdatedAt());
+        field(args, "expiresAt", session.getExpiresAt() != null ? toEpochMilli(session.getExpiresAt()) : null);
+
+        return connection.execute(args.toArray())
+                .flatMap(reply -> {
+                    long version = (Long) reply;
+                    if (version < 0) {
+                        return Mono.just(false);
+                    }
+
+                    session.setVersion(version);
+                    return session.isActive()
+                            ? Mono.just(true)
+                            : sessionHistory.record(session).thenReturn(true);
+                });
+    }
+
+    private static void field(List<Object> args, String name, Object value) {
+        if (value != null) {
+            args.add(name);
+            args.add(value);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private UssdSession toSession(Object reply) {
+        List<Object> values = (List<Object>) reply;
+        if (values.isEmpty()) {
+            return null;
+        }
+
+        Map<String, String> fields = new HashMap<>();
+        for (int i = 0; i + 1 < values.size(); i += 2) {
+            fields.put(values.get(i).toString(), values.get(i + 1).toString());
+        }
+
+        return UssdSession.builder()
+                .sessionId(fields.get("sessionId"))
+                .phoneNumber(fields.get("phoneNumber"))
+                .serviceCode(fields.get("serviceCode"))
+                .currentStateId(fields.get("currentStateId"))
+                .sessionData(fields.getOrDefault("sessionData", "{}"))
+                .isActive(true)
+                .createdAt(parseDateTime(fields.get("createdAt")))
+                .updatedAt(parseDateTime(fields.get("updatedAt")))
+                .expiresAt(fields.containsKey("expiresAt")
+                        ? LocalDateTime.ofInstant(Instant.ofEpochMilli(Long.parseLong(fields.get("expiresAt"))),
+                                ZoneId.systemDefault())
+                        : null)
+                .version(Long.parseLong(fields.get("version")))
+                .build();
+    }
+
+    private static LocalDateTime parseDateTime(String value) {
+        return value != null ? LocalDateTime.parse(value) : null;
+    }
+
+    private static long toEpochMilli(LocalDateTime dateTime) {
+        LocalDateTime value = dateTime != null ? dateTime : LocalDateTime.now();
+        return value.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private String sessionKey(String sessionId) {
+        return keyPrefix + sessionId;
+    }
+
+    private String phoneKey(String phoneNumber) {
+        return keyPrefix + "phone:" + phoneNumber;
+    }
+}
@@ -0,0 +1,285 @@
+package com.network.projet.ussd.service.store;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.ByteToMessageDecoder;
+import io.netty.handler.codec.DecoderException;
+import io.netty.util.ByteProcessor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.InvalidDataAccessResourceUsageException;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.netty.Connection;
+import reactor.netty.tcp.TcpClient;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * RespConnection - Client minimal du protocole Redis (RESP2) sur reactor-netty
+ *
+ * Une seule connexion TCP partagée et pipelinée: les réponses arrivent dans
+ * l'ordre des commandes, chacune complète la plus ancienne commande en
+ * attente. La connexion est ouverte à la première commande et rouverte
+ * après une coupure (les commandes en vol échouent).
+ *
+ * Réponses: String (simple ou bulk), Long, List (tableau); une réponse nulle
+ * donne un Mono vide, une erreur RESP un InvalidDataAccessResourceUsageException.
+ *
+ * @author Network Projet Team
+ */
+@Slf4j
+final class RespConnection {
+
+    private static final Object NIL = new Object();
+    private static final Object INCOMPLETE = new Object();
+    private static final byte[] CRLF = {'\r', '\n'};
+
+    private final TcpClient tcpClient;
+    private final String password;
+    private final int database;
+    private final Duration commandTimeout;
+
+    private final AtomicReference<Mono<Link>> link = new AtomicReference<>();
+
+    RespConnection(String host, int port, String password, int database, Duration commandTimeout) {
+        this.tcpClient = TcpClient.create().host(host).port(port);
+        this.password = password;
+        this.database = database;
+        this.commandTimeout = commandTimeout;
+    }
+
+    /**
+     * Exécute une commande (arguments convertis en chaînes UTF-8)
+     */
+    Mono<Object> execute(Object... args) {
+        return link()
+                .flatMap(current -> current.send(args))
+                .timeout(commandTimeout, Mono.error(() -> new TimeoutException(
+                        "Command timed out after " + commandTimeout.toMillis() + "ms: " + args[0])))
+                .onErrorMap(e -> !(e instanceof DataAccessException),
+                        e -> new DataAccessResourceFailureException("Session store unavailable: " + e.getMessage(), e));
+    }
+
+    /**
+     * Ferme la connexion courante
+     */
+    void close() {
+        Mono<Link> current = link.getAndSet(null);
+        if (current != null) {
+            current.subscribe(Link::dispose, e -> { });
+        }
+    }
+
+    private Mono<Link> link() {
+        Mono<Link> current = link.get();
+        if (current != null) {
+            return current;
+        }
+
+        AtomicReference<Mono<Link>> self = new AtomicReference<>();
+        Mono<Link> created = tcpClient.connect()
+                .map(connection -> {
+                    Link opened = new Link(connection);
+                    connection.addHandlerLast("resp-decoder", new RespDecoder());
+                    connection.inbound().receiveObject().subscribe(opened::onReply, e -> opened.dispose());
+                    connection.onDispose(() -> {
+                        link.compareAndSet(self.get(), null);
+                        opened.failPending();
+                    });
+                    return opened;
+                })
+                .flatMap(this::handshake)
+                .doOnNext(opened -> log.info("Session store connected: {}", opened.channel.remoteAddress()))
+                .doOnError(e -> link.compareAndSet(self.get(), null))
+                .cache();
+        self.set(created);
+
+        return link.compareAndSet(null, created) ? created : link();
+    }
+
+    private Mono<Link> handshake(Link opened) {
+        Mono<Object> auth = password == null || password.isEmpty()
+                ? Mono.empty()
+                : opened.send(new Object[]{"AUTH", password});
+        Mono<Object> select = database == 0
+                ? Mono.empty()
+                : opened.send(new Object[]{"SELECT", database});
+
+        return auth.then(select).thenReturn(opened)
+                .doOnError(e -> opened.dispose());
+    }
+
+    // ========== CONNEXION ==========
+
+    /**
+     * Connexion ouverte et file FIFO de ses commandes en attente de réponse
+     */
+    private static final class Link {
+
+        private final Connection connection;
+        private final Channel channel;
+        private final Queue<Sinks.One<Object>> pending = new ConcurrentLinkedQueue<>();
+
+        Link(Connection connection) {
+            this.connection = connection;
+            this.channel = connection.channel();
+        }
+
+        Mono<Object> send(Object[] args) {
+            return Mono.defer(() -> {
+                Sinks.One<Object> reply = Sinks.one();
+
+                // L'ordre de la file doit être celui du fil: enfilage et écriture
+                // sont atomiques et l'écriture passe toujours par la boucle d'événements
+                synchronized (this) {
+                    if (!channel.isActive()) {
+                        return Mono.error(new DataAccessResourceFailureException("Session store connection closed"));
+                    }
+                    pending.add(reply);
+                    channel.eventLoop().execute(() -> channel.writeAndFlush(encode(channel.alloc(), args))
+                            .addListener(ChannelFutureListener.CLOSE_ON_FAILURE));
+                }
+
+                return reply.asMono().flatMap(RespConnection::unwrap);
+            });
+        }
+
+        void onReply(Object msg) {
+            Sinks.One<Object> reply = pending.poll();
+            if (reply != null) {
+                reply.tryEmitValue(msg);
+            } else {
+                log.warn("Unexpected reply from session store: {}", msg);
+            }
+        }
+
+        void failPending() {
+            Sinks.One<Object> reply;
+            while ((reply = pending.poll()) != null) {
+                reply.tryEmitError(new DataAccessResourceFailureException("Session store connection closed"));
+            }
+        }
+
+        void dispose() {
+            connection.dispose();
+        }
+    }
+
+    private static Mono<Object> unwrap(Object reply) {
+        if (reply == NIL) {
+            return Mono.empty();
+        }
+        if (reply instanceof RespError error) {
+            return Mono.error(new InvalidDataAccessResourceUsageException(error.message()));
+        }
+        return Mono.just(reply);
+    }
+
+    // ========== PROTOCOLE ==========
+
+    static ByteBuf encode(ByteBufAllocator alloc, Object[] args) {
+        ByteBuf buf = alloc.buffer();
+        buf.writeByte('*').writeCharSequence(Integer.toString(args.length), StandardCharsets.US_ASCII);
+        buf.writeBytes(CRLF);
+
+        for (Object arg : args) {
+            byte[] bytes = String.valueOf(arg).getBytes(StandardCharsets.UTF_8);
+            buf.writeByte('$').writeCharSequence(Integer.toString(bytes.length), StandardCharsets.US_ASCII);
+            buf.writeBytes(CRLF).writeBytes(bytes).writeBytes(CRLF);
+        }
+
+        return buf;
+    }
+
+    /**
+     * Décodeur RESP2: une réponse complète par message
+     */
+    static final class RespDecoder extends ByteToMessageDecoder {
+
+        @Override
+        protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) {
+            int start = in.readerIndex();
+            Object reply = parse(in);
+            if (reply == INCOMPLETE) {
+                in.readerIndex(start);
+                return;
+            }
+            out.add(reply == null ? NIL : reply);
+        }
+
+        private static Object parse(ByteBuf in) {
+            if (!in.isReadable()) {
+                return INCOMPLETE;
+            }
+
+            byte type = in.readByte();
+            String line = readLine(in);
+            if (line == null) {
+                return INCOMPLETE;
+            }
+
+            switch (type) {
+                case '+':
+                    return line;
+                case '-':
+                    return new RespError(line);
+                case ':':
+                    return Long.parseLong(line);
+                case '$': {
+                    int length = Integer.parseInt(line);
+                    if (length < 0) {
+                        return null;
+                    }
+                    if (in.readableBytes() < length + 2) {
+                        return INCOMPLETE;
+                    }
+                    String value = in.toString(in.readerIndex(), length, StandardCharsets.UTF_8);
+                    in.skipBytes(length + 2);
+                    return value;
+                }
+                case '*': {
+                    int count = Integer.parseInt(line);
+                    if (count < 0) {
+                        return null;
+                    }
+                    List<Object> values = new ArrayList<>(count);
+                    for (int i = 0; i < count; i++) {
+                        Object value = parse(in);
+                        if (value == INCOMPLETE) {
+                            return INCOMPLETE;
+                        }
+                        values.add(value);
+                    }
+                    return values;
+                }
+                default:
+                    throw new DecoderException("Unknown RESP type: " + (char) type);
+            }
+        }
+
+        private static String readLine(ByteBuf in) {
+            int lf = in.forEachByte(ByteProcessor.FIND_LF);
+            if (lf < 0) {
+                return null;
+            }
+            String line = in.toString(in.readerIndex(), lf - 1 - in.readerIndex(), StandardCharsets.US_ASCII);
+            in.readerIndex(lf + 1);
+            return line;
+        }
+    }
+
+    private record RespError(String message) {
+    }
+}
@@ -0,0 +1,52 @@
+package com.network.projet.ussd.service.store;
+
+import com.network.projet.ussd.domain.model.UssdSession;
+import com.network.projet.ussd.repository.UssdSessionRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/**
+ * SessionHistory - Archivage PostgreSQL des sessions terminées
+ *
+ * Utilisé par les backends hors base (memory, redis): une session terminée
+ * quitte le store et une copie inactive est insérée dans la partition
+ * d'archive de ussd_sessions (statistiques, support, rétention).
+ *
+ * Un échec d'archivage est journalisé sans faire échouer l'étape USSD.
+ *
+ * @author Network Projet Team
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SessionHistory {
+
+    private final UssdSessionRepository sessionRepository;
+
+    @Value("${ussd.session.store.history-enabled:true}")
+    private boolean enabled;
+
+    /**
+     * Archive une session terminée
+     */
+    public Mono<Void> record(UssdSession session) {
+        if (!enabled) {
+            return Mono.empty();
+        }
+
+        UssdSession archived = session.toBuilder()
+                .id(null)
+                .version(null)
+                .isActive(false)
+                .build();
+        archived.prePersist();
+
+        return sessionRepository.save(archived)
+                .doOnError(e -> log.error("Failed to archive session: {}", session.getSessionId(), e))
+                .onErrorResume(e -> Mono.empty())
+                .then();
+    }
+}
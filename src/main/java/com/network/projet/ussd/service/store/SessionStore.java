@@ -0,0 +1,72 @@
+package com.network.projet.ussd.service.store;
+
+import com.network.projet.ussd.domain.model.UssdSession;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+/**
+ * SessionStore - SPI de stockage des sessions USSD actives
+ *
+ * Implémentations (choisies par ussd.session.store.type):
+ * - r2dbc: PostgreSQL via UssdSessionRepository (défaut)
+ * - memory: en mémoire du processus (mono-nœud, tests)
+ * - redis: serveur compatible protocole Redis (état de dialogue à faible latence)
+ *
+ * Contrat de version (verrouillage optimiste): compareAndSet n'écrit que si
+ * la version stockée est celle de la session (absente pour une nouvelle
+ * session), puis incrémente la version de l'objet écrit.
+ *
+ * Les backends hors base écrivent les sessions terminées dans l'historique
+ * PostgreSQL (SessionHistory).
+ *
+ * @author Network Projet Team
+ */
+public interface SessionStore {
+
+    /**
+     * Session active d'un sessionId, ou empty
+     */
+    Mono<UssdSession> get(String sessionId);
+
+    /**
+     * Écrit une session sans contrôle de version (écrase la valeur stockée)
+     */
+    Mono<UssdSession> put(UssdSession session);
+
+    /**
+     * Écrit une session si la version stockée est toujours la sienne
+     *
+     * @return false si la session a été modifiée entre-temps (par un autre nœud)
+     */
+    Mono<Boolean> compareAndSet(UssdSession session);
+
+    /**
+     * Supprime la session active d'un sessionId
+     */
+    Mono<Void> delete(String sessionId);
+
+    /**
+     * Termine un lot de sessions encore expirées au seuil donné
+     * (une session prolongée entre-temps est épargnée)
+     *
+     * @return Nombre de sessions terminées
+     */
+    Mono<Integer> expire(Collection<String> sessionIds, LocalDateTime threshold);
+
+    /**
+     * Termine toutes les sessions expirées au seuil donné (balayage de réconciliation)
+     * Sans effet pour les backends à expiration native
+     */
+    default Mono<Integer> sweepExpired(LocalDateTime threshold) {
+        return Mono.just(0);
+    }
+
+    /**
+     * Session active d'un numéro de téléphone, si le backend sait la retrouver
+     */
+    default Mono<UssdSession> findActiveByPhoneNumber(String phoneNumber) {
+        return Mono.empty();
+    }
+}
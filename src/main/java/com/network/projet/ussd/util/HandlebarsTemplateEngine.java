@@ -1,13 +1,18 @@
 package com.network.projet.ussd.util;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
 import com.github.jknack.handlebars.Handlebars;
 import com.github.jknack.handlebars.Helper;
 import com.github.jknack.handlebars.Options;
 import com.github.jknack.handlebars.Template;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
+import java.util.Collection;
 import java.text.DecimalFormat;
 import java.text.DecimalFormatSymbols;
 import java.time.LocalDate;
@@ -26,6 +31,9 @@ import java.util.Map;
  * - Conditionals: {{#if condition}}...{{/if}}
  * - Custom helpers: {{currency amount}}, {{boolean value}}
  * 
+ * Compiled templates are kept in a bounded cache keyed by template source
+ * (weighted by source length) and pre-warmed when an automaton is loaded.
+ * 
  * @author Network Projet Team
  * @since 2026-01-24
  * @version 2.0.0
@@ -34,8 +42,15 @@ import java.util.Map;
 @Component
 public class HandlebarsTemplateEngine {
     
+    private static final String MUSTACHE_OPEN = "{{";
+    
     private final Handlebars handlebars;
     
+    /**
+     * Compiled templates keyed by template source
+     */
+    private final Cache<String, Template> templateCache;
+    
     private static final DateTimeFormatter DATE_FORMATTER = 
         DateTimeFormatter.ofPattern("dd/MM/yyyy");
     
@@ -51,8 +66,15 @@ public class HandlebarsTemplateEngine {
         NUMBER_FORMAT = new DecimalFormat("#,##0.##", symbols);
     }
     
-    public HandlebarsTemplateEngine() {
+    public HandlebarsTemplateEngine(
+        @Value("${ussd.template.cache.max-weight:2000000}") long maxWeight
+    ) {
         this.handlebars = new Handlebars();
+        this.templateCache = Caffeine.newBuilder()
+            .maximumWeight(maxWeight)
+            .weigher((String source, Template template) -> source.length())
+            .recordStats()
+            .build();
         registerCustomHelpers();
     }
     
@@ -72,15 +94,78 @@ public class HandlebarsTemplateEngine {
             variables = new HashMap<>();
         }
         
+        // Static text (most menus): nothing to compile
+        if (!templateString.contains(MUSTACHE_OPEN)) {
+            return templateString;
+        }
+        
         try {
-            Template template = handlebars.compileInline(templateString);
+            Template template = compile(templateString);
             return template.apply(variables);
-        } catch (IOException e) {
+        } catch (IOException | RuntimeException e) {
             log.error("Failed to render template: {}", templateString, e);
             return templateString; // Return original if rendering fails
         }
     }
     
+    /**
+     * Pre-compile templates into the cache (e.g. all state messages of an automaton)
+     * 
+     * @param templateStrings Template sources
+     * @return Number of templates compiled
+     */
+    public int precompile(Collection<String> templateStrings) {
+        if (templateStrings == null) {
+            return 0;
+        }
+        
+        int compiled = 0;
+        for (String templateString : templateStrings) {
+            if (templateString == null || !templateString.contains(MUSTACHE_OPEN)) {
+                continue;
+            }
+            try {
+                compile(templateString);
+                compiled++;
+            } catch (RuntimeException e) {
+                log.warn("Failed to pre-compile template: {}", templateString, e);
+            }
+        }
+        return compiled;
+    }
+    
+    /**
+     * Template cache statistics (hits, misses, evictions)
+     */
+    public TemplateCacheStats getCacheStats() {
+        CacheStats stats = templateCache.stats();
+        
+        return TemplateCacheStats.builder()
+            .hitCount(stats.hitCount())
+            .missCount(stats.missCount())
+            .hitRate(stats.hitRate())
+            .evictionCount(stats.evictionCount())
+            .evictionWeight(stats.evictionWeight())
+            .size(templateCache.estimatedSize())
+            .weightedSize(templateCache.policy().eviction()
+                .map(eviction -> eviction.weightedSize().orElse(0L))
+                .orElse(0L))
+            .build();
+    }
+    
+    /**
+     * Get compiled template from cache, compiling it on miss
+     */
+    private Template compile(String templateString) {
+        return templateCache.get(templateString, source -> {
+            try {
+                return handlebars.compileInline(source);
+            } catch (IOException e) {
+                throw new IllegalArgumentException("Invalid template: " + source, e);
+            }
+        });
+    }
+    
     /**
      * Render entire map (for API body templates)
      * 
@@ -249,4 +334,19 @@ public class HandlebarsTemplateEngine {
     return ((Number) context).intValue() + ((Number) options.param(0)).intValue();
 });
     }
+    
+    /**
+     * Template cache statistics for monitoring
+     */
+    @lombok.Data
+    @lombok.Builder
+    public static class TemplateCacheStats {
+        private long hitCount;
+        private long missCount;
+        private double hitRate;
+        private long evictionCount;
+        private long evictionWeight;
+        private long size;
+        private long weightedSize;
+    }
 }
\ No newline at end of file
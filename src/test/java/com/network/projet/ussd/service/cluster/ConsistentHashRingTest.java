@@ -0,0 +1,110 @@
+package com.network.projet.ussd.service.cluster;
+
+import com.network.projet.ussd.domain.model.ClusterNode;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for ConsistentHashRing.
+ */
+class ConsistentHashRingTest {
+
+    private static final int KEYS = 10_000;
+
+    private static final ClusterNode A = new ClusterNode("node-a", "http://a:8080");
+    private static final ClusterNode B = new ClusterNode("node-b", "http://b:8080");
+    private static final ClusterNode C = new ClusterNode("node-c", "http://c:8080");
+    private static final ClusterNode D = new ClusterNode("node-d", "http://d:8080");
+
+    private static List<String> keys() {
+        return IntStream.range(0, KEYS).mapToObj(i -> "session-" + i).toList();
+    }
+
+    @Test
+    void emptyRingHasNoOwner() {
+        ConsistentHashRing ring = new ConsistentHashRing(List.of(), 128);
+
+        assertTrue(ring.isEmpty());
+        assertNull(ring.ownerOf("session-1"));
+    }
+
+    @Test
+    void singleNodeOwnsEveryKey() {
+        ConsistentHashRing ring = new ConsistentHashRing(List.of(A), 128);
+
+        keys().forEach(key -> assertSame(A, ring.ownerOf(key)));
+    }
+
+    /**
+     * Même liste de membres, même propriétaire, quel que soit l'ordre (nœuds distincts).
+     */
+    @Test
+    void ownershipIsDeterministicAcrossInstances() {
+        ConsistentHashRing first = new ConsistentHashRing(List.of(A, B, C), 128);
+        ConsistentHashRing second = new ConsistentHashRing(List.of(C, A, B), 128);
+
+        keys().forEach(key -> assertEquals(first.ownerOf(key).getNodeId(), second.ownerOf(key).getNodeId()));
+    }
+
+    @Test
+    void keysAreSpreadAcrossNodes() {
+        ConsistentHashRing ring = new ConsistentHashRing(List.of(A, B, C, D), 128);
+
+        Map<String, Integer> counts = new HashMap<>();
+        keys().forEach(key -> counts.merge(ring.ownerOf(key).getNodeId(), 1, Integer::sum));
+
+        assertEquals(4, counts.size());
+        counts.values().forEach(count ->
+                assertTrue(count > KEYS / 4 * 0.7 && count < KEYS / 4 * 1.3, "unbalanced: " + counts));
+    }
+
+    /**
+     * L'arrivée d'un nœud ne déplace que des clés vers lui (~1/N).
+     */
+    @Test
+    void addingNodeOnlyMovesKeysToIt() {
+        ConsistentHashRing before = new ConsistentHashRing(List.of(A, B, C), 128);
+        ConsistentHashRing after = new ConsistentHashRing(List.of(A, B, C, D), 128);
+
+        int moved = 0;
+        for (String key : keys()) {
+            ClusterNode previous = before.ownerOf(key);
+            ClusterNode current = after.ownerOf(key);
+            if (current != previous) {
+                assertSame(D, current);
+                moved++;
+            }
+        }
+
+        assertTrue(moved > KEYS / 4 * 0.7 && moved < KEYS / 4 * 1.3, "moved " + moved);
+    }
+
+    @Test
+    void removingNodeOnlyMovesItsKeys() {
+        ConsistentHashRing before = new ConsistentHashRing(List.of(A, B, C), 128);
+        ConsistentHashRing after = new ConsistentHashRing(List.of(A, C), 128);
+
+        for (String key : keys()) {
+            ClusterNode previous = before.ownerOf(key);
+            if (previous != B) {
+                assertSame(previous, after.ownerOf(key));
+            }
+        }
+    }
+
+    @Test
+    void hashIsStable() {
+        assertEquals(ConsistentHashRing.hash("session-1"), ConsistentHashRing.hash("session-1"));
+        assertNotEquals(ConsistentHashRing.hash("session-1"), ConsistentHashRing.hash("session-2"));
+    }
+}
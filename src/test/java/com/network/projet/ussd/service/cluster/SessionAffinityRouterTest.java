@@ -0,0 +1,132 @@
+package com.network.projet.ussd.service.cluster;
+
+import com.network.projet.ussd.domain.model.ClusterNode;
+import com.network.projet.ussd.dto.request.UssdRequest;
+import com.network.projet.ussd.dto.response.UssdResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.net.URI;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for SessionAffinityRouter (mode redirect).
+ */
+class SessionAffinityRouterTest {
+
+    private static final ClusterNode SELF = new ClusterNode("node-a", "http://node-a:8080");
+    private static final ClusterNode OTHER = new ClusterNode("node-b", "http://node-b:8080");
+
+    private final UssdResponse localResponse = UssdResponse.builder().message("local").build();
+    private final Supplier<Mono<UssdResponse>> local = () -> Mono.just(localResponse);
+
+    private SessionAffinityRouter router;
+    private String remoteSessionId;
+
+    @BeforeEach
+    void setUp() {
+        ClusterMembership membership = mock(ClusterMembership.class);
+        when(membership.members(any())).thenReturn(Mono.just(List.of(SELF, OTHER)));
+
+        router = new SessionAffinityRouter(membership, WebClient.builder());
+        ReflectionTestUtils.setField(router, "enabled", true);
+        ReflectionTestUtils.setField(router, "nodeId", SELF.getNodeId());
+        ReflectionTestUtils.setField(router, "nodeUrl", SELF.getBaseUrl());
+        ReflectionTestUtils.setField(router, "affinityKey", "session");
+        ReflectionTestUtils.setField(router, "forwardMode", "redirect");
+        ReflectionTestUtils.setField(router, "virtualNodes", 16);
+        ReflectionTestUtils.setField(router, "forwardTimeoutMs", 1000L);
+        ReflectionTestUtils.setField(router, "endpointPath", "/api/ussd");
+        ReflectionTestUtils.setField(router, "sessionStoreType", "r2dbc");
+        router.init();
+        router.refreshMembership();
+
+        ConsistentHashRing ring = new ConsistentHashRing(List.of(SELF, OTHER), 16);
+        remoteSessionId = IntStream.range(0, 1000)
+                .mapToObj(i -> "session-" + i)
+                .filter(id -> ring.ownerOf(id).equals(OTHER))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private UssdRequest request(String sessionId) {
+        return UssdRequest.builder()
+                .sessionId(sessionId)
+                .phoneNumber("237690000001")
+                .build();
+    }
+
+    @Test
+    void redirectsToOwnerWithHopMarker() {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.post("/api/ussd"));
+
+        StepVerifier.create(router.route(request(remoteSessionId), exchange, local)).verifyComplete();
+
+        assertEquals(HttpStatus.TEMPORARY_REDIRECT, exchange.getResponse().getStatusCode());
+        URI location = exchange.getResponse().getHeaders().getLocation();
+        assertEquals("node-b", location.getHost());
+        assertEquals("/api/ussd", location.getPath());
+        assertEquals("node-a", UriComponentsBuilder.fromUri(location).build()
+                .getQueryParams().getFirst(SessionAffinityRouter.FORWARDED_BY_PARAM));
+        assertEquals(1, router.getStats().getRedirectedRequests());
+    }
+
+    /**
+     * Une requête redirigée n'est jamais redirigée à nouveau (anneaux divergents).
+     */
+    @Test
+    void redirectedRequestIsProcessedLocally() {
+        MockServerWebExchange exchange = MockServerWebExchange.from(
+                MockServerHttpRequest.post("/api/ussd")
+                        .queryParam(SessionAffinityRouter.FORWARDED_BY_PARAM, "node-b"));
+
+        StepVerifier.create(router.route(request(remoteSessionId), exchange, local))
+                .expectNext(localResponse)
+                .verifyComplete();
+
+        assertNull(exchange.getResponse().getStatusCode());
+        assertEquals(0, router.getStats().getRedirectedRequests());
+    }
+
+    @Test
+    void forwardedRequestIsProcessedLocally() {
+        MockServerWebExchange exchange = MockServerWebExchange.from(
+                MockServerHttpRequest.post("/api/ussd")
+                        .header(SessionAffinityRouter.FORWARDED_BY_HEADER, "node-b"));
+
+        StepVerifier.create(router.route(request(remoteSessionId), exchange, local))
+                .expectNext(localResponse)
+                .verifyComplete();
+    }
+
+    /**
+     * Le store memory n'est pas partagé: refusé quand le cluster est activé.
+     */
+    @Test
+    void clusterRejectsMemoryStore() {
+        ReflectionTestUtils.setField(router, "sessionStoreType", "memory");
+
+        assertThrows(IllegalStateException.class, router::init);
+
+        ReflectionTestUtils.setField(router, "enabled", false);
+        assertDoesNotThrow(router::init);
+    }
+}
@@ -0,0 +1,134 @@
+package com.network.projet.ussd.service.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for ConditionParser and the ConditionExpression semantics.
+ */
+class ConditionParserTest {
+
+    @Test
+    void parsesPrecedenceAndGrouping() {
+        ConditionExpression expression = ConditionParser.parse("a || b && !c");
+
+        ConditionExpression.Or or = assertInstanceOf(ConditionExpression.Or.class, expression);
+        ConditionExpression.And and = assertInstanceOf(ConditionExpression.And.class, or.right());
+        assertInstanceOf(ConditionExpression.Not.class, and.right());
+
+        ConditionExpression grouped = ConditionParser.parse("(a || b) && c");
+        assertInstanceOf(ConditionExpression.And.class, grouped);
+    }
+
+    @Test
+    void parsesLiterals() {
+        ConditionExpression.Comparison comparison = assertInstanceOf(ConditionExpression.Comparison.class,
+                ConditionParser.parse("balance >= -12.5"));
+
+        assertEquals(ConditionExpression.Operator.GE, comparison.operator());
+        assertEquals(new ConditionExpression.Literal(new BigDecimal("-12.5")), comparison.right());
+
+        assertEquals(new ConditionExpression.Literal(null), ConditionParser.parse("null"));
+        assertEquals(new ConditionExpression.Literal(Boolean.TRUE), ConditionParser.parse("true"));
+        assertEquals(new ConditionExpression.Literal("a b"), ConditionParser.parse("'a b'"));
+    }
+
+    /**
+     * Un identifiant pointé est découpé en chemin; seul l'opérande droit
+     * garde son texte pour le repli historique en mot nu.
+     */
+    @Test
+    void splitsDottedIdentifiersIntoPaths() {
+        ConditionExpression.Comparison comparison = assertInstanceOf(ConditionExpression.Comparison.class,
+                ConditionParser.parse("user.status == ACTIVE"));
+
+        ConditionExpression.Path left = assertInstanceOf(ConditionExpression.Path.class, comparison.left());
+        assertArrayEquals(new String[]{"user", "status"}, left.parts());
+        assertNull(left.bareWord());
+
+        ConditionExpression.Path right = assertInstanceOf(ConditionExpression.Path.class, comparison.right());
+        assertEquals("ACTIVE", right.bareWord());
+    }
+
+    @Test
+    void rejectsInvalidExpressions() {
+        assertThrows(IllegalArgumentException.class, () -> ConditionParser.parse("a == 'open"));
+        assertThrows(IllegalArgumentException.class, () -> ConditionParser.parse("(a && b"));
+        assertThrows(IllegalArgumentException.class, () -> ConditionParser.parse("a = b"));
+        assertThrows(IllegalArgumentException.class, () -> ConditionParser.parse("a b"));
+    }
+
+    /**
+     * Chemins imbriqués et index de liste.
+     */
+    @Test
+    void evaluatesNestedPaths() {
+        Map<String, Object> data = Map.of(
+                "user", Map.of("balance", 750),
+                "items", List.of(Map.of("name", "airtime")));
+
+        assertTrue(ConditionParser.parse("user.balance >= 500").test(data));
+        assertTrue(ConditionParser.parse("items.0.name == 'airtime'").test(data));
+        assertFalse(ConditionParser.parse("items.3.name != null").test(data));
+        assertFalse(ConditionParser.parse("user.balance.x == 1").test(data));
+    }
+
+    /**
+     * Comportement modifié: une clé plate "a.b" n'est plus trouvée par a.b.
+     */
+    @Test
+    void dottedIdentifierNoLongerMatchesFlatKey() {
+        Map<String, Object> data = Map.of("user.status", "ACTIVE");
+
+        assertFalse(ConditionParser.parse("user.status == 'ACTIVE'").test(data));
+        assertTrue(ConditionParser.parse("user.status == null").test(data));
+    }
+
+    /**
+     * Comportement modifié: un false stocké est faux (il suffisait auparavant
+     * que la clé soit présente et non nulle).
+     */
+    @Test
+    void storedFalseIsFalsy() {
+        ConditionExpression flag = ConditionParser.parse("flag");
+
+        assertFalse(flag.test(Map.of("flag", false)));
+        assertTrue(flag.test(Map.of("flag", true)));
+        assertTrue(flag.test(Map.of("flag", "false")));
+        assertTrue(flag.test(Map.of("flag", 0)));
+        assertFalse(flag.test(Map.of()));
+    }
+
+    /**
+     * Syntaxe historique: mot nu à droite comparé comme texte si absent des données.
+     */
+    @Test
+    void bareWordFallsBackToLiteral() {
+        ConditionExpression expression = ConditionParser.parse("status == ACTIVE");
+
+        assertTrue(expression.test(Map.of("status", "ACTIVE")));
+        assertFalse(expression.test(Map.of("status", "BLOCKED")));
+        assertTrue(expression.test(Map.of("status", "X", "ACTIVE", "X")));
+    }
+
+    @Test
+    void comparesNumbersAndStrings() {
+        Map<String, Object> data = Map.of("amount", "1500", "count", 2L, "code", "b");
+
+        assertTrue(ConditionParser.parse("amount > 1000").test(data));
+        assertTrue(ConditionParser.parse("count == 2.0").test(data));
+        assertTrue(ConditionParser.parse("code > 'a'").test(data));
+        assertFalse(ConditionParser.parse("missing < 3").test(data));
+    }
+}
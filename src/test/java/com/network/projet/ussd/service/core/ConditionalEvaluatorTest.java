@@ -0,0 +1,86 @@
+package com.network.projet.ussd.service.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for ConditionalEvaluator.
+ */
+class ConditionalEvaluatorTest {
+
+    private final ConditionalEvaluator evaluator = new ConditionalEvaluator(100);
+
+    @Test
+    void missingOrPlainConditionAlwaysMatches() {
+        assertTrue(evaluator.evaluate(null, Map.of()));
+        assertTrue(evaluator.evaluate("", Map.of()));
+        assertTrue(evaluator.evaluate("1", Map.of()));
+    }
+
+    @Test
+    void invalidExpressionNeverMatches() {
+        assertFalse(evaluator.evaluate("{{a == 'open}}", Map.of("a", "open")));
+        assertSame(ConditionExpression.ALWAYS_FALSE, evaluator.compile("{{a ==}}"));
+    }
+
+    @Test
+    void nullChecks() {
+        Map<String, Object> data = new HashMap<>();
+        data.put("authToken", "abc");
+        data.put("error", null);
+
+        assertTrue(evaluator.evaluate("{{authToken != null}}", data));
+        assertTrue(evaluator.evaluate("{{ error == null }}", data));
+        assertTrue(evaluator.evaluate("{{missing == null}}", data));
+    }
+
+    /**
+     * Comportement modifié: {{flag}} avec un false stocké ne passe plus.
+     */
+    @Test
+    void storedFalseFailsExistenceCheck() {
+        assertFalse(evaluator.evaluate("{{flag}}", Map.of("flag", false)));
+        assertTrue(evaluator.evaluate("{{flag}}", Map.of("flag", "yes")));
+        assertFalse(evaluator.evaluate("{{flag}}", Map.of()));
+    }
+
+    /**
+     * Comportement modifié: a.b lit data.a.b et non la clé plate "a.b".
+     */
+    @Test
+    void dottedNamesAreNestedLookups() {
+        assertTrue(evaluator.evaluate("{{user.status == 'ACTIVE'}}",
+                Map.of("user", Map.of("status", "ACTIVE"))));
+        assertFalse(evaluator.evaluate("{{user.status == 'ACTIVE'}}",
+                Map.of("user.status", "ACTIVE")));
+    }
+
+    @Test
+    void legacyBareWordComparison() {
+        assertTrue(evaluator.evaluate("{{status == ACTIVE}}", Map.of("status", "ACTIVE")));
+        assertTrue(evaluator.evaluate("{{status != ACTIVE}}", Map.of("status", "BLOCKED")));
+    }
+
+    @Test
+    void compoundConditions() {
+        Map<String, Object> data = Map.of("balance", 750, "blocked", false, "tries", 1);
+
+        assertTrue(evaluator.evaluate("{{balance >= 500 && !blocked}}", data));
+        assertTrue(evaluator.evaluate("{{(blocked || balance > 1000) || tries < 3}}", data));
+        assertFalse(evaluator.evaluate("{{blocked || balance < 500}}", data));
+    }
+
+    @Test
+    void compilesOnceAndPrecompiles() {
+        assertSame(evaluator.compile("{{a == 1}}"), evaluator.compile("{{a == 1}}"));
+        assertEquals(2, evaluator.precompile(List.of("{{a == 1}}", "{{b}}", "plain")));
+    }
+}
@@ -0,0 +1,161 @@
+package com.network.projet.ussd.service.core;
+
+import com.network.projet.ussd.domain.model.UssdService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Flux;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for MainMenuRenderer pagination.
+ */
+class MainMenuRendererTest {
+
+    private static final Pattern ITEM = Pattern.compile("^(\\d+)\\. ", Pattern.MULTILINE);
+
+    private ServiceRegistry serviceRegistry;
+    private MainMenuRenderer renderer;
+
+    @BeforeEach
+    void setUp() {
+        serviceRegistry = mock(ServiceRegistry.class);
+        renderer = new MainMenuRenderer(serviceRegistry);
+        ReflectionTestUtils.setField(renderer, "maxLength", 182);
+        ReflectionTestUtils.setField(renderer, "pageMemorySeconds", 300L);
+        renderer.init();
+    }
+
+    private MainMenuRenderer.RenderedMenu render(long version, List<UssdService> services) {
+        when(serviceRegistry.getCatalogVersion()).thenReturn(version);
+        when(serviceRegistry.getAllActiveServices()).thenReturn(Flux.fromIterable(services));
+        return renderer.current().block();
+    }
+
+    private static List<UssdService> services(int count, String prefix) {
+        return IntStream.rangeClosed(1, count)
+                .mapToObj(i -> UssdService.builder().code("svc" + i).name(prefix + " " + i).build())
+                .toList();
+    }
+
+    /**
+     * Numéros de service d'une page (hors lignes de navigation)
+     */
+    private static List<Integer> numbers(String page) {
+        List<Integer> numbers = new ArrayList<>();
+        Matcher matcher = ITEM.matcher(page);
+        while (matcher.find()) {
+            int number = Integer.parseInt(matcher.group(1));
+            if (number != 0 && number != 98 && number != 99) {
+                numbers.add(number);
+            }
+        }
+        return numbers;
+    }
+
+    @Test
+    void emptyCatalogRendersSinglePage() {
+        MainMenuRenderer.RenderedMenu menu = render(1, List.of());
+
+        assertEquals(1, menu.pageCount());
+        assertTrue(menu.page(0).contains("Aucun service disponible."));
+        assertNull(menu.service(1));
+    }
+
+    @Test
+    void smallCatalogFitsOnOnePageWithoutNavigation() {
+        MainMenuRenderer.RenderedMenu menu = render(1, services(3, "Service"));
+
+        assertEquals(1, menu.pageCount());
+        assertEquals(List.of(1, 2, 3), numbers(menu.page(0)));
+        assertFalse(menu.page(0).contains("99. Suivant"));
+        assertFalse(menu.page(0).contains("98. Précédent"));
+        assertTrue(menu.page(0).endsWith("0. Quitter"));
+    }
+
+    /**
+     * Pages dans la limite USSD, numérotation globale continue et navigation
+     * présente uniquement là où elle a un sens.
+     */
+    @Test
+    void largeCatalogIsPaginatedWithinLimit() {
+        MainMenuRenderer.RenderedMenu menu = render(1, services(40, "Mobile Money"));
+
+        assertTrue(menu.pageCount() > 2);
+
+        List<Integer> all = new ArrayList<>();
+        for (int i = 0; i < menu.pageCount(); i++) {
+            String page = menu.page(i);
+            assertTrue(page.length() <= 182, "page " + i + " is " + page.length() + " chars");
+            assertEquals(i > 0, page.contains("98. Précédent"));
+            assertEquals(i < menu.pageCount() - 1, page.contains("99. Suivant"));
+            assertFalse(numbers(page).isEmpty());
+            all.addAll(numbers(page));
+        }
+
+        assertEquals(IntStream.rangeClosed(1, 40).boxed().toList(), all);
+        assertEquals("svc27", menu.service(27).getCode());
+        assertNull(menu.service(41));
+    }
+
+    @Test
+    void longNameIsTruncatedToFitPage() {
+        UssdService service = UssdService.builder().code("long").name("X".repeat(300)).build();
+
+        MainMenuRenderer.RenderedMenu menu = render(1, List.of(service));
+
+        assertEquals(1, menu.pageCount());
+        assertTrue(menu.page(0).length() <= 182);
+        assertTrue(menu.page(0).contains("…"));
+    }
+
+    @Test
+    void clampsPageIndex() {
+        MainMenuRenderer.RenderedMenu menu = render(1, services(40, "Mobile Money"));
+
+        assertEquals(0, menu.clampPage(-1));
+        assertEquals(menu.pageCount() - 1, menu.clampPage(99));
+    }
+
+    /**
+     * Rendu réutilisé tant que la version du catalogue ne change pas.
+     */
+    @Test
+    void rendersOncePerCatalogVersion() {
+        MainMenuRenderer.RenderedMenu first = render(1, services(3, "Service"));
+        assertSame(first, renderer.current().block());
+        verify(serviceRegistry, times(1)).getAllActiveServices();
+
+        MainMenuRenderer.RenderedMenu second = render(2, services(4, "Service"));
+        assertEquals(2, second.version());
+        assertEquals(4, second.size());
+    }
+
+    @Test
+    void remembersPagePerSession() {
+        assertEquals(0, renderer.currentPage("s1"));
+
+        renderer.rememberPage("s1", 2);
+        assertEquals(2, renderer.currentPage("s1"));
+        assertEquals(0, renderer.currentPage("s2"));
+
+        renderer.forget("s1");
+        assertEquals(0, renderer.currentPage("s1"));
+        assertEquals(0, renderer.currentPage(null));
+    }
+}
@@ -0,0 +1,87 @@
+package com.network.projet.ussd.service.core;
+
+import com.network.projet.ussd.domain.model.UssdSession;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for SessionContext (unité de travail d'une étape).
+ */
+class SessionContextTest {
+
+    private static UssdSession session() {
+        return UssdSession.builder()
+                .sessionId("s1")
+                .phoneNumber("237690000000")
+                .currentStateId("S1")
+                .sessionData("{}")
+                .isActive(true)
+                .build();
+    }
+
+    /**
+     * Navigation, terminaison et données restent dans le contexte jusqu'au commit.
+     */
+    @Test
+    void stepChangesDoNotTouchLoadedSession() {
+        UssdSession loaded = session();
+        SessionContext context = new SessionContext(loaded, new HashMap<>(), null);
+
+        context.put("amount", "500");
+        context.moveTo("S2");
+        context.terminate();
+
+        assertEquals("S2", context.getCurrentStateId());
+        assertTrue(context.isTerminated());
+        assertTrue(context.isDirty());
+
+        assertEquals("S1", loaded.getCurrentStateId());
+        assertTrue(loaded.isActive());
+        assertEquals("{}", loaded.getSessionData());
+    }
+
+    /**
+     * Un fork voit la navigation du parent et ses modifications ne sont reportées qu'au merge.
+     */
+    @Test
+    void forkChangesAreMergedInOrder() {
+        SessionContext context = new SessionContext(session(), new HashMap<>(), null);
+        context.moveTo("S2");
+
+        SessionContext first = context.fork();
+        SessionContext second = context.fork();
+        assertEquals("S2", first.getCurrentStateId());
+
+        first.put("a", 1);
+        first.moveTo("S3");
+        second.put("a", 2);
+        second.put("b", 3);
+
+        assertNull(context.get("a"));
+
+        context.merge(first);
+        context.merge(second);
+
+        assertEquals(2, context.get("a"));
+        assertEquals(3, context.get("b"));
+        // un fork sans navigation ne rétablit pas l'état précédent
+        assertEquals("S3", context.getCurrentStateId());
+        assertFalse(context.isTerminated());
+    }
+
+    /**
+     * Le numéro de téléphone est injecté dans les données.
+     */
+    @Test
+    void phoneNumberIsInjected() {
+        SessionContext context = new SessionContext(session(), new HashMap<>(), null);
+
+        assertEquals("237690000000", context.get(SessionContext.PHONE_NUMBER_KEY));
+    }
+}
@@ -0,0 +1,125 @@
+package com.network.projet.ussd.service.core;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for SessionExpiryWheel (ticks de 100ms, 8 seaux).
+ */
+class SessionExpiryWheelTest {
+
+    private static final long TICK = 100;
+
+    private SessionExpiryWheel wheel;
+    private long base;
+
+    @BeforeEach
+    void setUp() {
+        wheel = new SessionExpiryWheel();
+        ReflectionTestUtils.setField(wheel, "tickMs", TICK);
+        ReflectionTestUtils.setField(wheel, "wheelSize", 8);
+        wheel.init();
+        base = System.currentTimeMillis() / TICK * TICK + TICK;
+    }
+
+    private static LocalDateTime at(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+    }
+
+    @Test
+    void expiresWithinOneTickAfterDeadline() {
+        wheel.schedule("s1", at(base + 500));
+
+        assertTrue(wheel.advance(base + 400).isEmpty());
+        assertTrue(wheel.advance(base + 499).isEmpty());
+        assertEquals(List.of("s1"), wheel.advance(base + 500 + TICK));
+        assertEquals(0, wheel.getTrackedSessions());
+    }
+
+    /**
+     * Seule la dernière échéance programmée compte.
+     */
+    @Test
+    void rescheduleReplacesDeadline() {
+        wheel.schedule("s1", at(base + 300));
+        wheel.schedule("s1", at(base + 900));
+
+        assertTrue(wheel.advance(base + 500).isEmpty());
+        assertEquals(List.of("s1"), wheel.advance(base + 1000));
+    }
+
+    @Test
+    void rescheduleToEarlierDeadlineIsHonoured() {
+        wheel.schedule("s1", at(base + 900));
+        wheel.schedule("s1", at(base + 200));
+
+        assertEquals(List.of("s1"), wheel.advance(base + 300));
+        assertTrue(wheel.advance(base + 1000).isEmpty());
+    }
+
+    @Test
+    void cancelledSessionNeverExpires() {
+        wheel.schedule("s1", at(base + 200));
+        wheel.cancel("s1");
+
+        assertTrue(wheel.advance(base + 1000).isEmpty());
+        assertEquals(0, wheel.getTrackedSessions());
+    }
+
+    /**
+     * Une échéance au-delà d'un tour de roue (800ms) attend son tour.
+     */
+    @Test
+    void deadlineBeyondOneTurnWaitsForItsRound() {
+        wheel.schedule("s1", at(base + 2000));
+
+        assertTrue(wheel.advance(base + 900).isEmpty());
+        assertTrue(wheel.advance(base + 1700).isEmpty());
+        assertEquals(1, wheel.getTrackedSessions());
+        assertEquals(List.of("s1"), wheel.advance(base + 2100));
+    }
+
+    @Test
+    void pastDeadlineExpiresOnNextTick() {
+        wheel.advance(base + 500);
+        wheel.schedule("s1", at(base));
+
+        assertEquals(List.of("s1"), wheel.advance(base + 700));
+    }
+
+    /**
+     * Après une longue pause, chaque session échue est rendue une seule fois.
+     */
+    @Test
+    void longPauseReturnsEveryExpiredSessionOnce() {
+        for (int i = 0; i < 20; i++) {
+            wheel.schedule("s" + i, at(base + i * 150L));
+        }
+        wheel.schedule("late", at(base + 60_000));
+
+        List<String> expired = wheel.advance(base + 10_000);
+
+        assertEquals(20, expired.size());
+        assertEquals(20, Set.copyOf(expired).size());
+        assertEquals(1, wheel.getTrackedSessions());
+        assertTrue(wheel.advance(base + 20_000).isEmpty());
+    }
+
+    @Test
+    void ignoresIncompleteSchedules() {
+        wheel.schedule(null, at(base));
+        wheel.schedule("s1", null);
+
+        assertEquals(0, wheel.getTrackedSessions());
+    }
+}
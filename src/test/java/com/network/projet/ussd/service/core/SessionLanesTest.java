@@ -0,0 +1,174 @@
+package com.network.projet.ussd.service.core;
+
+import com.network.projet.ussd.exception.SessionBusyException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Unit tests for SessionLanes.
+ */
+class SessionLanesTest {
+
+    private SessionLanes sessionLanes;
+    private List<String> started;
+
+    @BeforeEach
+    void setUp() {
+        sessionLanes = new SessionLanes();
+        ReflectionTestUtils.setField(sessionLanes, "waitTimeoutMs", 1000L);
+        started = new CopyOnWriteArrayList<>();
+    }
+
+    /**
+     * Étape qui démarre en s'enregistrant puis se termine avec le sink
+     */
+    private Mono<String> step(String sessionId, String name, Sinks.Empty<Void> done) {
+        return sessionLanes.run(sessionId, () -> {
+            started.add(name);
+            return done.asMono().thenReturn(name);
+        });
+    }
+
+    @Test
+    void stepsOfOneSessionRunInOrder() {
+        Sinks.Empty<Void> a = Sinks.empty();
+        Sinks.Empty<Void> b = Sinks.empty();
+        Sinks.Empty<Void> c = Sinks.empty();
+
+        List<String> completed = new CopyOnWriteArrayList<>();
+        step("s1", "A", a).subscribe(completed::add);
+        step("s1", "B", b).subscribe(completed::add);
+        step("s1", "C", c).subscribe(completed::add);
+
+        assertEquals(List.of("A"), started);
+
+        a.tryEmitEmpty();
+        assertEquals(List.of("A", "B"), started);
+
+        b.tryEmitEmpty();
+        c.tryEmitEmpty();
+        assertEquals(List.of("A", "B", "C"), started);
+        assertEquals(List.of("A", "B", "C"), completed);
+        assertEquals(0, sessionLanes.getActiveLanes());
+    }
+
+    @Test
+    void differentSessionsRunInParallel() {
+        Sinks.Empty<Void> a = Sinks.empty();
+        Sinks.Empty<Void> b = Sinks.empty();
+
+        step("s1", "A", a).subscribe();
+        step("s2", "B", b).subscribe();
+
+        assertEquals(List.of("A", "B"), started);
+        assertEquals(2, sessionLanes.getActiveLanes());
+
+        b.tryEmitEmpty();
+        a.tryEmitEmpty();
+        assertEquals(0, sessionLanes.getActiveLanes());
+    }
+
+    @Test
+    void waitingStepTimesOutWithSessionBusy() {
+        Sinks.Empty<Void> a = Sinks.empty();
+        step("s1", "A", a).subscribe();
+
+        StepVerifier.withVirtualTime(() -> step("s1", "B", Sinks.empty()))
+                .expectSubscription()
+                .expectNoEvent(Duration.ofMillis(999))
+                .thenAwait(Duration.ofMillis(1))
+                .expectError(SessionBusyException.class)
+                .verify(Duration.ofSeconds(5));
+
+        assertEquals(List.of("A"), started);
+    }
+
+    /**
+     * Une étape expirée en attente ne rend son tour qu'après l'étape en cours.
+     */
+    @Test
+    void timedOutStepDoesNotLetNextStepOvertake() {
+        ReflectionTestUtils.setField(sessionLanes, "waitTimeoutMs", 0L);
+        Sinks.Empty<Void> a = Sinks.empty();
+        Sinks.Empty<Void> c = Sinks.empty();
+        step("s1", "A", a).subscribe();
+
+        StepVerifier.create(step("s1", "B", Sinks.empty()))
+                .expectError(SessionBusyException.class)
+                .verify(Duration.ofSeconds(1));
+
+        ReflectionTestUtils.setField(sessionLanes, "waitTimeoutMs", 1000L);
+        step("s1", "C", c).subscribe();
+        assertEquals(List.of("A"), started);
+
+        a.tryEmitEmpty();
+        assertEquals(List.of("A", "C"), started);
+    }
+
+    @Test
+    void cancelledRunningStepReleasesLane() {
+        Disposable running = step("s1", "A", Sinks.empty()).subscribe();
+        step("s1", "B", Sinks.empty()).subscribe();
+        assertEquals(List.of("A"), started);
+
+        running.dispose();
+
+        assertEquals(List.of("A", "B"), started);
+    }
+
+    /**
+     * Une étape annulée pendant son attente laisse passer la suivante
+     * une fois l'étape en cours terminée, pas avant.
+     */
+    @Test
+    void cancelledWaitingStepReleasesLaneAfterPredecessor() {
+        Sinks.Empty<Void> a = Sinks.empty();
+        step("s1", "A", a).subscribe();
+        Disposable waiting = step("s1", "B", Sinks.empty()).subscribe();
+        step("s1", "C", Sinks.empty()).subscribe();
+
+        waiting.dispose();
+        assertEquals(List.of("A"), started);
+
+        a.tryEmitEmpty();
+        assertEquals(List.of("A", "C"), started);
+    }
+
+    @Test
+    void failedStepReleasesLane() {
+        StepVerifier.create(sessionLanes.run("s1", () -> Mono.error(new IllegalStateException("boom"))))
+                .expectError(IllegalStateException.class)
+                .verify();
+
+        StepVerifier.create(step("s1", "B", completed()))
+                .expectNext("B")
+                .verifyComplete();
+        assertEquals(0, sessionLanes.getActiveLanes());
+    }
+
+    @Test
+    void noSessionIdRunsImmediately() {
+        step(null, "A", Sinks.empty()).subscribe();
+        step(null, "B", Sinks.empty()).subscribe();
+
+        assertEquals(List.of("A", "B"), started);
+        assertEquals(0, sessionLanes.getActiveLanes());
+    }
+
+    private static Sinks.Empty<Void> completed() {
+        Sinks.Empty<Void> sink = Sinks.empty();
+        sink.tryEmitEmpty();
+        return sink;
+    }
+}
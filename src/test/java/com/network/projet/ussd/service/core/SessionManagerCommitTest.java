@@ -0,0 +1,123 @@
+package com.network.projet.ussd.service.core;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.network.projet.ussd.domain.model.UssdSession;
+import com.network.projet.ussd.service.store.SessionStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for SessionManager.commit: une étape qui échoue laisse la
+ * session du tier mémoire dans son état précédent.
+ */
+class SessionManagerCommitTest {
+
+    private SessionStore sessionStore;
+    private SessionWriteBehindCache sessionCache;
+    private SessionManager sessionManager;
+
+    @BeforeEach
+    void setUp() {
+        sessionStore = mock(SessionStore.class);
+
+        SessionLanes sessionLanes = new SessionLanes();
+        ReflectionTestUtils.setField(sessionLanes, "waitTimeoutMs", 1000L);
+
+        SessionExpiryWheel expiryWheel = new SessionExpiryWheel();
+        ReflectionTestUtils.setField(expiryWheel, "tickMs", 1000L);
+        ReflectionTestUtils.setField(expiryWheel, "wheelSize", 8);
+        expiryWheel.init();
+
+        sessionCache = new SessionWriteBehindCache(sessionStore, sessionLanes, expiryWheel);
+        ReflectionTestUtils.setField(sessionCache, "maxSize", 100L);
+        ReflectionTestUtils.setField(sessionCache, "expireAfterAccessSeconds", 600L);
+        ReflectionTestUtils.setField(sessionCache, "flushBatchSize", 10);
+        sessionCache.init();
+
+        sessionManager = new SessionManager(sessionStore, sessionCache, sessionLanes,
+                mock(ServiceRegistry.class), new ObjectMapper());
+        ReflectionTestUtils.setField(sessionManager, "defaultInactivityMinutes", 5L);
+
+        sessionCache.resolve(UssdSession.builder()
+                .id(1L)
+                .version(3L)
+                .sessionId("s1")
+                .phoneNumber("237690000000")
+                .currentStateId("S1")
+                .sessionData("{}")
+                .isActive(true)
+                .createdAt(LocalDateTime.now())
+                .expiresAt(LocalDateTime.now().plusMinutes(5))
+                .build());
+    }
+
+    /**
+     * Conflit de version au commit d'une étape terminale: la copie en cache est inchangée.
+     */
+    @Test
+    void failedCommitLeavesCachedSessionUnchanged() {
+        when(sessionStore.compareAndSet(any())).thenReturn(Mono.just(false));
+        when(sessionStore.get("s1")).thenReturn(Mono.empty());
+
+        UssdSession loaded = sessionCache.findBySessionId("s1").block();
+        SessionContext context = sessionManager.openContext(loaded, null);
+        context.put("amount", "500");
+        context.moveTo("S2");
+        context.terminate();
+
+        StepVerifier.create(sessionManager.commit(context))
+                .expectError(OptimisticLockingFailureException.class)
+                .verify();
+
+        assertEquals("S1", loaded.getCurrentStateId());
+        assertTrue(loaded.isActive());
+        assertEquals("{}", loaded.getSessionData());
+    }
+
+    /**
+     * Étape abandonnée avant le commit (erreur d'une action): la copie en cache est inchangée.
+     */
+    @Test
+    void abandonedStepLeavesCachedSessionUnchanged() {
+        UssdSession loaded = sessionCache.findBySessionId("s1").block();
+        SessionContext context = sessionManager.openContext(loaded, null);
+        context.put("amount", "500");
+        context.moveTo("S2");
+
+        UssdSession cached = sessionCache.findBySessionId("s1").block();
+        assertEquals("S1", cached.getCurrentStateId());
+        assertEquals("{}", cached.getSessionData());
+        assertTrue(cached.isActive());
+    }
+
+    /**
+     * Commit réussi: navigation et données sont visibles dans le tier mémoire.
+     */
+    @Test
+    void successfulCommitUpdatesCachedSession() {
+        UssdSession loaded = sessionCache.findBySessionId("s1").block();
+        SessionContext context = sessionManager.openContext(loaded, null);
+        context.put("amount", "500");
+        context.moveTo("S2");
+
+        StepVerifier.create(sessionManager.commit(context))
+                .assertNext(saved -> assertEquals("S2", saved.getCurrentStateId()))
+                .verifyComplete();
+
+        UssdSession cached = sessionCache.findBySessionId("s1").block();
+        assertEquals("S2", cached.getCurrentStateId());
+        assertEquals("{\"amount\":\"500\"}", cached.getSessionData());
+    }
+}
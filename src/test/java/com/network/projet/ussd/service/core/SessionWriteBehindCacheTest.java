@@ -0,0 +1,124 @@
+package com.network.projet.ussd.service.core;
+
+import com.network.projet.ussd.domain.model.UssdSession;
+import com.network.projet.ussd.repository.UssdSessionRepository;
+import com.network.projet.ussd.service.store.InMemorySessionStore;
+import com.network.projet.ussd.service.store.SessionHistory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Sinks;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Unit tests for SessionWriteBehindCache: le tier mémoire ne contient que l'état validé.
+ */
+class SessionWriteBehindCacheTest {
+
+    private InMemorySessionStore sessionStore;
+    private SessionLanes sessionLanes;
+    private SessionWriteBehindCache sessionCache;
+
+    @BeforeEach
+    void setUp() {
+        sessionStore = new InMemorySessionStore(new SessionHistory(mock(UssdSessionRepository.class)));
+
+        sessionLanes = new SessionLanes();
+        ReflectionTestUtils.setField(sessionLanes, "waitTimeoutMs", 1000L);
+
+        SessionExpiryWheel expiryWheel = new SessionExpiryWheel();
+        ReflectionTestUtils.setField(expiryWheel, "tickMs", 1000L);
+        ReflectionTestUtils.setField(expiryWheel, "wheelSize", 8);
+        expiryWheel.init();
+
+        sessionCache = new SessionWriteBehindCache(sessionStore, sessionLanes, expiryWheel);
+        ReflectionTestUtils.setField(sessionCache, "maxSize", 100L);
+        ReflectionTestUtils.setField(sessionCache, "expireAfterAccessSeconds", 600L);
+        ReflectionTestUtils.setField(sessionCache, "flushBatchSize", 10);
+        sessionCache.init();
+
+        sessionCache.save(UssdSession.builder()
+                .sessionId("s1")
+                .phoneNumber("237690000000")
+                .currentStateId("S1")
+                .sessionData("{}")
+                .isActive(true)
+                .createdAt(LocalDateTime.now())
+                .expiresAt(LocalDateTime.now().plusMinutes(5))
+                .build()).block();
+    }
+
+    private UssdSession read() {
+        return sessionCache.findBySessionId("s1").block();
+    }
+
+    /**
+     * Une lecture modifiée sans sauvegarde n'affecte pas le cache.
+     */
+    @Test
+    void readsReturnCopies() {
+        UssdSession first = read();
+        first.setCurrentStateId("S9");
+        first.terminate();
+
+        UssdSession second = read();
+        assertNotSame(first, second);
+        assertEquals("S1", second.getCurrentStateId());
+        assertEquals(true, second.isActive());
+    }
+
+    /**
+     * Une écriture différée conserve l'état sauvegardé, pas l'objet de l'appelant.
+     */
+    @Test
+    void writeBehindKeepsSavedState() {
+        UssdSession session = read();
+        session.setCurrentStateId("S2");
+        sessionCache.save(session).block();
+
+        session.setCurrentStateId("S9");
+
+        assertEquals("S2", read().getCurrentStateId());
+        assertEquals(1, sessionCache.getPendingWrites());
+
+        sessionCache.flushDirtySessions();
+
+        assertEquals(0, sessionCache.getPendingWrites());
+        UssdSession stored = sessionStore.get("s1").block();
+        assertEquals("S2", stored.getCurrentStateId());
+        assertEquals(1L, stored.getVersion());
+        assertEquals(1L, read().getVersion());
+    }
+
+    /**
+     * Une étape qui sauvegarde pendant qu'un flush attend la file est
+     * persistée sans conflit de version (la dernière écriture gagne).
+     */
+    @Test
+    void flushWaitingForLaneKeepsVersionsConsistent() {
+        UssdSession session = read();
+        session.setCurrentStateId("S2");
+        sessionCache.save(session).block();
+
+        Sinks.Empty<Void> step = Sinks.empty();
+        sessionLanes.run("s1", step::asMono).subscribe();
+
+        sessionCache.flushDirtySessions();
+
+        UssdSession next = read();
+        next.setCurrentStateId("S3");
+        sessionCache.save(next).block();
+        step.tryEmitEmpty();
+
+        assertEquals(0, sessionCache.getPendingWrites());
+        UssdSession stored = sessionStore.get("s1").block();
+        assertEquals("S3", stored.getCurrentStateId());
+        assertEquals(1L, stored.getVersion());
+        assertEquals("S3", read().getCurrentStateId());
+    }
+}
@@ -0,0 +1,135 @@
+package com.network.projet.ussd.service.core;
+
+import com.network.projet.ussd.domain.enums.StateType;
+import com.network.projet.ussd.domain.model.UssdSession;
+import com.network.projet.ussd.domain.model.automaton.AutomatonDefinition;
+import com.network.projet.ussd.domain.model.automaton.CompiledAutomaton;
+import com.network.projet.ussd.domain.model.automaton.State;
+import com.network.projet.ussd.dto.request.UssdRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for UssdGatewayService chained input handling.
+ */
+class UssdGatewayServiceTest {
+
+    private static final StateResult RESULT = StateResult.builder()
+            .message("ok")
+            .continueSession(true)
+            .build();
+
+    private ServiceRegistry serviceRegistry;
+    private AutomatonEngine automatonEngine;
+    private UssdGatewayService gatewayService;
+    private CompiledAutomaton automaton;
+
+    @BeforeEach
+    void setUp() {
+        serviceRegistry = mock(ServiceRegistry.class);
+        automatonEngine = mock(AutomatonEngine.class);
+        gatewayService = new UssdGatewayService(serviceRegistry, mock(SessionManager.class),
+                automatonEngine, mock(MainMenuRenderer.class));
+        ReflectionTestUtils.setField(gatewayService, "chainedInputEnabled", true);
+        ReflectionTestUtils.setField(gatewayService, "maxChainSteps", 3);
+
+        automaton = CompiledAutomaton.compile(new AutomatonDefinition("svc", "Service", "1", "*123#", null,
+                null, null, List.of(state("MENU", StateType.MENU, true), state("PIN", StateType.INPUT, false))));
+        when(serviceRegistry.loadCompiledAutomaton("svc")).thenReturn(Mono.just(automaton));
+        when(automatonEngine.executeState(any(), any(), anyString())).thenReturn(Mono.just(RESULT));
+        when(automatonEngine.executeChain(any(), any(), anyList())).thenReturn(Mono.just(RESULT));
+    }
+
+    private static State state(String id, StateType type, boolean initial) {
+        State state = new State();
+        state.setId(id);
+        state.setType(type);
+        state.setIsInitial(initial);
+        state.setMessage(id);
+        state.setTransitions(List.of());
+        return state;
+    }
+
+    private static UssdSession session(String stateId) {
+        return UssdSession.builder()
+                .sessionId("s1")
+                .serviceCode("svc")
+                .currentStateId(stateId)
+                .isActive(true)
+                .expiresAt(LocalDateTime.now().plusMinutes(5))
+                .build();
+    }
+
+    private Mono<StateResult> process(String stateId, String text, boolean fromDialString) {
+        UssdRequest request = UssdRequest.builder().sessionId("s1").ussdCode("*123#").text(text).build();
+        return gatewayService.processRequest(request, session(stateId), fromDialString);
+    }
+
+    @Test
+    void menuReplyIsChained() {
+        StepVerifier.create(process("MENU", "1*2", false)).expectNext(RESULT).verifyComplete();
+
+        verify(automatonEngine).executeChain(eq(automaton), any(), eq(List.of("1", "2")));
+    }
+
+    /**
+     * Une réponse à une saisie libre contenant "*" est une seule entrée.
+     */
+    @Test
+    void freeInputReplyIsNotSplit() {
+        StepVerifier.create(process("PIN", "12*34", false)).expectNext(RESULT).verifyComplete();
+
+        verify(automatonEngine).executeState(eq(automaton), any(), eq("12*34"));
+        verify(automatonEngine, never()).executeChain(any(), any(), anyList());
+    }
+
+    @Test
+    void dialStringIsChainedWhateverTheState() {
+        StepVerifier.create(process("PIN", "12*34", true)).expectNext(RESULT).verifyComplete();
+
+        verify(automatonEngine).executeChain(eq(automaton), any(), eq(List.of("12", "34")));
+    }
+
+    /**
+     * Au-delà de max-steps, la chaîne est refusée sans exécuter d'étape.
+     */
+    @Test
+    void tooManyStepsAreRejected() {
+        StepVerifier.create(process("MENU", "1*2*3*4", false))
+                .assertNext(result -> {
+                    assertTrue(result.getMessage().contains("3 maximum"));
+                    assertTrue(result.isContinueSession());
+                    assertEquals("MENU", result.getNextStateId());
+                })
+                .verifyComplete();
+
+        verify(automatonEngine, never()).executeChain(any(), any(), anyList());
+        verify(automatonEngine, never()).executeState(any(), any(), anyString());
+    }
+
+    @Test
+    void splitIgnoresEmptySegments() {
+        assertEquals(List.of("1", "2"), gatewayService.splitChainedInput(" 1 **2* "));
+        assertEquals(List.of("5"), gatewayService.splitChainedInput("5"));
+        assertEquals(List.of("*"), gatewayService.splitChainedInput("*"));
+        verifyNoInteractions(serviceRegistry);
+    }
+}
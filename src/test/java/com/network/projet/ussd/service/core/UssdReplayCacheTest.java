@@ -0,0 +1,154 @@
+package com.network.projet.ussd.service.core;
+
+import com.network.projet.ussd.dto.request.UssdRequest;
+import com.network.projet.ussd.dto.response.UssdResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Unit tests for UssdReplayCache.
+ */
+class UssdReplayCacheTest {
+
+    private UssdReplayCache replayCache;
+    private AtomicInteger executions;
+
+    @BeforeEach
+    void setUp() {
+        replayCache = new UssdReplayCache();
+        ReflectionTestUtils.setField(replayCache, "enabled", true);
+        ReflectionTestUtils.setField(replayCache, "ttlSeconds", 30L);
+        ReflectionTestUtils.setField(replayCache, "unsequencedTtlSeconds", 30L);
+        ReflectionTestUtils.setField(replayCache, "maxSize", 100L);
+        replayCache.init();
+        executions = new AtomicInteger();
+    }
+
+    private static UssdRequest request(String sessionId, String text, String sequence) {
+        return UssdRequest.builder()
+                .sessionId(sessionId)
+                .phoneNumber("237690000000")
+                .ussdCode("*123#")
+                .text(text)
+                .sequence(sequence)
+                .build();
+    }
+
+    /**
+     * Étape comptée, dont la réponse porte le numéro d'exécution
+     */
+    private Supplier<Mono<UssdResponse>> step() {
+        return () -> Mono.fromCallable(() -> UssdResponse.builder()
+                .message("run " + executions.incrementAndGet())
+                .continueSession(true)
+                .build());
+    }
+
+    private String execute(UssdRequest request) {
+        return replayCache.execute(request, step()).block().getMessage();
+    }
+
+    @Test
+    void duplicateRequestIsReplayed() {
+        assertEquals("run 1", execute(request("s1", "1", "4")));
+        assertEquals("run 1", execute(request("s1", "1", "4")));
+
+        assertEquals(1, executions.get());
+        assertEquals(1, replayCache.getReplayedCount());
+    }
+
+    @Test
+    void differentInputOrSequenceIsExecuted() {
+        execute(request("s1", "1", "4"));
+
+        assertEquals("run 2", execute(request("s1", "2", "5")));
+        assertEquals("run 3", execute(request("s1", "2", "6")));
+        assertEquals("run 4", execute(request("s2", "2", "6")));
+        assertEquals(0, replayCache.getReplayedCount());
+    }
+
+    /**
+     * Seule la dernière requête de la session est retenue.
+     */
+    @Test
+    void onlyLastRequestOfSessionIsKept() {
+        execute(request("s1", "1", "1"));
+        execute(request("s1", "2", "2"));
+
+        assertEquals("run 3", execute(request("s1", "1", "1")));
+        assertEquals(1, replayCache.getCachedSessions());
+    }
+
+    /**
+     * Une relance pendant l'exécution rejoint l'étape en cours.
+     */
+    @Test
+    void duplicateJoinsInFlightStep() {
+        Sinks.One<UssdResponse> pending = Sinks.one();
+        Supplier<Mono<UssdResponse>> slowStep = () -> {
+            executions.incrementAndGet();
+            return pending.asMono();
+        };
+
+        Mono<UssdResponse> first = replayCache.execute(request("s1", "1", "1"), slowStep);
+        Mono<UssdResponse> retry = replayCache.execute(request("s1", "1", "1"), slowStep);
+
+        StepVerifier.create(first.zipWith(retry))
+                .then(() -> pending.tryEmitValue(UssdResponse.builder().message("done").build()))
+                .assertNext(both -> {
+                    assertEquals("done", both.getT1().getMessage());
+                    assertEquals("done", both.getT2().getMessage());
+                })
+                .verifyComplete();
+
+        assertEquals(1, executions.get());
+    }
+
+    /**
+     * Une étape en erreur n'est pas retenue: la relance est ré-exécutée.
+     */
+    @Test
+    void failedStepIsNotReplayed() {
+        StepVerifier.create(replayCache.execute(request("s1", "1", "1"),
+                        () -> Mono.error(new IllegalStateException("boom"))))
+                .expectError(IllegalStateException.class)
+                .verify();
+
+        assertEquals("run 1", execute(request("s1", "1", "1")));
+    }
+
+    /**
+     * Sans numéro de séquence, la fenêtre de relance est courte.
+     */
+    @Test
+    void unsequencedDuplicateOutsideWindowIsExecuted() {
+        ReflectionTestUtils.setField(replayCache, "unsequencedTtlSeconds", 0L);
+
+        execute(request("s1", "1", null));
+        assertEquals("run 2", execute(request("s1", "1", null)));
+
+        execute(request("s1", "1", "9"));
+        assertEquals("run 3", execute(request("s1", "1", "9")));
+    }
+
+    @Test
+    void disabledOrWithoutSessionAlwaysExecutes() {
+        execute(request(null, "1", "1"));
+        execute(request(null, "1", "1"));
+        assertEquals(2, executions.get());
+
+        ReflectionTestUtils.setField(replayCache, "enabled", false);
+        execute(request("s1", "1", "1"));
+        execute(request("s1", "1", "1"));
+        assertEquals(4, executions.get());
+    }
+}
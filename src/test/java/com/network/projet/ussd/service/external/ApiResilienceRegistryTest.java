@@ -0,0 +1,148 @@
+package com.network.projet.ussd.service.external;
+
+import com.network.projet.ussd.domain.enums.HttpMethod;
+import com.network.projet.ussd.domain.model.automaton.ApiConfig;
+import com.network.projet.ussd.domain.model.automaton.ResilienceConfig;
+import com.network.projet.ussd.dto.ExternalApiResponse;
+import com.network.projet.ussd.exception.ApiCallException;
+import com.network.projet.ussd.exception.ApiUnavailableException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Unit tests for ApiResilienceRegistry (retry budget, classification, circuit).
+ */
+class ApiResilienceRegistryTest {
+
+    private ApiResilienceRegistry registry;
+    private AtomicInteger calls;
+
+    @BeforeEach
+    void setUp() {
+        registry = new ApiResilienceRegistry();
+        ReflectionTestUtils.setField(registry, "defaultMaxConcurrentCalls", 10);
+        ReflectionTestUtils.setField(registry, "defaultSlidingWindowSize", 20);
+        ReflectionTestUtils.setField(registry, "defaultMinimumCalls", 10);
+        ReflectionTestUtils.setField(registry, "defaultFailureRateThreshold", 50);
+        ReflectionTestUtils.setField(registry, "defaultOpenStateSeconds", 30);
+        ReflectionTestUtils.setField(registry, "defaultRetryBackoffMs", 10);
+        ReflectionTestUtils.setField(registry, "defaultMaxTotalMs", 15000);
+        calls = new AtomicInteger();
+    }
+
+    private static ApiConfig apiConfig(int timeoutMs, int retryAttempts, Integer maxTotalMs) {
+        return ApiConfig.builder()
+                .baseUrl("http://partner.test")
+                .timeout(timeoutMs)
+                .retryAttempts(retryAttempts)
+                .resilience(ResilienceConfig.builder().maxTotalMs(maxTotalMs).build())
+                .build();
+    }
+
+    /**
+     * Appel qui échoue après un délai avec le statut donné
+     */
+    private Supplier<Mono<ExternalApiResponse>> failingCall(Duration latency, int status) {
+        return () -> {
+            calls.incrementAndGet();
+            return Mono.delay(latency)
+                    .then(Mono.error(new ApiCallException(status, "", "http://partner.test")));
+        };
+    }
+
+    /**
+     * Sans contrainte de budget, toutes les tentatives configurées sont utilisées.
+     */
+    @Test
+    void retriesTransientFailuresUpToRetryAttempts() {
+        StepVerifier.withVirtualTime(() -> registry.execute(apiConfig(100, 2, null), HttpMethod.GET,
+                        failingCall(Duration.ofMillis(80), 503)))
+                .thenAwait(Duration.ofSeconds(5))
+                .expectError(ApiCallException.class)
+                .verify();
+
+        assertEquals(3, calls.get());
+    }
+
+    /**
+     * Une tentative n'est pas lancée si backoff + timeout d'appel dépassent le budget restant.
+     */
+    @Test
+    void stopsRetryingWhenBudgetCannotFitAnotherAttempt() {
+        StepVerifier.withVirtualTime(() -> registry.execute(apiConfig(100, 5, 250), HttpMethod.GET,
+                        failingCall(Duration.ofMillis(80), 503)))
+                .thenAwait(Duration.ofSeconds(5))
+                .expectError(ApiCallException.class)
+                .verify();
+
+        // t=80ms: 170ms restants >= 15ms + 100ms; t~175ms: < 100ms restants
+        assertEquals(2, calls.get());
+    }
+
+    /**
+     * Le budget est recalculé à chaque souscription.
+     */
+    @Test
+    void budgetStartsAtSubscription() {
+        Mono<ExternalApiResponse> call = registry.execute(apiConfig(100, 5, 250), HttpMethod.GET,
+                failingCall(Duration.ofMillis(80), 503));
+
+        StepVerifier.withVirtualTime(() -> Mono.delay(Duration.ofSeconds(1)).then(call))
+                .thenAwait(Duration.ofSeconds(5))
+                .expectError(ApiCallException.class)
+                .verify();
+
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void clientErrorsAreNotRetried() {
+        StepVerifier.withVirtualTime(() -> registry.execute(apiConfig(100, 3, null), HttpMethod.GET,
+                        failingCall(Duration.ofMillis(10), 404)))
+                .thenAwait(Duration.ofSeconds(5))
+                .expectError(ApiCallException.class)
+                .verify();
+
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void nonIdempotentMethodsAreNotRetried() {
+        StepVerifier.withVirtualTime(() -> registry.execute(apiConfig(100, 3, null), HttpMethod.POST,
+                        failingCall(Duration.ofMillis(10), 503)))
+                .thenAwait(Duration.ofSeconds(5))
+                .expectError(ApiCallException.class)
+                .verify();
+
+        assertEquals(1, calls.get());
+    }
+
+    /**
+     * Circuit ouvert: refus immédiat sans appel.
+     */
+    @Test
+    void openCircuitFailsFast() {
+        ApiConfig config = apiConfig(100, 0, null);
+        for (int i = 0; i < 10; i++) {
+            StepVerifier.create(registry.execute(config, HttpMethod.POST, failingCall(Duration.ZERO, 500)))
+                    .expectError(ApiCallException.class)
+                    .verify();
+        }
+
+        StepVerifier.create(registry.execute(config, HttpMethod.POST, failingCall(Duration.ZERO, 500)))
+                .expectError(ApiUnavailableException.class)
+                .verify();
+
+        assertEquals(10, calls.get());
+        assertEquals("OPEN", registry.getStats().get("http://partner.test").getCircuitState());
+    }
+}
@@ -0,0 +1,112 @@
+package com.network.projet.ussd.service.external;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for CircuitBreaker.
+ */
+class CircuitBreakerTest {
+
+    private static void fail(CircuitBreaker breaker, int count) {
+        for (int i = 0; i < count; i++) {
+            assertTrue(breaker.tryAcquire());
+            breaker.onFailure();
+        }
+    }
+
+    private static void succeed(CircuitBreaker breaker, int count) {
+        for (int i = 0; i < count; i++) {
+            assertTrue(breaker.tryAcquire());
+            breaker.onSuccess();
+        }
+    }
+
+    @Test
+    void staysClosedBelowMinimumCalls() {
+        CircuitBreaker breaker = new CircuitBreaker(10, 5, 50, Duration.ofMinutes(1));
+
+        fail(breaker, 4);
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertEquals(100, breaker.getFailureRate());
+    }
+
+    @Test
+    void opensAtThresholdAndRejectsCalls() {
+        CircuitBreaker breaker = new CircuitBreaker(10, 4, 50, Duration.ofMinutes(1));
+
+        succeed(breaker, 2);
+        fail(breaker, 2);
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquire());
+    }
+
+    /**
+     * Les résultats sortis de la fenêtre glissante ne comptent plus.
+     */
+    @Test
+    void slidingWindowForgetsOldFailures() {
+        CircuitBreaker breaker = new CircuitBreaker(4, 4, 75, Duration.ofMinutes(1));
+
+        fail(breaker, 2);
+        succeed(breaker, 2);
+        assertEquals(50, breaker.getFailureRate());
+
+        succeed(breaker, 2);
+        assertEquals(0, breaker.getFailureRate());
+
+        fail(breaker, 2);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    void halfOpenAllowsSingleProbeThenCloses() {
+        CircuitBreaker breaker = new CircuitBreaker(4, 2, 50, Duration.ZERO);
+        fail(breaker, 2);
+
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertTrue(breaker.tryAcquire());
+        assertFalse(breaker.tryAcquire());
+
+        breaker.onSuccess();
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertEquals(0, breaker.getFailureRate());
+    }
+
+    @Test
+    void failedProbeReopens() throws InterruptedException {
+        CircuitBreaker breaker = new CircuitBreaker(4, 2, 50, Duration.ofMillis(50));
+        fail(breaker, 2);
+
+        assertFalse(breaker.tryAcquire());
+        Thread.sleep(60);
+
+        assertTrue(breaker.tryAcquire());
+        breaker.onFailure();
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquire());
+    }
+
+    /**
+     * Une sonde annulée libère la place pour une nouvelle sonde.
+     */
+    @Test
+    void cancelledProbeReleasesHalfOpenSlot() {
+        CircuitBreaker breaker = new CircuitBreaker(4, 2, 50, Duration.ZERO);
+        fail(breaker, 2);
+
+        assertTrue(breaker.tryAcquire());
+        breaker.onIgnored();
+
+        assertTrue(breaker.tryAcquire());
+    }
+}
@@ -0,0 +1,108 @@
+package com.network.projet.ussd.service.external;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for ResponseExtractor.
+ */
+class ResponseExtractorTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private Map<String, Object> extract(Map<String, String> mapping, String json) throws Exception {
+        return ResponseExtractor.compile(mapping).extract(json.getBytes(StandardCharsets.UTF_8), objectMapper);
+    }
+
+    @Test
+    void emptyMappingCompilesToNull() {
+        assertNull(ResponseExtractor.compile(null));
+        assertNull(ResponseExtractor.compile(Map.of()));
+    }
+
+    @Test
+    void extractsNestedFieldsAndArrayIndexes() throws Exception {
+        Map<String, Object> result = extract(
+                Map.of("temperature", "main.temp", "first", "items.0.name", "second", "items.1.name"),
+                "{\"main\":{\"temp\":21.5,\"humidity\":40},"
+                        + "\"items\":[{\"name\":\"a\"},{\"name\":\"b\",\"tags\":[1,2]}],\"ignored\":{\"x\":[1]}}");
+
+        assertEquals(Map.of("temperature", 21.5, "first", "a", "second", "b"), result);
+    }
+
+    /**
+     * Les valeurs non scalaires sont matérialisées telles quelles.
+     */
+    @Test
+    void materializesObjectsAndArrays() throws Exception {
+        Map<String, Object> result = extract(
+                Map.of("user", "user", "tags", "user.tags"),
+                "{\"user\":{\"name\":\"amina\",\"tags\":[\"x\",\"y\"]}}");
+
+        assertEquals(Map.of("name", "amina", "tags", List.of("x", "y")), result.get("user"));
+        assertEquals(List.of("x", "y"), result.get("tags"));
+    }
+
+    @Test
+    void missingAndNullPathsAreOmitted() throws Exception {
+        Map<String, Object> result = extract(
+                Map.of("name", "data.name", "missing", "data.nope", "nothing", "data.empty", "index", "list.5"),
+                "{\"data\":{\"name\":\"n\",\"empty\":null},\"list\":[1,2]}");
+
+        assertEquals(Map.of("name", "n"), result);
+        assertFalse(result.containsKey("nothing"));
+    }
+
+    @Test
+    void dotMapsWholeDocument() throws Exception {
+        Map<String, Object> result = extract(
+                Map.of("all", ".", "id", "id"),
+                "{\"id\":7,\"label\":\"x\"}");
+
+        assertEquals(Map.of("id", 7, "label", "x"), result.get("all"));
+        assertEquals(7, result.get("id"));
+    }
+
+    /**
+     * La lecture s'arrête dès que tous les chemins ont été trouvés: la suite
+     * du corps n'est jamais analysée.
+     */
+    @Test
+    void stopsReadingOnceAllPathsFound() throws Exception {
+        Map<String, Object> result = extract(Map.of("status", "status"), "{\"status\":\"OK\",\"rest\": {broken");
+
+        assertEquals(Map.of("status", "OK"), result);
+        assertThrows(JsonParseException.class,
+                () -> extract(Map.of("status", "status", "other", "other"), "{\"status\":\"OK\",\"rest\": {broken"));
+    }
+
+    @Test
+    void emptyBodyGivesEmptyResult() throws Exception {
+        assertTrue(extract(Map.of("a", "a"), "").isEmpty());
+    }
+
+    @Test
+    void signatureIsIndependentOfMappingOrder() {
+        Map<String, String> first = new LinkedHashMap<>();
+        first.put("a", "x");
+        first.put("b", "y");
+        Map<String, String> second = new LinkedHashMap<>();
+        second.put("b", "y");
+        second.put("a", "x");
+
+        assertEquals(ResponseExtractor.compile(first).getSignature(),
+                ResponseExtractor.compile(second).getSignature());
+    }
+}
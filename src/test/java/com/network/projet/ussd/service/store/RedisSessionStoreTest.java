@@ -0,0 +1,217 @@
+package com.network.projet.ussd.service.store;
+
+import com.network.projet.ussd.domain.model.UssdSession;
+import com.network.projet.ussd.repository.UssdSessionRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.test.StepVerifier;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Unit tests for RedisSessionStore against a RESP stand-in server
+ * (sémantique des scripts Lua émulée par RespTestServer).
+ */
+class RedisSessionStoreTest {
+
+    private static final String PREFIX = "test:";
+
+    private RespTestServer server;
+    private RedisSessionStore store;
+
+    @BeforeEach
+    void setUp() {
+        server = new RespTestServer();
+
+        store = new RedisSessionStore(new SessionHistory(mock(UssdSessionRepository.class)));
+        ReflectionTestUtils.setField(store, "host", "127.0.0.1");
+        ReflectionTestUtils.setField(store, "port", server.port());
+        ReflectionTestUtils.setField(store, "password", "");
+        ReflectionTestUtils.setField(store, "database", 0);
+        ReflectionTestUtils.setField(store, "keyPrefix", PREFIX);
+        ReflectionTestUtils.setField(store, "commandTimeoutMs", 2000L);
+        ReflectionTestUtils.setField(store, "ttlGraceSeconds", 60L);
+        ReflectionTestUtils.setField(store, "concurrency", 4);
+        store.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        store.close();
+        server.close();
+    }
+
+    private static UssdSession session(String sessionId, String phoneNumber, LocalDateTime expiresAt) {
+        LocalDateTime now = LocalDateTime.now();
+        return UssdSession.builder()
+                .sessionId(sessionId)
+                .phoneNumber(phoneNumber)
+                .serviceCode("svc")
+                .currentStateId("S1")
+                .sessionData("{\"amount\":\"500\"}")
+                .isActive(true)
+                .createdAt(now)
+                .updatedAt(now)
+                .expiresAt(expiresAt.truncatedTo(ChronoUnit.MILLIS))
+                .build();
+    }
+
+    private static UssdSession session(String sessionId) {
+        return session(sessionId, "2376900000" + sessionId.length(), LocalDateTime.now().plusMinutes(5));
+    }
+
+    @Test
+    void putAndGetRoundTrip() {
+        UssdSession session = session("s1");
+
+        StepVerifier.create(store.put(session)).expectNext(session).verifyComplete();
+
+        StepVerifier.create(store.get("s1"))
+                .assertNext(loaded -> {
+                    assertEquals(0L, loaded.getVersion());
+                    assertEquals(session.getPhoneNumber(), loaded.getPhoneNumber());
+                    assertEquals("svc", loaded.getServiceCode());
+                    assertEquals("S1", loaded.getCurrentStateId());
+                    assertEquals(session.getSessionData(), loaded.getSessionData());
+                    assertEquals(session.getCreatedAt(), loaded.getCreatedAt());
+                    assertEquals(session.getExpiresAt(), loaded.getExpiresAt());
+                    assertTrue(loaded.isActive());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void missingSessionIsEmpty() {
+        StepVerifier.create(store.get("unknown")).verifyComplete();
+        StepVerifier.create(store.findActiveByPhoneNumber("000")).verifyComplete();
+    }
+
+    /**
+     * Écritures conditionnelles: version attendue, création exclusive, conflit (-1).
+     */
+    @Test
+    void compareAndSetDetectsVersionConflicts() {
+        UssdSession created = session("s1");
+        StepVerifier.create(store.compareAndSet(created)).expectNext(true).verifyComplete();
+        assertEquals(0L, created.getVersion());
+
+        UssdSession duplicate = session("s1");
+        StepVerifier.create(store.compareAndSet(duplicate)).expectNext(false).verifyComplete();
+
+        UssdSession first = store.get("s1").block();
+        UssdSession second = store.get("s1").block();
+
+        first.setCurrentStateId("S2");
+        StepVerifier.create(store.compareAndSet(first)).expectNext(true).verifyComplete();
+        assertEquals(1L, first.getVersion());
+
+        second.setCurrentStateId("S3");
+        StepVerifier.create(store.compareAndSet(second)).expectNext(false).verifyComplete();
+        assertEquals(0L, second.getVersion());
+
+        StepVerifier.create(store.get("s1"))
+                .assertNext(loaded -> assertEquals("S2", loaded.getCurrentStateId()))
+                .verifyComplete();
+    }
+
+    @Test
+    void findsActiveSessionByPhoneNumber() {
+        store.put(session("s1", "237690000001", LocalDateTime.now().plusMinutes(5))).block();
+
+        StepVerifier.create(store.findActiveByPhoneNumber("237690000001"))
+                .assertNext(found -> assertEquals("s1", found.getSessionId()))
+                .verifyComplete();
+    }
+
+    /**
+     * Une session terminée quitte le store avec son index téléphone.
+     */
+    @Test
+    void terminatedSessionIsRemovedWithPhoneIndex() {
+        UssdSession session = session("s1", "237690000001", LocalDateTime.now().plusMinutes(5));
+        store.compareAndSet(session).block();
+
+        session.terminate();
+        StepVerifier.create(store.compareAndSet(session)).expectNext(true).verifyComplete();
+
+        StepVerifier.create(store.get("s1")).verifyComplete();
+        StepVerifier.create(store.findActiveByPhoneNumber("237690000001")).verifyComplete();
+        assertTrue(server.data().isEmpty());
+    }
+
+    /**
+     * L'index téléphone repris par une autre session n'est pas supprimé.
+     */
+    @Test
+    void terminationKeepsPhoneIndexOwnedByAnotherSession() {
+        UssdSession old = session("s1", "237690000001", LocalDateTime.now().plusMinutes(5));
+        store.compareAndSet(old).block();
+        store.compareAndSet(session("s2", "237690000001", LocalDateTime.now().plusMinutes(5))).block();
+
+        old.terminate();
+        store.compareAndSet(old).block();
+
+        StepVerifier.create(store.findActiveByPhoneNumber("237690000001"))
+                .assertNext(found -> assertEquals("s2", found.getSessionId()))
+                .verifyComplete();
+    }
+
+    @Test
+    void deleteRemovesSession() {
+        store.put(session("s1")).block();
+
+        StepVerifier.create(store.delete("s1")).verifyComplete();
+        StepVerifier.create(store.get("s1")).verifyComplete();
+    }
+
+    /**
+     * Seules les sessions échues au seuil sont supprimées.
+     */
+    @Test
+    void expireDeletesOnlySessionsPastThreshold() {
+        LocalDateTime threshold = LocalDateTime.now();
+        store.put(session("past", "1", threshold.minusMinutes(1))).block();
+        store.put(session("future", "2", threshold.plusMinutes(1))).block();
+
+        StepVerifier.create(store.expire(List.of("past", "future", "unknown"), threshold))
+                .expectNext(1)
+                .verifyComplete();
+
+        StepVerifier.create(store.get("past")).verifyComplete();
+        StepVerifier.create(store.get("future"))
+                .assertNext(loaded -> assertEquals("future", loaded.getSessionId()))
+                .verifyComplete();
+
+        StepVerifier.create(store.expire(List.of("future"), threshold.plusMinutes(2)))
+                .expectNext(1)
+                .verifyComplete();
+        assertFalse(server.data().containsKey(PREFIX + "future"));
+    }
+
+    @Test
+    void writeSendsKeyExpiryWithGrace() {
+        UssdSession session = session("s1");
+        store.put(session).block();
+
+        List<String> eval = server.commands().stream()
+                .filter(command -> command.get(0).equals("EVAL"))
+                .findFirst()
+                .orElseThrow();
+        long expiresAt = session.getExpiresAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+
+        assertEquals(List.of(PREFIX + "s1", PREFIX + "phone:" + session.getPhoneNumber()), eval.subList(3, 5));
+        assertEquals(List.of("*", "1", Long.toString(expiresAt + 60_000), "s1"), eval.subList(5, 9));
+        assertEquals("0", ((Map<?, ?>) server.data().get(PREFIX + "s1")).get("version"));
+    }
+}
@@ -0,0 +1,214 @@
+package com.network.projet.ussd.service.store;
+
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.InvalidDataAccessResourceUsageException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for RespConnection against a RESP stand-in server.
+ */
+class RespConnectionTest {
+
+    private RespTestServer server;
+    private RespConnection connection;
+
+    @BeforeEach
+    void setUp() {
+        server = new RespTestServer();
+        connection = new RespConnection("127.0.0.1", server.port(), "", 0, Duration.ofSeconds(2));
+    }
+
+    @AfterEach
+    void tearDown() {
+        connection.close();
+        server.close();
+    }
+
+    // ========== DÉCODAGE ==========
+
+    /**
+     * Chaque octet arrive dans sa propre trame: aucune réponse n'est émise
+     * avant d'être complète.
+     */
+    @Test
+    void decoderWaitsForCompleteReplies() {
+        EmbeddedChannel channel = new EmbeddedChannel(new RespConnection.RespDecoder());
+        byte[] bytes = "$5\r\nhello\r\n*3\r\n:1\r\n$2\r\nab\r\n*2\r\n+x\r\n$0\r\n\r\n"
+                .getBytes(StandardCharsets.US_ASCII);
+
+        for (int i = 0; i < bytes.length - 1; i++) {
+            channel.writeInbound(Unpooled.wrappedBuffer(bytes, i, 1));
+            if (i < 10) {
+                assertNull(channel.readInbound(), "partial bulk string emitted at byte " + i);
+            }
+        }
+        assertEquals("hello", channel.readInbound());
+        assertNull(channel.readInbound());
+
+        channel.writeInbound(Unpooled.wrappedBuffer(bytes, bytes.length - 1, 1));
+        assertEquals(List.of(1L, "ab", List.of("x", "")), channel.readInbound());
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    void decoderHandlesSeveralRepliesInOneFrame() {
+        EmbeddedChannel channel = new EmbeddedChannel(new RespConnection.RespDecoder());
+
+        channel.writeInbound(Unpooled.copiedBuffer("+OK\r\n:42\r\n$2\r\né\r\n", StandardCharsets.UTF_8));
+
+        assertEquals("OK", channel.readInbound());
+        assertEquals(42L, (Long) channel.readInbound());
+        assertEquals("é", channel.readInbound());
+        channel.finishAndReleaseAll();
+    }
+
+    // ========== RÉPONSES ==========
+
+    @Test
+    void repliesSplitAcrossFramesOverTcp() {
+        server.chunkSize(3);
+        String large = "x".repeat(1000);
+
+        StepVerifier.create(connection.execute("ECHO", large))
+                .expectNext(large)
+                .verifyComplete();
+        StepVerifier.create(connection.execute("RAW", "*3\r\n$1\r\na\r\n*1\r\n:7\r\n$-1\r\n"))
+                .assertNext(reply -> {
+                    List<?> values = assertInstanceOf(List.class, reply);
+                    assertEquals("a", values.get(0));
+                    assertEquals(List.of(7L), values.get(1));
+                    assertEquals(3, values.size());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void nilBulkAndNilArrayAreEmpty() {
+        StepVerifier.create(connection.execute("GET", "missing"))
+                .verifyComplete();
+        StepVerifier.create(connection.execute("RAW", "*-1\r\n"))
+                .verifyComplete();
+        StepVerifier.create(connection.execute("RAW", "*0\r\n"))
+                .expectNext(List.of())
+                .verifyComplete();
+    }
+
+    @Test
+    void errorReplyFailsOnlyItsCommand() {
+        StepVerifier.create(connection.execute("NOPE"))
+                .expectError(InvalidDataAccessResourceUsageException.class)
+                .verify();
+        StepVerifier.create(connection.execute("PING"))
+                .expectNext("PONG")
+                .verifyComplete();
+    }
+
+    /**
+     * Commandes pipelinées sur une seule connexion: chaque réponse va à sa commande.
+     */
+    @Test
+    void pipelinedRepliesMatchTheirCommands() {
+        StepVerifier.create(Flux.range(0, 500)
+                        .flatMap(i -> connection.execute("ECHO", "v" + i).map(reply -> reply.equals("v" + i)), 64)
+                        .all(Boolean::booleanValue))
+                .expectNext(true)
+                .verifyComplete();
+
+        assertEquals(1, server.connectionCount());
+    }
+
+    @Test
+    void handshakeSendsAuthAndSelect() {
+        server.requirePassword("secret");
+        RespConnection secured = new RespConnection("127.0.0.1", server.port(), "secret", 2, Duration.ofSeconds(2));
+
+        StepVerifier.create(secured.execute("PING"))
+                .expectNext("PONG")
+                .verifyComplete();
+        secured.close();
+
+        assertEquals(List.of(List.of("AUTH", "secret"), List.of("SELECT", "2"), List.of("PING")),
+                server.commands());
+    }
+
+    @Test
+    void failedHandshakeIsReported() {
+        server.requirePassword("secret");
+        RespConnection wrong = new RespConnection("127.0.0.1", server.port(), "guess", 0, Duration.ofSeconds(2));
+
+        StepVerifier.create(wrong.execute("PING"))
+                .expectError(InvalidDataAccessResourceUsageException.class)
+                .verify();
+        wrong.close();
+    }
+
+    // ========== COUPURES ==========
+
+    /**
+     * Coupure côté serveur: les commandes en vol échouent aussitôt, la
+     * commande suivante ouvre une nouvelle connexion.
+     */
+    @Test
+    void disconnectFailsPendingThenReconnects() {
+        StepVerifier.create(connection.execute("PING")).expectNext("PONG").verifyComplete();
+
+        StepVerifier.create(connection.execute("HANG"))
+                .then(server::dropConnections)
+                .expectError(DataAccessResourceFailureException.class)
+                .verify(Duration.ofMillis(1500));
+
+        StepVerifier.create(connection.execute("PING"))
+                .expectNext("PONG")
+                .verifyComplete();
+        assertEquals(2, server.connectionCount());
+    }
+
+    /**
+     * Une commande expirée ne décale pas les réponses suivantes.
+     */
+    @Test
+    void timedOutCommandKeepsRepliesAligned() {
+        RespConnection impatient = new RespConnection("127.0.0.1", server.port(), "", 0, Duration.ofMillis(100));
+
+        StepVerifier.create(impatient.execute("DELAY", 300, "late"))
+                .expectErrorSatisfies(error -> {
+                    assertInstanceOf(DataAccessResourceFailureException.class, error);
+                    assertInstanceOf(TimeoutException.class, error.getCause());
+                })
+                .verify();
+        StepVerifier.create(Mono.delay(Duration.ofMillis(300)).then(impatient.execute("ECHO", "next")))
+                .expectNext("next")
+                .verifyComplete();
+        impatient.close();
+    }
+
+    @Test
+    void unreachableServerIsResourceFailure() {
+        int port = server.port();
+        server.close();
+        RespConnection offline = new RespConnection("127.0.0.1", port, "", 0, Duration.ofSeconds(2));
+
+        StepVerifier.create(offline.execute("PING"))
+                .expectError(DataAccessResourceFailureException.class)
+                .verify();
+        offline.close();
+        assertTrue(server.commands().isEmpty());
+    }
+}
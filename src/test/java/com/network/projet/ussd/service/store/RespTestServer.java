@@ -0,0 +1,279 @@
+package com.network.projet.ussd.service.store;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.Connection;
+import reactor.netty.DisposableServer;
+import reactor.netty.tcp.TcpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * RespTestServer - Serveur RESP2 de substitution pour les tests (reactor-netty TcpServer)
+ *
+ * Implémente les commandes utilisées par RespConnection et RedisSessionStore
+ * (GET, SET, DEL, HGETALL, AUTH, SELECT, PING, ECHO). Les scripts Lua ne
+ * pouvant pas s'exécuter ici, EVAL reconnaît le texte des scripts de
+ * RedisSessionStore et en émule la sémantique.
+ *
+ * Commandes de test:
+ * - RAW texte: renvoie le texte tel quel (réponse RESP écrite à la main)
+ * - DELAY ms valeur: répond après un délai
+ * - HANG: ne répond jamais
+ *
+ * Les réponses peuvent être découpées en fragments envoyés séparément
+ * (chunkSize) pour exercer le décodage de trames partielles.
+ */
+final class RespTestServer implements AutoCloseable {
+
+    private final DisposableServer server;
+    private final Map<String, Object> data = new ConcurrentHashMap<>();
+    private final List<List<String>> commands = new CopyOnWriteArrayList<>();
+    private final Queue<Connection> connections = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger connectionsOpened = new AtomicInteger();
+    private volatile int chunkSize = Integer.MAX_VALUE;
+    private volatile String password;
+
+    RespTestServer() {
+        this.server = TcpServer.create()
+                .host("127.0.0.1")
+                .port(0)
+                .doOnConnection(connection -> {
+                    connections.add(connection);
+                    connectionsOpened.incrementAndGet();
+                    connection.addHandlerLast("resp-decoder", new RespConnection.RespDecoder());
+                })
+                .handle((inbound, outbound) -> inbound.receiveObject()
+                        .concatMap(message -> reply(toCommand(message))
+                                .flatMap(bytes -> outbound.sendByteArray(chunks(bytes)).then())))
+                .bindNow();
+    }
+
+    int port() {
+        return server.port();
+    }
+
+    void chunkSize(int chunkSize) {
+        this.chunkSize = chunkSize;
+    }
+
+    void requirePassword(String password) {
+        this.password = password;
+    }
+
+    List<List<String>> commands() {
+        return commands;
+    }
+
+    Map<String, Object> data() {
+        return data;
+    }
+
+    /**
+     * Nombre de connexions acceptées depuis le démarrage
+     */
+    int connectionCount() {
+        return connectionsOpened.get();
+    }
+
+    /**
+     * Ferme côté serveur toutes les connexions ouvertes
+     */
+    void dropConnections() {
+        Connection connection;
+        while ((connection = connections.poll()) != null) {
+            connection.dispose();
+        }
+    }
+
+    @Override
+    public void close() {
+        dropConnections();
+        server.disposeNow();
+    }
+
+    // ========== COMMANDES ==========
+
+    @SuppressWarnings("unchecked")
+    private List<String> toCommand(Object message) {
+        List<String> command = new ArrayList<>();
+        for (Object arg : (List<Object>) message) {
+            command.add(String.valueOf(arg));
+        }
+        commands.add(command);
+        return command;
+    }
+
+    private Mono<byte[]> reply(List<String> command) {
+        String name = command.get(0).toUpperCase();
+        return switch (name) {
+            case "HANG" -> Mono.empty();
+            case "DELAY" -> Mono.delay(Duration.ofMillis(Long.parseLong(command.get(1))))
+                    .thenReturn(bulk(command.get(2)));
+            default -> Mono.fromCallable(() -> execute(name, command));
+        };
+    }
+
+    private synchronized byte[] execute(String name, List<String> command) {
+        return switch (name) {
+            case "RAW" -> command.get(1).getBytes(StandardCharsets.UTF_8);
+            case "PING" -> simple("PONG");
+            case "ECHO" -> bulk(command.get(1));
+            case "AUTH" -> password == null || password.equals(command.get(1))
+                    ? simple("OK")
+                    : error("WRONGPASS invalid password");
+            case "SELECT" -> simple("OK");
+            case "GET" -> data.get(command.get(1)) instanceof String value ? bulk(value) : nil();
+            case "SET" -> {
+                data.put(command.get(1), command.get(2));
+                yield simple("OK");
+            }
+            case "DEL" -> {
+                long removed = command.subList(1, command.size()).stream()
+                        .filter(key -> data.remove(key) != null)
+                        .count();
+                yield integer(removed);
+            }
+            case "HGETALL" -> array(hashFields(command.get(1)));
+            case "EVAL" -> eval(command);
+            default -> error("ERR unknown command '" + name + "'");
+        };
+    }
+
+    /**
+     * Émulation des scripts de RedisSessionStore, reconnus à leur texte
+     */
+    private byte[] eval(List<String> command) {
+        String script = command.get(1);
+        int keyCount = Integer.parseInt(command.get(2));
+        List<String> keys = command.subList(3, 3 + keyCount);
+        List<String> args = command.subList(3 + keyCount, command.size());
+
+        if (script.contains("PEXPIREAT")) {
+            return writeScript(keys, args);
+        }
+        if (script.contains("HGETALL")) {
+            return expireScript(keys, args);
+        }
+        return error("ERR unsupported script");
+    }
+
+    private byte[] writeScript(List<String> keys, List<String> args) {
+        Map<String, String> hash = hash(keys.get(0));
+        String current = hash != null ? hash.get("version") : null;
+        if (!"*".equals(args.get(0)) && !(current != null ? current : "").equals(args.get(0))) {
+            return integer(-1);
+        }
+
+        long version = current != null ? Long.parseLong(current) + 1 : 0;
+        data.remove(keys.get(0));
+        if (!"1".equals(args.get(1))) {
+            if (args.get(3).equals(data.get(keys.get(1)))) {
+                data.remove(keys.get(1));
+            }
+            return integer(version);
+        }
+
+        Map<String, String> fields = new LinkedHashMap<>();
+        fields.put("version", Long.toString(version));
+        for (int i = 4; i + 1 < args.size(); i += 2) {
+            fields.put(args.get(i), args.get(i + 1));
+        }
+        data.put(keys.get(0), fields);
+        data.put(keys.get(1), args.get(3));
+        return integer(version);
+    }
+
+    private byte[] expireScript(List<String> keys, List<String> args) {
+        Map<String, String> hash = hash(keys.get(0));
+        String expiresAt = hash != null ? hash.get("expiresAt") : null;
+        if (expiresAt == null || Long.parseLong(expiresAt) >= Long.parseLong(args.get(0))) {
+            return nil();
+        }
+
+        List<String> fields = hashFields(keys.get(0));
+        data.remove(keys.get(0));
+        return array(fields);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, String> hash(String key) {
+        return data.get(key) instanceof Map<?, ?> map ? (Map<String, String>) map : null;
+    }
+
+    private List<String> hashFields(String key) {
+        List<String> fields = new ArrayList<>();
+        Map<String, String> hash = hash(key);
+        if (hash != null) {
+            hash.forEach((field, value) -> {
+                fields.add(field);
+                fields.add(value);
+            });
+        }
+        return fields;
+    }
+
+    // ========== ENCODAGE ==========
+
+    /**
+     * Réponse entière, ou fragments de chunkSize octets envoyés séparément
+     */
+    private Flux<byte[]> chunks(byte[] bytes) {
+        int size = chunkSize;
+        if (size >= bytes.length) {
+            return Flux.just(bytes);
+        }
+
+        List<byte[]> chunks = new ArrayList<>();
+        for (int i = 0; i < bytes.length; i += size) {
+            chunks.add(Arrays.copyOfRange(bytes, i, Math.min(bytes.length, i + size)));
+        }
+        return Flux.fromIterable(chunks).delayElements(Duration.ofMillis(1));
+    }
+
+    static byte[] simple(String value) {
+        return ("+" + value + "\r\n").getBytes(StandardCharsets.UTF_8);
+    }
+
+    static byte[] error(String message) {
+        return ("-" + message + "\r\n").getBytes(StandardCharsets.UTF_8);
+    }
+
+    static byte[] integer(long value) {
+        return (":" + value + "\r\n").getBytes(StandardCharsets.UTF_8);
+    }
+
+    static byte[] nil() {
+        return "$-1\r\n".getBytes(StandardCharsets.UTF_8);
+    }
+
+    static byte[] bulk(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.writeBytes(("$" + bytes.length + "\r\n").getBytes(StandardCharsets.UTF_8));
+        out.writeBytes(bytes);
+        out.writeBytes("\r\n".getBytes(StandardCharsets.UTF_8));
+        return out.toByteArray();
+    }
+
+    static byte[] array(List<String> values) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.writeBytes(("*" + values.size() + "\r\n").getBytes(StandardCharsets.UTF_8));
+        for (String value : values) {
+            out.writeBytes(bulk(value));
+        }
+        return out.toByteArray();
+    }
+}